@@ -8,6 +8,7 @@ plugins {
     id("org.jetbrains.gradle.plugin.idea-ext") version "1.1.7"
     id("eclipse")
     id("com.gtnewhorizons.retrofuturagradle") version "1.3.19"
+    id("me.champeau.jmh") version "0.7.2"
 }
 
 // Project properties
@@ -81,6 +82,30 @@ tasks.compileJava.configure {
     }
 }
 
+// Microbenchmarks for hot paths, run with `gradlew jmh`. Results are written as JSON so they can be compared across commits.
+sourceSets.named("jmh") {
+    compileClasspath += sourceSets.main.get().compileClasspath
+    runtimeClasspath += sourceSets.main.get().runtimeClasspath
+}
+
+tasks.named<JavaCompile>("compileJmhJava").configure {
+    options.release = 8
+    options.encoding = "UTF-8"
+}
+
+jmh {
+    jmhVersion.set("1.37")
+    resultFormat.set("JSON")
+    resultsFile.set(layout.buildDirectory.file("reports/jmh/results.json"))
+    // Minecraft 1.12.2 expects a Java 8 runtime.
+    jvm.set(javaToolchains.launcherFor {
+        languageVersion.set(JavaLanguageVersion.of(8))
+        vendor.set(JvmVendorSpec.AZUL)
+    }.map { it.executablePath.asFile.absolutePath })
+    (project.findProperty("jmhIncludes") as String?)?.let { includes.set(listOf(it)) }
+    (project.findProperty("jmhProfilers") as String?)?.let { profilers.set(it.split(",")) }
+}
+
 tasks.jar.configure {
     manifest {
         val attributes = manifest.attributes
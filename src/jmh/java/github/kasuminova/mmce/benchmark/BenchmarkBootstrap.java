@@ -0,0 +1,44 @@
+package github.kasuminova.mmce.benchmark;
+
+import hellfirepvp.modularmachinery.common.crafting.component.ComponentItem;
+import hellfirepvp.modularmachinery.common.crafting.requirement.type.RequirementTypeItem;
+import hellfirepvp.modularmachinery.common.lib.ComponentTypesMM;
+import hellfirepvp.modularmachinery.common.lib.RequirementTypesMM;
+import net.minecraft.init.Bootstrap;
+
+/**
+ * <p>在基准测试中初始化原版方块与物品注册表，无需启动游戏。</p>
+ *
+ * <p>Initializes the vanilla block and item registries for benchmarks without launching the game.</p>
+ */
+public final class BenchmarkBootstrap {
+    private static boolean initialized = false;
+    private static boolean recipeTypesInitialized = false;
+
+    private BenchmarkBootstrap() {
+    }
+
+    public static synchronized void init() {
+        if (initialized) {
+            return;
+        }
+        Bootstrap.register();
+        initialized = true;
+    }
+
+    /**
+     * <p>不经过 Forge 注册表，直接创建物品组件类型与物品需求类型，供配方相关的基准测试使用。</p>
+     *
+     * <p>Creates the item component type and the item requirement type without going through the Forge registries,
+     * for recipe related benchmarks.</p>
+     */
+    public static synchronized void initRecipeTypes() {
+        init();
+        if (recipeTypesInitialized) {
+            return;
+        }
+        ComponentTypesMM.COMPONENT_ITEM = new ComponentItem();
+        RequirementTypesMM.REQUIREMENT_ITEM = new RequirementTypeItem();
+        recipeTypesInitialized = true;
+    }
+}
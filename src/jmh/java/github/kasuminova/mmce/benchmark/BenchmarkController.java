@@ -0,0 +1,33 @@
+package github.kasuminova.mmce.benchmark;
+
+import hellfirepvp.modularmachinery.common.crafting.helper.ProcessingComponent;
+import hellfirepvp.modularmachinery.common.machine.DynamicMachine;
+import hellfirepvp.modularmachinery.common.machine.IOType;
+import hellfirepvp.modularmachinery.common.machine.MachineComponent;
+import hellfirepvp.modularmachinery.common.tiles.TileMachineController;
+import hellfirepvp.modularmachinery.common.tiles.base.TileEntitySynchronized;
+import hellfirepvp.modularmachinery.common.util.IOInventory;
+import net.minecraftforge.items.IItemHandlerModifiable;
+
+/**
+ * <p>无世界的控制器，结构与组件由基准测试直接设置。</p>
+ *
+ * <p>A controller without a world, its structure and components are set by the benchmark directly.</p>
+ */
+final class BenchmarkController extends TileMachineController {
+
+    void form(final DynamicMachine machine) {
+        this.foundMachine = machine;
+        this.parentMachine = machine;
+    }
+
+    void addItemBus(final TileEntitySynchronized tile, final IOType ioType, final IOInventory inventory) {
+        MachineComponent.ItemBus component = new MachineComponent.ItemBus(ioType) {
+            @Override
+            public IOInventory getContainerProvider() {
+                return inventory;
+            }
+        };
+        foundComponents.put(tile, new ProcessingComponent<IItemHandlerModifiable>(component, inventory, null));
+    }
+}
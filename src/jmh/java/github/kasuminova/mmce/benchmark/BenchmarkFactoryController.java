@@ -0,0 +1,45 @@
+package github.kasuminova.mmce.benchmark;
+
+import hellfirepvp.modularmachinery.common.crafting.helper.ProcessingComponent;
+import hellfirepvp.modularmachinery.common.machine.DynamicMachine;
+import hellfirepvp.modularmachinery.common.machine.IOType;
+import hellfirepvp.modularmachinery.common.machine.MachineComponent;
+import hellfirepvp.modularmachinery.common.tiles.TileFactoryController;
+import hellfirepvp.modularmachinery.common.tiles.base.TileEntitySynchronized;
+import hellfirepvp.modularmachinery.common.util.IOInventory;
+import net.minecraftforge.items.IItemHandlerModifiable;
+
+/**
+ * <p>无世界的工厂控制器，结构与组件由基准测试直接设置，配方 Tick 由基准测试直接驱动。</p>
+ *
+ * <p>A factory controller without a world, its structure and components are set by the benchmark directly and its
+ * recipe tick is driven by the benchmark directly.</p>
+ */
+final class BenchmarkFactoryController extends TileFactoryController {
+
+    void form(final DynamicMachine machine) {
+        this.foundMachine = machine;
+        this.parentMachine = machine;
+    }
+
+    void addItemBus(final TileEntitySynchronized tile, final IOType ioType, final IOInventory inventory) {
+        MachineComponent.ItemBus component = new MachineComponent.ItemBus(ioType) {
+            @Override
+            public IOInventory getContainerProvider() {
+                return inventory;
+            }
+        };
+        foundComponents.put(tile, new ProcessingComponent<IItemHandlerModifiable>(component, inventory, null));
+    }
+
+    /**
+     * <p>执行一次工厂的配方 Tick，与 {@link #doRecipeTick()} 在服务端线程池中的调用相同，但跳过需要世界的进度同步。</p>
+     *
+     * <p>Runs one recipe tick of the factory, the same as {@link #doRecipeTick()} on the server pool, without the
+     * progress sync that needs a world.</p>
+     */
+    void tickRecipes() {
+        ticksExisted++;
+        doRecipeTick();
+    }
+}
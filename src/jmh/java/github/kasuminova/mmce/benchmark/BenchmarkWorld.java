@@ -0,0 +1,53 @@
+package github.kasuminova.mmce.benchmark;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.init.Blocks;
+import net.minecraft.profiler.Profiler;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.GameType;
+import net.minecraft.world.World;
+import net.minecraft.world.WorldProviderSurface;
+import net.minecraft.world.WorldSettings;
+import net.minecraft.world.WorldType;
+import net.minecraft.world.chunk.IChunkProvider;
+import net.minecraft.world.storage.WorldInfo;
+
+import javax.annotation.Nonnull;
+
+/**
+ * <p>仅由方块状态表组成的世界，所有区块均视为已加载，用于在无服务端的情况下测试结构匹配。</p>
+ *
+ * <p>A world made of nothing but a block state table with every chunk treated as loaded, used to benchmark structure
+ * matching without a server.</p>
+ */
+public class BenchmarkWorld extends World {
+    private final Long2ObjectOpenHashMap<IBlockState> states = new Long2ObjectOpenHashMap<>();
+
+    public BenchmarkWorld() {
+        super(null, new WorldInfo(new WorldSettings(0L, GameType.SURVIVAL, false, false, WorldType.FLAT), "benchmark"),
+                new WorldProviderSurface(), new Profiler(), false);
+    }
+
+    public void setState(final BlockPos pos, final IBlockState state) {
+        states.put(pos.toLong(), state);
+    }
+
+    @Nonnull
+    @Override
+    public IBlockState getBlockState(@Nonnull final BlockPos pos) {
+        IBlockState state = states.get(pos.toLong());
+        return state == null ? Blocks.AIR.getDefaultState() : state;
+    }
+
+    @Nonnull
+    @Override
+    protected IChunkProvider createChunkProvider() {
+        throw new UnsupportedOperationException("BenchmarkWorld has no chunks!");
+    }
+
+    @Override
+    protected boolean isChunkLoaded(final int x, final int z, final boolean allowEmpty) {
+        return true;
+    }
+}
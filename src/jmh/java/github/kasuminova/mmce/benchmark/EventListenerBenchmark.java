@@ -0,0 +1,87 @@
+package github.kasuminova.mmce.benchmark;
+
+import github.kasuminova.mmce.common.event.machine.MachineStructureFormedEvent;
+import github.kasuminova.mmce.common.event.machine.MachineTickEvent;
+import github.kasuminova.mmce.common.event.recipe.RecipeCheckEvent;
+import github.kasuminova.mmce.common.event.recipe.RecipeFinishEvent;
+import github.kasuminova.mmce.common.event.recipe.RecipeTickEvent;
+import hellfirepvp.modularmachinery.common.crafting.MachineRecipe;
+import hellfirepvp.modularmachinery.common.machine.DynamicMachine;
+import net.minecraft.util.ResourceLocation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>测试控制器每 Tick 在发布事件前调用的 {@link hellfirepvp.modularmachinery.common.tiles.base.TileMultiblockMachineController#hasEventListeners}。
+ * 该方法不应分配任何对象，使用 {@code -PjmhProfilers=gc} 运行时 {@code gc.alloc.rate.norm} 应为 0。</p>
+ *
+ * <p>Benchmarks {@link hellfirepvp.modularmachinery.common.tiles.base.TileMultiblockMachineController#hasEventListeners},
+ * which controllers call every tick before posting an event. It must not allocate, so {@code gc.alloc.rate.norm}
+ * should be 0 when run with {@code -PjmhProfilers=gc}.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EventListenerBenchmark {
+    /**
+     * 是否为机械与配方各添加一个脚本事件处理器（分别只监听结构形成与配方完成事件），使事件处理器表不为空。
+     */
+    @Param({"false", "true"})
+    public boolean scripted;
+
+    private BenchmarkController controller;
+    private MachineRecipe recipe;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        BenchmarkBootstrap.init();
+
+        DynamicMachine machine = new DynamicMachine("benchmark");
+        recipe = new MachineRecipe("benchmark", new ResourceLocation("benchmark", "recipe"),
+                machine.getRegistryName(), 20, 0, false, true);
+        if (scripted) {
+            machine.addMachineEventHandler(MachineStructureFormedEvent.class, event -> {
+            });
+            recipe.addRecipeEventHandler(RecipeFinishEvent.class, event -> {
+            });
+        }
+
+        controller = new BenchmarkController();
+        controller.form(machine);
+    }
+
+    @Benchmark
+    public boolean machineTick() {
+        return controller.hasEventListeners(MachineTickEvent.class, null);
+    }
+
+    @Benchmark
+    public boolean recipeTick() {
+        return controller.hasEventListeners(RecipeTickEvent.class, recipe);
+    }
+
+    @Benchmark
+    public boolean recipeCheck() {
+        return controller.hasEventListeners(RecipeCheckEvent.class, recipe);
+    }
+
+    @Benchmark
+    public boolean recipeFinish() {
+        return controller.hasEventListeners(RecipeFinishEvent.class, recipe);
+    }
+}
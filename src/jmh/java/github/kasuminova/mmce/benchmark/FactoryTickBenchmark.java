@@ -0,0 +1,93 @@
+package github.kasuminova.mmce.benchmark;
+
+import hellfirepvp.modularmachinery.common.crafting.ActiveMachineRecipe;
+import hellfirepvp.modularmachinery.common.crafting.MachineRecipe;
+import hellfirepvp.modularmachinery.common.crafting.requirement.RequirementItem;
+import hellfirepvp.modularmachinery.common.machine.DynamicMachine;
+import hellfirepvp.modularmachinery.common.machine.IOType;
+import hellfirepvp.modularmachinery.common.tiles.base.TileEntitySynchronized;
+import hellfirepvp.modularmachinery.common.util.IOInventory;
+import net.minecraft.init.Items;
+import net.minecraft.item.ItemStack;
+import net.minecraft.util.ResourceLocation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>测试已形成结构且没有任何脚本事件的工厂的配方 Tick（{@code doRecipeTick}），每个工厂线程执行同一个配方。
+ * 配方消耗并产出同一种物品，因此每次完成与重启后物品仓内容保持不变，测试覆盖配方 Tick、完成与重启的完整循环。</p>
+ * <p>使用 {@code -PjmhProfilers=gc} 运行以检查每 Tick 的分配量（{@code gc.alloc.rate.norm}），
+ * 在没有监听器时事件路径不应分配任何对象。</p>
+ *
+ * <p>Benchmarks the recipe tick ({@code doRecipeTick}) of a formed factory without any script event, every factory
+ * thread runs the same recipe. The recipe consumes and produces the same item, so the bus contents stay the same
+ * across finishes and restarts, and the benchmark covers the whole tick, finish and restart cycle.</p>
+ * <p>Run with {@code -PjmhProfilers=gc} to check the allocation per tick ({@code gc.alloc.rate.norm}), the event
+ * paths must not allocate anything when nothing listens to them.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FactoryTickBenchmark {
+    private static final int BUS_SLOTS = 4;
+    private static final int RECIPE_DURATION = 20;
+
+    @Param({"1", "16"})
+    public int threads;
+
+    private BenchmarkFactoryController controller;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        BenchmarkBootstrap.initRecipeTypes();
+
+        DynamicMachine machine = new DynamicMachine("benchmark");
+        machine.setMaxThreads(threads);
+        MachineRecipe recipe = new MachineRecipe("benchmark", new ResourceLocation("benchmark", "recipe"),
+                machine.getRegistryName(), RECIPE_DURATION, 0, false, false);
+        recipe.addRequirement(new RequirementItem(IOType.INPUT, new ItemStack(Items.IRON_INGOT)));
+        recipe.addRequirement(new RequirementItem(IOType.OUTPUT, new ItemStack(Items.IRON_INGOT)));
+
+        int[] slots = new int[BUS_SLOTS];
+        for (int i = 0; i < BUS_SLOTS; i++) {
+            slots[i] = i;
+        }
+        TileEntitySynchronized inputTile = new TileEntitySynchronized();
+        TileEntitySynchronized outputTile = new TileEntitySynchronized();
+        IOInventory bus = new IOInventory(inputTile, slots, slots);
+        bus.setStackInSlot(0, new ItemStack(Items.IRON_INGOT, 64));
+
+        controller = new BenchmarkFactoryController();
+        controller.form(machine);
+        controller.addItemBus(inputTile, IOType.INPUT, bus);
+        controller.addItemBus(outputTile, IOType.OUTPUT, bus);
+
+        for (int i = 0; i < threads; i++) {
+            controller.offerRecipe(controller.createContext(new ActiveMachineRecipe(recipe, 1)));
+        }
+        if (controller.getFactoryRecipeThreadList().size() != threads) {
+            throw new IllegalStateException("The factory did not accept every recipe thread.");
+        }
+    }
+
+    @Benchmark
+    public BenchmarkFactoryController recipeTick() {
+        controller.tickRecipes();
+        return controller;
+    }
+}
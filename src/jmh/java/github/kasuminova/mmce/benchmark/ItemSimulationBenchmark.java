@@ -0,0 +1,73 @@
+package github.kasuminova.mmce.benchmark;
+
+import hellfirepvp.modularmachinery.common.util.ItemHandlerOverlay;
+import hellfirepvp.modularmachinery.common.util.ItemUtils;
+import net.minecraft.init.Items;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraftforge.items.ItemStackHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>测试配方检查时的物品模拟：在 {@link ItemHandlerOverlay} 上模拟消耗输入并插入输出，与物品需求在大容量输入/输出仓上的行为一致。</p>
+ *
+ * <p>Benchmarks the item simulation done while checking a recipe: consuming inputs and inserting outputs against an
+ * {@link ItemHandlerOverlay}, the same way item requirements work on large input and output buses.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ItemSimulationBenchmark {
+    @Param({"128", "512"})
+    public int slots;
+
+    private ItemStackHandler inputs;
+    private ItemStackHandler outputs;
+    private ItemStack toConsume;
+    private ItemStack toInsert;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        BenchmarkBootstrap.init();
+
+        Item[] items = {Items.IRON_INGOT, Items.GOLD_INGOT, Items.REDSTONE, Items.DIAMOND};
+        inputs = new ItemStackHandler(slots);
+        outputs = new ItemStackHandler(slots);
+        for (int i = 0; i < slots; i++) {
+            inputs.setStackInSlot(i, new ItemStack(items[i % items.length], 16));
+            // Leave the last quarter of the output bus empty so inserts have to scan past the full slots.
+            if (i < slots - slots / 4) {
+                outputs.setStackInSlot(i, new ItemStack(items[i % items.length], 64));
+            }
+        }
+        // The diamonds are spread over the whole bus, so consuming them walks every slot.
+        toConsume = new ItemStack(Items.DIAMOND, slots / items.length * 16);
+        toInsert = new ItemStack(Items.EMERALD, 64 * 4);
+    }
+
+    @Benchmark
+    public boolean consume() {
+        return ItemUtils.consumeFromInventory(new ItemHandlerOverlay(inputs), toConsume, false, null);
+    }
+
+    @Benchmark
+    public int insert() {
+        return ItemUtils.insertAll(toInsert, new ItemHandlerOverlay(outputs), toInsert.getCount());
+    }
+}
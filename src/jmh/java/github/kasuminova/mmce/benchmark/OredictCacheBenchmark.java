@@ -0,0 +1,78 @@
+package github.kasuminova.mmce.benchmark;
+
+import github.kasuminova.mmce.common.util.OredictCache;
+import net.minecraft.init.Items;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraftforge.oredict.OreDictionary;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>对比 {@link OredictCache} 与 Forge {@link OreDictionary} 的矿物词典查询开销。</p>
+ *
+ * <p>Compares ore dictionary lookups through {@link OredictCache} against Forge's {@link OreDictionary}.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OredictCacheBenchmark {
+    private static final int METAS = 1024;
+    private static final int ORE_NAMES = 64;
+
+    private ItemStack[] stacks;
+    private String[] oreNames;
+    private int index = 0;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        BenchmarkBootstrap.init();
+
+        oreNames = new String[ORE_NAMES];
+        for (int i = 0; i < ORE_NAMES; i++) {
+            oreNames[i] = "benchmarkOre" + i;
+        }
+
+        stacks = new ItemStack[METAS];
+        for (int meta = 0; meta < METAS; meta++) {
+            ItemStack stack = new ItemStack(Items.PAPER, 1, meta);
+            OreDictionary.registerOre(oreNames[meta % ORE_NAMES], stack);
+            stacks[meta] = stack;
+        }
+        // Build the index outside of the measurement.
+        OredictCache.getOreIDsFast(stacks[0]);
+    }
+
+    private ItemStack next() {
+        return stacks[index++ & (METAS - 1)];
+    }
+
+    @Benchmark
+    public int[] oredictCache() {
+        return OredictCache.getOreIDsFast(next());
+    }
+
+    @Benchmark
+    public int[] oreDictionary() {
+        return OreDictionary.getOreIDs(next());
+    }
+
+    @Benchmark
+    public Item[] oreItems() {
+        return OredictCache.getOreItems(oreNames[index++ & (ORE_NAMES - 1)]);
+    }
+}
@@ -0,0 +1,140 @@
+package github.kasuminova.mmce.benchmark;
+
+import github.kasuminova.mmce.common.concurrent.RecipeCraftingContextPool;
+import github.kasuminova.mmce.common.concurrent.RecipeSearchTask;
+import hellfirepvp.modularmachinery.common.crafting.MachineRecipe;
+import hellfirepvp.modularmachinery.common.crafting.helper.RecipeCraftingContext;
+import hellfirepvp.modularmachinery.common.crafting.requirement.RequirementItem;
+import hellfirepvp.modularmachinery.common.machine.DynamicMachine;
+import hellfirepvp.modularmachinery.common.machine.IOType;
+import hellfirepvp.modularmachinery.common.tiles.base.TileEntitySynchronized;
+import hellfirepvp.modularmachinery.common.util.IOInventory;
+import net.minecraft.init.Items;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.util.ResourceLocation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>在合成的配方注册表上测试 {@link RecipeSearchTask}：只有优先级最低的配方能够匹配，因此每次搜索都会检查所有配方。
+ * 控制器没有世界，结构只包含一个同时作为输入与输出的物品仓。</p>
+ * <p>同时直接测试匹配配方的 {@link RequirementItem} 消耗与产出，配方消耗并产出同一种物品，因此物品仓内容保持不变。</p>
+ *
+ * <p>Benchmarks {@link RecipeSearchTask} on a synthetic recipe registry. Only the lowest priority recipe matches, so
+ * every search checks every recipe. The controller has no world, its structure is a single item bus acting as both
+ * input and output.</p>
+ * <p>Also benchmarks the {@link RequirementItem} consume and insert of the matching recipe directly. The recipe
+ * consumes and produces the same item, so the bus contents stay the same.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RecipeSearchBenchmark {
+    private static final int BUS_SLOTS = 16;
+
+    @Param({"1000", "10000"})
+    public int recipes;
+
+    private BenchmarkController controller;
+    private DynamicMachine machine;
+    private List<MachineRecipe> recipeList;
+    private RecipeCraftingContext matched;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        BenchmarkBootstrap.initRecipeTypes();
+
+        List<Item> items = new ArrayList<>();
+        for (final Item item : Item.REGISTRY) {
+            if (item != Items.AIR) {
+                items.add(item);
+            }
+        }
+
+        machine = new DynamicMachine("benchmark");
+        ResourceLocation machineName = machine.getRegistryName();
+
+        // Every recipe asks for a distinct (item, meta) pair, ordered from the highest to the lowest priority.
+        recipeList = new ArrayList<>(recipes);
+        for (int i = 0; i < recipes; i++) {
+            ItemStack input = new ItemStack(items.get(i % items.size()), 1, i / items.size());
+            MachineRecipe recipe = new MachineRecipe("benchmark", new ResourceLocation("benchmark", "recipe_" + i),
+                    machineName, 20, recipes - i, false, true);
+            recipe.addRequirement(new RequirementItem(IOType.INPUT, input.copy()));
+            recipe.addRequirement(new RequirementItem(IOType.OUTPUT, input.copy()));
+            recipeList.add(recipe);
+        }
+
+        // The bus holds a few unrelated stacks and the input of the last recipe.
+        int[] slots = new int[BUS_SLOTS];
+        for (int i = 0; i < BUS_SLOTS; i++) {
+            slots[i] = i;
+        }
+        TileEntitySynchronized inputTile = new TileEntitySynchronized();
+        TileEntitySynchronized outputTile = new TileEntitySynchronized();
+        IOInventory bus = new IOInventory(inputTile, slots, slots);
+        for (int i = 0; i < BUS_SLOTS / 2; i++) {
+            bus.setStackInSlot(i, new ItemStack(items.get(items.size() - 1 - i), 64, 1000));
+        }
+        ItemStack lastInput = new ItemStack(items.get((recipes - 1) % items.size()), 64, (recipes - 1) / items.size());
+        bus.setStackInSlot(BUS_SLOTS / 2, lastInput);
+
+        controller = new BenchmarkController();
+        controller.form(machine);
+        controller.addItemBus(inputTile, IOType.INPUT, bus);
+        controller.addItemBus(outputTile, IOType.OUTPUT, bus);
+
+        matched = search();
+        if (matched == null) {
+            throw new IllegalStateException("The last recipe of the synthetic registry did not match.");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (matched != null) {
+            RecipeCraftingContextPool.returnCtx(matched, false);
+            matched = null;
+        }
+    }
+
+    @Benchmark
+    public boolean searchRecipe() {
+        RecipeCraftingContext context = search();
+        if (context == null) {
+            return false;
+        }
+        RecipeCraftingContextPool.returnCtx(context, true);
+        return true;
+    }
+
+    @Benchmark
+    public RecipeCraftingContext consumeAndInsert() {
+        matched.startCrafting(0L);
+        matched.finishCrafting(0L);
+        return matched;
+    }
+
+    private RecipeCraftingContext search() {
+        return new RecipeSearchTask(controller, machine, 1, recipeList, null).invoke();
+    }
+}
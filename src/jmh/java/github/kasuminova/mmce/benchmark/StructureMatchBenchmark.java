@@ -0,0 +1,83 @@
+package github.kasuminova.mmce.benchmark;
+
+import hellfirepvp.modularmachinery.common.util.BlockArray;
+import hellfirepvp.modularmachinery.common.util.IBlockStateDescriptor;
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.init.Blocks;
+import net.minecraft.util.math.BlockPos;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>在完整匹配的大型结构上测试 {@link BlockArray#matches}，即每次结构检查的最坏情况。</p>
+ *
+ * <p>Benchmarks {@link BlockArray#matches} on large, fully matching patterns, which is the worst case of every
+ * structure check.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StructureMatchBenchmark {
+    private static final BlockPos CENTER = new BlockPos(0, 64, 0);
+
+    @Param({"1000", "10000"})
+    public int patternSize;
+
+    private BenchmarkWorld world;
+    private BlockArray pattern;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        BenchmarkBootstrap.init();
+
+        IBlockState[] states = {
+                Blocks.IRON_BLOCK.getDefaultState(),
+                Blocks.GLASS.getDefaultState(),
+                Blocks.STONE.getDefaultState(),
+                Blocks.GOLD_BLOCK.getDefaultState()
+        };
+        BlockArray.BlockInformation[] infos = new BlockArray.BlockInformation[states.length];
+        for (int i = 0; i < states.length; i++) {
+            infos[i] = new BlockArray.BlockInformation(Collections.singletonList(IBlockStateDescriptor.of(states[i])));
+        }
+
+        world = new BenchmarkWorld();
+        pattern = new BlockArray();
+
+        int side = (int) Math.ceil(Math.cbrt(patternSize));
+        int added = 0;
+        for (int y = 0; y < side && added < patternSize; y++) {
+            for (int z = -side / 2; z < side - side / 2 && added < patternSize; z++) {
+                for (int x = -side / 2; x < side - side / 2 && added < patternSize; x++) {
+                    int idx = (x * 31 + y * 17 + z) & 3;
+                    pattern.addBlock(x, y, z, infos[idx]);
+                    world.setState(CENTER.add(x, y, z), states[idx]);
+                    added++;
+                }
+            }
+        }
+        // Compile once up front, the controller keeps compiled patterns cached as well.
+        pattern.compile();
+    }
+
+    @Benchmark
+    public boolean matches() {
+        return pattern.matches(world, CENTER, false, null);
+    }
+}
@@ -3,12 +3,18 @@ package github.kasuminova.mmce.common.block.appeng;
 import github.kasuminova.mmce.common.tile.MEFluidOutputBus;
 import hellfirepvp.modularmachinery.ModularMachinery;
 import hellfirepvp.modularmachinery.common.CommonProxy;
+import hellfirepvp.modularmachinery.common.lib.ItemsMM;
 import net.minecraft.block.state.IBlockState;
+import net.minecraft.entity.EntityLivingBase;
 import net.minecraft.entity.player.EntityPlayer;
+import net.minecraft.item.ItemStack;
+import net.minecraft.nbt.NBTTagCompound;
 import net.minecraft.tileentity.TileEntity;
 import net.minecraft.util.EnumFacing;
 import net.minecraft.util.EnumHand;
+import net.minecraft.util.NonNullList;
 import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.IBlockAccess;
 import net.minecraft.world.World;
 
 import javax.annotation.Nonnull;
@@ -32,4 +38,45 @@ public class BlockMEFluidOutputBus extends BlockMEFluidBus {
     public TileEntity createTileEntity(final World world, final IBlockState state) {
         return new MEFluidOutputBus();
     }
+
+    @Override
+    public void dropBlockAsItemWithChance(@Nonnull final World worldIn, @Nonnull final BlockPos pos, @Nonnull final IBlockState state, final float chance, final int fortune) {
+    }
+
+    @Override
+    public void getDrops(@Nonnull final NonNullList<ItemStack> drops, @Nonnull final IBlockAccess world, @Nonnull final BlockPos pos, @Nonnull final IBlockState state, final int fortune) {
+    }
+
+    @Override
+    public void breakBlock(@Nonnull final World worldIn, @Nonnull final BlockPos pos, @Nonnull final IBlockState state) {
+        TileEntity te = worldIn.getTileEntity(pos);
+        ItemStack dropped = new ItemStack(ItemsMM.meFluidOutputBus);
+
+        // Fluids the network has not accepted yet stay on the dropped bus instead of being voided.
+        if (te instanceof final MEFluidOutputBus bus && bus.hasFluid()) {
+            NBTTagCompound tag = new NBTTagCompound();
+            bus.writeStoredFluidsNBT(tag);
+            dropped.setTagCompound(tag);
+            bus.clearPendingOutputs();
+        }
+
+        spawnAsEntity(worldIn, pos, dropped);
+        super.breakBlock(worldIn, pos, state);
+    }
+
+    @Override
+    public void onBlockPlacedBy(@Nonnull final World worldIn,
+                                @Nonnull final BlockPos pos,
+                                @Nonnull final IBlockState state,
+                                @Nonnull final EntityLivingBase placer,
+                                @Nonnull final ItemStack stack)
+    {
+        super.onBlockPlacedBy(worldIn, pos, state, placer, stack);
+
+        TileEntity te = worldIn.getTileEntity(pos);
+        NBTTagCompound tag = stack.getTagCompound();
+        if (te instanceof final MEFluidOutputBus bus && tag != null && tag.hasKey("tanks")) {
+            bus.readStoredFluidsNBT(tag);
+        }
+    }
 }
@@ -80,11 +80,13 @@ public class BlockMEItemOutputBus extends BlockMEItemBus {
         IOInventory inventory = bus.getInternalInventory();
         NBTTagCompound tag = new NBTTagCompound();
         tag.setTag("inventory", inventory.writeNBT());
+        bus.writePendingOutputsNBT(tag);
         dropped.setTagCompound(tag);
 
         for (int i = 0; i < inventory.getSlots(); i++) {
             inventory.setStackInSlot(i, ItemStack.EMPTY);
         }
+        bus.clearPendingOutputs();
 
         spawnAsEntity(worldIn, pos, dropped);
 
@@ -102,8 +104,11 @@ public class BlockMEItemOutputBus extends BlockMEItemBus {
 
         TileEntity te = worldIn.getTileEntity(pos);
         NBTTagCompound tag = stack.getTagCompound();
-        if (te instanceof MEItemOutputBus && tag != null && tag.hasKey("inventory")) {
-            ((MEItemOutputBus) te).readInventoryNBT(tag.getCompoundTag("inventory"));
+        if (te instanceof final MEItemOutputBus bus && tag != null) {
+            if (tag.hasKey("inventory")) {
+                bus.readInventoryNBT(tag.getCompoundTag("inventory"));
+            }
+            bus.readPendingOutputsNBT(tag);
         }
     }
 }
@@ -1,6 +1,7 @@
 package github.kasuminova.mmce.common.concurrent;
 
 import hellfirepvp.modularmachinery.common.crafting.ActiveMachineRecipe;
+import hellfirepvp.modularmachinery.common.crafting.MachineRecipe;
 import hellfirepvp.modularmachinery.common.crafting.helper.RecipeCraftingContext;
 import hellfirepvp.modularmachinery.common.tiles.base.TileMultiblockMachineController;
 import net.minecraft.util.ResourceLocation;
@@ -10,9 +11,27 @@ import java.util.Map;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class RecipeCraftingContextPool {
-    private static final Map<ResourceLocation, Queue<RecipeCraftingContext>> POOL = new ConcurrentHashMap<>();
+    /**
+     * <p>每个配方最多缓存的上下文数量，超出的上下文直接丢弃。</p>
+     *
+     * <p>Maximum amount of contexts kept per recipe, any surplus context is dropped.</p>
+     */
+    private static final int MAX_POOLED_PER_RECIPE = Math.max(8, TaskExecutor.THREAD_COUNT * 2);
+
+    /**
+     * <p>配方的缓存超过这么多 tick 未被使用时会被整体移除。</p>
+     *
+     * <p>A recipe's pooled contexts are dropped entirely once it has been unused for this many ticks.</p>
+     */
+    private static final long IDLE_TIMEOUT_TICKS = 20 * 60 * 5;
+    private static final long CLEANUP_INTERVAL_TICKS = 20 * 60;
+
+    private static final Map<ResourceLocation, RecipePool> POOL = new ConcurrentHashMap<>();
+    private static final AtomicLong LAST_CLEANUP_TICK = new AtomicLong();
 
     private static int reloadCounter = 0;
 
@@ -24,23 +43,77 @@ public class RecipeCraftingContextPool {
             return new RecipeCraftingContext(reloadCounter, activeRecipe, ctrl);
         }
 
-        Queue<RecipeCraftingContext> queue = POOL.computeIfAbsent(
-                activeRecipe.getRecipe().getRegistryName(), q -> new ConcurrentLinkedQueue<>());
+        RecipePool pool = POOL.get(activeRecipe.getRecipe().getRegistryName());
+        if (pool == null) {
+            return new RecipeCraftingContext(reloadCounter, activeRecipe, ctrl);
+        }
 
-        RecipeCraftingContext ctx;
-        if ((ctx = queue.poll()) != null) {
+        RecipeCraftingContext ctx = pool.pollCtx();
+        if (ctx != null) {
             return ctx.init(activeRecipe, ctrl);
         }
         return new RecipeCraftingContext(reloadCounter, activeRecipe, ctrl);
     }
 
+    /**
+     * <p>获取一个用于配方搜索的 {@link ActiveMachineRecipe}，优先复用之前搜索失败时归还的实例。</p>
+     *
+     * <p>Obtains an {@link ActiveMachineRecipe} for a recipe search, reusing an instance left over from an earlier
+     * failed check when possible.</p>
+     */
+    @Nonnull
+    public static ActiveMachineRecipe borrowActiveRecipe(@Nonnull final MachineRecipe recipe, final int maxParallelism) {
+        RecipePool pool = POOL.get(recipe.getRegistryName());
+        if (pool != null) {
+            ActiveMachineRecipe activeRecipe = pool.pollActiveRecipe();
+            if (activeRecipe != null) {
+                return activeRecipe.reuse(maxParallelism);
+            }
+        }
+        return new ActiveMachineRecipe(recipe, maxParallelism);
+    }
+
     public static void returnCtx(@Nonnull RecipeCraftingContext ctx) {
+        returnCtx(ctx, false);
+    }
+
+    /**
+     * <p>归还一个上下文。</p>
+     *
+     * <p>Returns a context to the pool.</p>
+     *
+     * @param reuseActiveRecipe 上下文的 {@link ActiveMachineRecipe} 是否只在本次搜索中使用过，可以被下一次搜索复用。<br/>
+     *                          Whether the context's {@link ActiveMachineRecipe} was only used by the search that just
+     *                          failed, so the next search may reuse it.
+     */
+    public static void returnCtx(@Nonnull RecipeCraftingContext ctx, final boolean reuseActiveRecipe) {
         if (ctx.getReloadCounter() != reloadCounter) {
             ctx.destroy();
             return;
         }
-        POOL.computeIfAbsent(ctx.getParentRecipe().getRegistryName(), q -> new ConcurrentLinkedQueue<>())
-                .offer(ctx.resetAll());
+
+        long tick = TaskExecutor.tickExisted;
+        RecipePool pool = POOL.computeIfAbsent(ctx.getParentRecipe().getRegistryName(), q -> new RecipePool());
+        pool.lastUsedTick = tick;
+
+        // The context must be detached from its recipe before the recipe is published to other searches.
+        ActiveMachineRecipe activeRecipe = ctx.getActiveRecipe();
+        if (!pool.offerCtx(ctx.resetAll())) {
+            ctx.destroy();
+        }
+        if (reuseActiveRecipe) {
+            pool.offerActiveRecipe(activeRecipe);
+        }
+
+        cleanUp(tick);
+    }
+
+    private static void cleanUp(final long tick) {
+        long lastCleanup = LAST_CLEANUP_TICK.get();
+        if (tick - lastCleanup < CLEANUP_INTERVAL_TICKS || !LAST_CLEANUP_TICK.compareAndSet(lastCleanup, tick)) {
+            return;
+        }
+        POOL.values().removeIf(pool -> tick - pool.lastUsedTick > IDLE_TIMEOUT_TICKS);
     }
 
     public static void onReload() {
@@ -48,4 +121,49 @@ public class RecipeCraftingContextPool {
 
         reloadCounter++;
     }
+
+    private static class RecipePool {
+        private final Queue<RecipeCraftingContext> contexts = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger contextCount = new AtomicInteger();
+        private final Queue<ActiveMachineRecipe> activeRecipes = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger activeRecipeCount = new AtomicInteger();
+        private volatile long lastUsedTick = TaskExecutor.tickExisted;
+
+        private RecipeCraftingContext pollCtx() {
+            RecipeCraftingContext ctx = contexts.poll();
+            if (ctx != null) {
+                contextCount.decrementAndGet();
+                lastUsedTick = TaskExecutor.tickExisted;
+            }
+            return ctx;
+        }
+
+        private boolean offerCtx(final RecipeCraftingContext ctx) {
+            if (contextCount.incrementAndGet() > MAX_POOLED_PER_RECIPE) {
+                contextCount.decrementAndGet();
+                return false;
+            }
+            contexts.offer(ctx);
+            return true;
+        }
+
+        private ActiveMachineRecipe pollActiveRecipe() {
+            ActiveMachineRecipe activeRecipe = activeRecipes.poll();
+            if (activeRecipe != null) {
+                activeRecipeCount.decrementAndGet();
+            }
+            return activeRecipe;
+        }
+
+        private void offerActiveRecipe(final ActiveMachineRecipe activeRecipe) {
+            if (activeRecipe == null) {
+                return;
+            }
+            if (activeRecipeCount.incrementAndGet() > MAX_POOLED_PER_RECIPE) {
+                activeRecipeCount.decrementAndGet();
+                return;
+            }
+            activeRecipes.offer(activeRecipe);
+        }
+    }
 }
@@ -3,12 +3,23 @@ package github.kasuminova.mmce.common.concurrent;
 import github.kasuminova.mmce.common.util.concurrent.TimeRecordingTask;
 import hellfirepvp.modularmachinery.common.crafting.ActiveMachineRecipe;
 import hellfirepvp.modularmachinery.common.crafting.MachineRecipe;
+import hellfirepvp.modularmachinery.common.crafting.RecipeInputIndex;
+import hellfirepvp.modularmachinery.common.crafting.RecipeSearchCache;
 import hellfirepvp.modularmachinery.common.crafting.helper.CraftingStatus;
 import hellfirepvp.modularmachinery.common.crafting.helper.RecipeCraftingContext;
+import hellfirepvp.modularmachinery.common.data.Config;
 import hellfirepvp.modularmachinery.common.machine.DynamicMachine;
 import hellfirepvp.modularmachinery.common.machine.RecipeThread;
 import hellfirepvp.modularmachinery.common.tiles.base.TileMultiblockMachineController;
 
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
 public class RecipeSearchTask extends TimeRecordingTask<RecipeCraftingContext> {
     protected final TileMultiblockMachineController controller;
     protected final DynamicMachine currentMachine;
@@ -30,36 +41,40 @@ public class RecipeSearchTask extends TimeRecordingTask<RecipeCraftingContext> {
         DynamicMachine foundMachine = controller.getFoundMachine();
         if (foundMachine == null) return null;
 
-        MachineRecipe highestValidity = null;
-        RecipeCraftingContext.CraftingCheckResult highestValidityResult = null;
-        float validity = 0F;
+        Predicate<MachineRecipe> candidateFilter = RecipeInputIndex.createCandidateFilter(controller, foundMachine, thread);
+        RecipeSearchCache.Entry sharedResults = RecipeSearchCache.getEntry(controller, foundMachine, thread, maxParallelism);
 
+        List<MachineRecipe> candidates = new ArrayList<>();
         for (MachineRecipe recipe : recipeList) {
-            ActiveMachineRecipe activeRecipe = new ActiveMachineRecipe(recipe, maxParallelism);
-            RecipeCraftingContext context = thread != null ? thread.createContext(activeRecipe) : controller.createContext(activeRecipe);
-            RecipeCraftingContext.CraftingCheckResult result = controller.onCheck(context);
-            if (result.isSuccess()) {
-                //并发检查
-                foundMachine = controller.getFoundMachine();
-                if (foundMachine == null || !foundMachine.equals(currentMachine)) {
-                    RecipeCraftingContextPool.returnCtx(context);
-                    return null;
-                }
-                return context;
+            if (!canCheck(recipe) || (candidateFilter != null && !candidateFilter.test(recipe))) {
+                continue;
             }
+            candidates.add(recipe);
+        }
 
-            if (highestValidity == null || result.getValidity() > validity) {
-                highestValidity = recipe;
-                highestValidityResult = result;
-                validity = result.getValidity();
-            }
+        SearchResult result;
+        int threshold = Config.parallelRecipeSearchThreshold;
+        // Chunks are forked into the current pool, searches invoked outside of it (e.g. SYNC mode) stay sequential.
+        if (threshold > 0 && candidates.size() >= threshold && ForkJoinTask.inForkJoinPool()
+                && !RecipeInputIndex.hasRecipeCheckEventHandlers(controller, foundMachine)) {
+            result = searchParallel(candidates, sharedResults);
+        } else {
+            result = searchRange(candidates, 0, candidates.size(), sharedResults, null);
+        }
 
-            RecipeCraftingContextPool.returnCtx(context);
+        if (result.success != null) {
+            //并发检查
+            foundMachine = controller.getFoundMachine();
+            if (foundMachine == null || !foundMachine.equals(currentMachine)) {
+                RecipeCraftingContextPool.returnCtx(result.success, true);
+                return null;
+            }
+            return result.success;
         }
 
-        if (highestValidity != null) {
+        if (result.highestValidityResult != null) {
             status = CraftingStatus.failure(
-                    highestValidityResult.getFirstErrorMessage(""));
+                    result.highestValidityResult.getFirstErrorMessage(""));
         } else {
             status = CraftingStatus.failure(
                     TileMultiblockMachineController.Type.NO_RECIPE.getUnlocalizedDescription());
@@ -68,6 +83,103 @@ public class RecipeSearchTask extends TimeRecordingTask<RecipeCraftingContext> {
         return null;
     }
 
+    /**
+     * <p>判断配方是否需要检查，子类可以在此排除不可用的配方。</p>
+     * <p>Whether the recipe should be checked at all, subclasses may exclude unavailable recipes here.</p>
+     */
+    protected boolean canCheck(MachineRecipe recipe) {
+        return true;
+    }
+
+    /**
+     * <p>将候选配方按优先级顺序分块，在 {@link TaskExecutor#SERVER_FORK_JOIN_POOL} 上并发检查。
+     * 一旦某个配方检查成功，所有排在它之后的配方都会停止检查；最终结果与顺序检查完全相同。</p>
+     *
+     * <p>Splits the candidates into priority-ordered chunks and checks them concurrently on
+     * {@link TaskExecutor#SERVER_FORK_JOIN_POOL}. Once a recipe succeeds, no recipe ordered after it is checked anymore.
+     * The selected result is exactly the one a sequential search would select.</p>
+     */
+    private SearchResult searchParallel(final List<MachineRecipe> candidates, @Nullable final RecipeSearchCache.Entry sharedResults) {
+        int size = candidates.size();
+        int chunkSize = Math.max(8, size / (TaskExecutor.SERVER_FORK_JOIN_POOL.getParallelism() * 2));
+        AtomicInteger bestSuccessIndex = new AtomicInteger(Integer.MAX_VALUE);
+
+        List<RecursiveTask<SearchResult>> chunks = new ArrayList<>();
+        for (int start = 0; start < size; start += chunkSize) {
+            int from = start;
+            int to = Math.min(size, start + chunkSize);
+            chunks.add(new RecursiveTask<SearchResult>() {
+                @Override
+                protected SearchResult compute() {
+                    return searchRange(candidates, from, to, sharedResults, bestSuccessIndex);
+                }
+            });
+        }
+        ForkJoinTask.invokeAll(chunks);
+
+        // Chunks are merged in priority order, so ties resolve exactly like the sequential search.
+        SearchResult merged = new SearchResult();
+        for (final RecursiveTask<SearchResult> chunk : chunks) {
+            SearchResult result = chunk.join();
+            if (result.success != null) {
+                if (merged.success == null) {
+                    merged.success = result.success;
+                } else {
+                    RecipeCraftingContextPool.returnCtx(result.success, true);
+                }
+                continue;
+            }
+            if (result.highestValidityResult != null) {
+                merged.offerFailure(result.highestValidityResult);
+            }
+        }
+        return merged;
+    }
+
+    private SearchResult searchRange(final List<MachineRecipe> candidates,
+                                     final int from,
+                                     final int to,
+                                     @Nullable final RecipeSearchCache.Entry sharedResults,
+                                     @Nullable final AtomicInteger bestSuccessIndex)
+    {
+        SearchResult searchResult = new SearchResult();
+
+        for (int i = from; i < to; i++) {
+            if (bestSuccessIndex != null && bestSuccessIndex.get() < i) {
+                // A recipe with a higher priority already succeeded.
+                break;
+            }
+            MachineRecipe recipe = candidates.get(i);
+
+            RecipeCraftingContext.CraftingCheckResult sharedFailure = sharedResults != null ? sharedResults.getFailure(recipe) : null;
+            if (sharedFailure != null) {
+                searchResult.offerFailure(sharedFailure);
+                continue;
+            }
+
+            ActiveMachineRecipe activeRecipe = RecipeCraftingContextPool.borrowActiveRecipe(recipe, maxParallelism);
+            RecipeCraftingContext context = thread != null ? thread.createContext(activeRecipe) : controller.createContext(activeRecipe);
+            RecipeCraftingContext.CraftingCheckResult result = controller.onCheck(context);
+            if (result.isSuccess()) {
+                searchResult.success = context;
+                if (bestSuccessIndex != null) {
+                    bestSuccessIndex.accumulateAndGet(i, Math::min);
+                }
+                return searchResult;
+            }
+
+            if (sharedResults != null) {
+                sharedResults.offerResult(recipe, result);
+            }
+            searchResult.offerFailure(result);
+
+            // The active recipe never left this search, so it can be reused by the next one.
+            RecipeCraftingContextPool.returnCtx(context, true);
+        }
+
+        return searchResult;
+    }
+
     public CraftingStatus getStatus() {
         return status;
     }
@@ -75,4 +187,17 @@ public class RecipeSearchTask extends TimeRecordingTask<RecipeCraftingContext> {
     public DynamicMachine getCurrentMachine() {
         return currentMachine;
     }
+
+    private static final class SearchResult {
+        private RecipeCraftingContext success = null;
+        private RecipeCraftingContext.CraftingCheckResult highestValidityResult = null;
+        private float validity = 0F;
+
+        private void offerFailure(final RecipeCraftingContext.CraftingCheckResult result) {
+            if (highestValidityResult == null || result.getValidity() > validity) {
+                highestValidityResult = result;
+                validity = result.getValidity();
+            }
+        }
+    }
 }
@@ -8,11 +8,31 @@ import stanhebben.zenscript.annotations.ZenClass;
 import stanhebben.zenscript.annotations.ZenMethod;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
 
 @ZenRegister
 @ZenClass("mods.modularmachinery.Sync")
 public class Sync {
+    private static final int LOCK_STRIPES = 256;
+    private static final Lock[] STRIPED_LOCKS = new Lock[LOCK_STRIPES];
+    /**
+     * <p>当两把不同的锁排序键相同时，先持有此锁以保证加锁顺序仍然确定。</p>
+     * <p>Held first when two different locks share an ordering key, so the lock order stays deterministic.</p>
+     */
+    private static final Lock TIE_LOCK = new ReentrantLock();
+    private static final Comparator<Lock> LOCK_ORDER = Comparator.comparingInt(System::identityHashCode);
+
+    static {
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            STRIPED_LOCKS[i] = new ReentrantLock();
+        }
+    }
+
     /**
      * <p>全局同步方法，用来进行方块更新、同步等非线程安全操作。</p>
      * <p>Global synchronization method.</p>
@@ -22,6 +42,99 @@ public class Sync {
         action.doAction();
     }
 
+    /**
+     * <p>仅与操作同一组件的其他线程互斥的同步方法，不共享组件的机械之间不会产生竞争。</p>
+     * <p>组件实现了 {@link ReadWriteLockProvider} 时使用其写锁，否则使用按组件分段的锁。
+     * 组件为 {@code null} 时退化为全局同步 {@link #doSyncAction(Action)}。
+     * 操作内部不应再获取其他组件的锁，需要同时锁定多个组件时使用 {@link #doSyncAction(Object[], Action)}。</p>
+     *
+     * <p>Synchronization that only excludes other threads operating on the same component,
+     * machines that share no components never contend.</p>
+     * <p>Uses the component's write lock if it implements {@link ReadWriteLockProvider},
+     * otherwise a lock striped by component identity. Falls back to the global {@link #doSyncAction(Action)}
+     * if the component is {@code null}.</p>
+     * <p>The action must not take another component's lock, use {@link #doSyncAction(Object[], Action)} to lock
+     * several components at once.</p>
+     */
+    public static void doSyncAction(@Nullable final Object component, @Nonnull final Action action) {
+        if (component == null) {
+            doSyncAction(action);
+            return;
+        }
+        Lock lock = getComponentLock(component);
+        lock.lock();
+        try {
+            action.doAction();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * <p>同时锁定多个组件后执行操作，所有线程都以相同的顺序获取锁，因此不会死锁。</p>
+     *
+     * <p>Executes the action while holding the locks of all given components. Every thread acquires them in the
+     * same order, so requirements spanning several components cannot deadlock each other.</p>
+     */
+    public static void doSyncAction(@Nonnull final Object[] components, @Nonnull final Action action) {
+        Lock[] locks = new Lock[components.length];
+        int count = 0;
+        for (final Object component : components) {
+            if (component == null) {
+                continue;
+            }
+            Lock lock = getComponentLock(component);
+            boolean duplicate = false;
+            for (int i = 0; i < count; i++) {
+                if (locks[i] == lock) {
+                    duplicate = true;
+                    break;
+                }
+            }
+            if (!duplicate) {
+                locks[count++] = lock;
+            }
+        }
+        if (count == 0) {
+            doSyncAction(action);
+            return;
+        }
+        Arrays.sort(locks, 0, count, LOCK_ORDER);
+        boolean tie = false;
+        for (int i = 1; i < count; i++) {
+            if (LOCK_ORDER.compare(locks[i - 1], locks[i]) == 0) {
+                tie = true;
+                break;
+            }
+        }
+
+        if (tie) {
+            TIE_LOCK.lock();
+        }
+        int locked = 0;
+        try {
+            for (; locked < count; locked++) {
+                locks[locked].lock();
+            }
+            action.doAction();
+        } finally {
+            for (int i = locked - 1; i >= 0; i--) {
+                locks[i].unlock();
+            }
+            if (tie) {
+                TIE_LOCK.unlock();
+            }
+        }
+    }
+
+    private static Lock getComponentLock(@Nonnull final Object component) {
+        if (component instanceof ReadWriteLockProvider lockProvider) {
+            return lockProvider.getRWLock().writeLock();
+        }
+        int hash = System.identityHashCode(component);
+        return STRIPED_LOCKS[(hash ^ (hash >>> 16)) & (LOCK_STRIPES - 1)];
+    }
+
     @ZenMethod
     public static void addSyncTask(Action action) {
         ModularMachinery.EXECUTE_MANAGER.addSyncTask(action);
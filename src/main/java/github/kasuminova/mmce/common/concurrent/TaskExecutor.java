@@ -6,14 +6,19 @@ import hellfirepvp.modularmachinery.ModularMachinery;
 import hellfirepvp.modularmachinery.common.tiles.base.TileEntitySynchronized;
 import io.netty.util.internal.ThrowableUtil;
 import it.unimi.dsi.fastutil.longs.*;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
 import net.minecraftforge.fml.common.eventhandler.EventPriority;
 import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
 import net.minecraftforge.fml.common.gameevent.TickEvent;
 import net.minecraftforge.fml.common.thread.SidedThreadGroups;
 import net.minecraftforge.fml.relauncher.Side;
 
+import java.util.Deque;
 import java.util.Queue;
-import java.util.concurrent.*;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.LockSupport;
 
 public class TaskExecutor {
@@ -22,15 +27,29 @@ public class TaskExecutor {
     // For render.
     public static final int CLIENT_THREAD_COUNT = Math.min(Math.max(Runtime.getRuntime().availableProcessors() / 2, 4), 16);
 
-    public static final ThreadPoolExecutor THREAD_POOL = new ThreadPoolExecutor(THREAD_COUNT, THREAD_COUNT,
-            5000, TimeUnit.MILLISECONDS,
-            new PriorityBlockingQueue<>(),
-            new CustomThreadFactory("MMCE-TaskExecutor-%s", SidedThreadGroups.SERVER));
-
     public static final ForkJoinPool FORK_JOIN_POOL = new ForkJoinPool(Sides.isClient() ? CLIENT_THREAD_COUNT : THREAD_COUNT,
             new CustomForkJoinWorkerThreadFactory("MMCE-ForkJoinPool-worker-%s"),
             null, true);
 
+    /**
+     * <p>服务端 Tick 任务专用的线程池，工作线程位于 {@link SidedThreadGroups#SERVER}，
+     * 使集成服务端中 {@code FMLCommonHandler.getEffectiveSide()} 等判断仍然返回服务端。</p>
+     *
+     * <p>The pool running server tick work. Its workers are in {@link SidedThreadGroups#SERVER}, so side checks such as
+     * {@code FMLCommonHandler.getEffectiveSide()} still report the server on an integrated server.</p>
+     */
+    public static final ForkJoinPool SERVER_FORK_JOIN_POOL = new ForkJoinPool(THREAD_COUNT,
+            new CustomForkJoinWorkerThreadFactory("MMCE-TaskExecutor-%s", SidedThreadGroups.SERVER),
+            null, true);
+
+    /**
+     * <p>Tick 期间每累计这么多任务就直接按耗时排序后分批提交，使工作线程可以在世界更新的同时开始执行。</p>
+     *
+     * <p>During the tick, every time this many tasks have been queued they are sorted by cost and fanned out as one
+     * batch, so the workers can start while the world is still ticking.</p>
+     */
+    private static final int SUBMIT_BATCH_SIZE = THREAD_COUNT * 16;
+
     public static long totalExecuted = 0;
     public static long taskUsedTime = 0;
     public static long totalUsedTime = 0;
@@ -41,24 +60,25 @@ public class TaskExecutor {
     private final Queue<ActionExecutor> submitted = Queues.createConcurrentQueue();
 
     private final Queue<ActionExecutor> executors = Queues.createConcurrentQueue();
+    private final AtomicInteger queuedTasks = new AtomicInteger();
     // TODO: may cause performance issues.
     private final Long2ObjectMap<ExecuteGroup> executeGroups = Long2ObjectMaps.synchronize(new Long2ObjectOpenHashMap<>());
 
-    private final Queue<ForkJoinTask<?>> forkJoinTasks = Queues.createConcurrentQueue();
+    /**
+     * <p>已提交但可能尚未被工作线程领取的任务，主线程等待时从队尾（耗时最低的一端）取出任务协助执行。</p>
+     *
+     * <p>Submitted tasks that a worker may not have claimed yet. While joining, the main thread takes tasks from the
+     * tail (the cheapest end) and runs them itself instead of sleeping.</p>
+     */
+    private final Deque<ActionExecutor> helpQueue = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger pendingTasks = new AtomicInteger();
+    private volatile Thread awaitingThread = null;
 
     private final Queue<Action> mainThreadActions = Queues.createConcurrentQueue();
     private final Queue<TileEntitySynchronized> requireUpdateTEQueue = Queues.createConcurrentQueue();
     private final Queue<TileEntitySynchronized> requireMarkNoUpdateTEQueue = Queues.createConcurrentQueue();
 
-    private final TaskSubmitter submitter = new TaskSubmitter();
-
     private volatile boolean inTick = false;
-    private volatile boolean shouldUseForkJoinPool = false;
-
-    public void init() {
-        THREAD_POOL.prestartAllCoreThreads();
-        submitter.start();
-    }
 
     @SubscribeEvent(priority = EventPriority.LOW)
     public void onServerTick(final TickEvent.ServerTickEvent event) {
@@ -66,10 +86,7 @@ public class TaskExecutor {
             return;
         }
         switch (event.phase) {
-            case START -> {
-                inTick = true;
-                submitter.unpark();
-            }
+            case START -> inTick = true;
             default -> {
                 inTick = false;
                 tickExisted++;
@@ -83,36 +100,6 @@ public class TaskExecutor {
         }
 
         executeGroups.clear();
-        checkShouldUseForkJoinPool();
-    }
-
-    /**
-     * <p>大量任务的前提下，使用阻塞队列会导致 CPU 资源占用的激增，此时我们不再关注优先级，而是考虑尽可能快地提交任务。</p>
-     *
-     * <p>With a large number of tasks, the use of a blocking queue can lead to a spike in CPU resource usage, at which
-     * point we stop focusing on prioritization and think about submitting tasks as fast as possible.</p>
-     */
-    private void checkShouldUseForkJoinPool() {
-        if (tickExisted % 20 != 0) {
-            return;
-        }
-
-        if (shouldUseForkJoinPool) {
-            if (!shouldUseForkJoinPool()) {
-                ModularMachinery.log.warn("The thread pool has been re-switched to ThreadPoolExecutor (below the limit of 1500).");
-                shouldUseForkJoinPool = false;
-            }
-            return;
-        }
-        if (shouldUseForkJoinPool()) {
-            ModularMachinery.log.warn("The thread pool has now been replaced with a ForkJoinPool due to too many tasks in a single commit (Limit 1500).");
-            shouldUseForkJoinPool = true;
-        }
-    }
-
-    private boolean shouldUseForkJoinPool() {
-        long executedAvgPerExecution = executedCount == 0 ? 0 : totalExecuted / executedCount;
-        return executedAvgPerExecution >= 1500;
     }
 
     /**
@@ -124,16 +111,13 @@ public class TaskExecutor {
         int executed = 0;
         long time = System.nanoTime() / 1000;
 
-        submitTask();
-        executed += spinAwaitActionExecutor();
-        executed += executeMainThreadActions();
-
-        updateTileEntity();
-
-        // Empty Check
-        if (!submitted.isEmpty()) {
-            executed += executeActions();
-        }
+        // Tasks may be queued again by synchronous actions, keep going until everything has been executed.
+        do {
+            submitTask();
+            executed += awaitSubmittedTasks();
+            executed += executeMainThreadActions();
+            updateTileEntity();
+        } while (!executors.isEmpty() || hasPendingGroups());
 
         totalUsedTime += System.nanoTime() / 1000 - time;
         return executed;
@@ -158,34 +142,56 @@ public class TaskExecutor {
         return executed;
     }
 
-    private int spinAwaitActionExecutor() {
+    /**
+     * <p>等待所有已提交的任务完成。等待期间主线程会协助执行尚未被领取的任务以及同步任务，
+     * 只有在无事可做时才会挂起，并由最后一个完成的任务唤醒。</p>
+     *
+     * <p>Waits for every submitted task. Meanwhile, the main thread helps with unclaimed tasks and synchronous
+     * actions, and only parks when there is nothing left to help with; the last completed task unparks it.</p>
+     */
+    private int awaitSubmittedTasks() {
         int executed = 0;
+        awaitingThread = Thread.currentThread();
+        try {
+            while (pendingTasks.get() > 0) {
+                ActionExecutor executor = helpQueue.pollLast();
+                if (executor != null) {
+                    runSubmitted(executor);
+                    continue;
+                }
 
-        ActionExecutor executor;
-        while ((executor = submitted.poll()) != null) {
-            // Spin up while completing the operation in the queue.
-            while (!executor.isCompleted) {
                 executed += executeMainThreadActions();
                 updateTileEntity();
-                if (!executor.isCompleted) {
-                    loopWait(100_000L);
+                if (pendingTasks.get() > 0) {
+                    // Timed park, so synchronous actions queued in the meantime are not delayed until the join ends.
+                    LockSupport.parkNanos(this, 100_000L);
                 }
             }
+        } finally {
+            awaitingThread = null;
+        }
+        helpQueue.clear();
 
+        ActionExecutor executor;
+        while ((executor = submitted.poll()) != null) {
             taskUsedTime += executor.usedTime;
             executed++;
         }
         return executed;
     }
 
-    @SuppressWarnings({"BusyWait", "SameParameterValue"})
-    private static void loopWait(final long nanos) {
-        long startTime = System.nanoTime();
-        while (System.nanoTime() - startTime < nanos) {
-            try {
-                Thread.sleep(0);
-            } catch (InterruptedException e) {
-                break;
+    private void runSubmitted(final ActionExecutor executor) {
+        if (!executor.tryClaim()) {
+            return;
+        }
+        try {
+            executor.run();
+        } finally {
+            if (pendingTasks.decrementAndGet() == 0) {
+                Thread waiter = awaitingThread;
+                if (waiter != null) {
+                    LockSupport.unpark(waiter);
+                }
             }
         }
     }
@@ -218,12 +224,15 @@ public class TaskExecutor {
      * <p>添加一个异步操作引用，这个操作必定在本 Tick 结束前执行完毕。</p>
      *
      * @param action   要执行的异步任务
-     * @param priority 优先级
+     * @param priority 优先级，通常为任务的预计耗时，耗时越高越先提交
      */
     public ActionExecutor addTask(final Action action, final int priority) {
         ActionExecutor actionExecutor = new ActionExecutor(action, priority);
         executors.offer(actionExecutor);
 
+        if (queuedTasks.incrementAndGet() >= SUBMIT_BATCH_SIZE && inTick) {
+            submitTask();
+        }
         return actionExecutor;
     }
 
@@ -243,7 +252,7 @@ public class TaskExecutor {
     }
 
     public <T> ForkJoinTask<T> submitForkJoinTask(final ForkJoinTask<T> task) {
-        forkJoinTasks.offer(task);
+        SERVER_FORK_JOIN_POOL.execute(task);
         return task;
     }
 
@@ -264,24 +273,31 @@ public class TaskExecutor {
         requireMarkNoUpdateTEQueue.offer(te);
     }
 
-    private void execute(final ActionExecutor executor) {
-        if (shouldUseForkJoinPool) {
-            FORK_JOIN_POOL.execute(executor);
-        } else {
-            THREAD_POOL.execute(executor);
+    private boolean hasPendingGroups() {
+        synchronized (executeGroups) {
+            for (final ExecuteGroup group : executeGroups.values()) {
+                if (!group.isSubmitted() && !group.isEmpty()) {
+                    return true;
+                }
+            }
         }
+        return false;
     }
 
+    /**
+     * <p>将队列中的任务按预计耗时从高到低排序后作为一个批次提交到工作窃取线程池，
+     * 耗时高的任务优先开始，以缩短整个批次的完成时间。</p>
+     *
+     * <p>Sorts the queued tasks by their estimated cost (highest first) and fans them out as one batch onto the
+     * work-stealing pool. Starting the expensive tasks first shortens the time until the whole batch is done.</p>
+     */
     private synchronized void submitTask() {
+        queuedTasks.set(0);
+
+        ObjectArrayList<ActionExecutor> batch = new ObjectArrayList<>();
         ActionExecutor executor;
         while ((executor = executors.poll()) != null) {
-            execute(executor);
-            submitted.offer(executor);
-        }
-
-        ForkJoinTask<?> forkJoinTask;
-        while ((forkJoinTask = forkJoinTasks.poll()) != null) {
-            FORK_JOIN_POOL.submit(forkJoinTask);
+            batch.add(executor);
         }
 
         synchronized (executeGroups) {
@@ -302,47 +318,25 @@ public class TaskExecutor {
                     group.setSubmitted(false);
                 });
                 group.setSubmitted(true);
-                execute(groupExecutor);
-                submitted.offer(groupExecutor);
+                batch.add(groupExecutor);
             }
             LongListIterator it = toRemove.iterator();
             while (it.hasNext()) {
                 executeGroups.remove(it.nextLong());
             }
         }
-    }
-
-    public class TaskSubmitter implements Runnable {
-        public Thread thread = null;
 
-        public void start() {
-            if (thread != null && thread.isAlive()) {
-                thread.interrupt();
-            }
-            thread = new Thread(this);
-            thread.setName("MMCE-TaskSubmitter");
-            thread.start();
-        }
-
-        public void unpark() {
-            if (thread != null) {
-                LockSupport.unpark(thread);
-            }
+        if (batch.isEmpty()) {
+            return;
         }
 
-        @Override
-        public void run() {
-            while (!Thread.currentThread().isInterrupted()) {
-                if (inTick) {
-                    if (!executors.isEmpty() || !executeGroups.isEmpty() || !forkJoinTasks.isEmpty()) {
-                        submitTask();
-                    } else {
-                        LockSupport.parkNanos(10_000L);
-                    }
-                } else {
-                    LockSupport.park();
-                }
-            }
+        batch.sort(null);
+        // Register the whole batch before any of it can complete.
+        pendingTasks.addAndGet(batch.size());
+        for (final ActionExecutor toSubmit : batch) {
+            submitted.offer(toSubmit);
+            helpQueue.offerLast(toSubmit);
+            SERVER_FORK_JOIN_POOL.execute(() -> runSubmitted(toSubmit));
         }
     }
 }
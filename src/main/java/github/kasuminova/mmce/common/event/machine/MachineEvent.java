@@ -8,7 +8,6 @@ import hellfirepvp.modularmachinery.ModularMachinery;
 import hellfirepvp.modularmachinery.common.machine.DynamicMachine;
 import hellfirepvp.modularmachinery.common.tiles.base.MachineComponentTileNotifiable;
 import hellfirepvp.modularmachinery.common.tiles.base.TileMultiblockMachineController;
-import net.minecraft.tileentity.TileEntity;
 import net.minecraftforge.fml.common.eventhandler.Event;
 import stanhebben.zenscript.annotations.ZenClass;
 import stanhebben.zenscript.annotations.ZenGetter;
@@ -48,12 +47,10 @@ public class MachineEvent extends Event {
     }
 
     public void postEventToComponents() {
-        for (TileEntity tileEntity : controller.getFoundComponents().keySet()) {
-            if (tileEntity instanceof final MachineComponentTileNotifiable componentTile) {
-                componentTile.onMachineEvent(this);
-                if (isCanceled()) {
-                    break;
-                }
+        for (MachineComponentTileNotifiable componentTile : controller.getNotifiableComponents()) {
+            componentTile.onMachineEvent(this);
+            if (isCanceled()) {
+                break;
             }
         }
     }
@@ -6,6 +6,7 @@ import hellfirepvp.modularmachinery.ModularMachinery;
 import hellfirepvp.modularmachinery.common.base.Mods;
 import hellfirepvp.modularmachinery.common.block.BlockController;
 import hellfirepvp.modularmachinery.common.container.ContainerBase;
+import hellfirepvp.modularmachinery.common.container.ContainerFactoryController;
 import hellfirepvp.modularmachinery.common.item.ItemBlockController;
 import hellfirepvp.modularmachinery.common.tiles.base.SelectiveUpdateTileEntity;
 import hellfirepvp.modularmachinery.common.tiles.base.TileEntitySynchronized;
@@ -85,7 +86,12 @@ public class EventHandler {
 
         ModularMachinery.EXECUTE_MANAGER.addSyncTask(() -> {
             if (teSync.getLastUpdateTick() + 1 >= playerMP.world.getTotalWorldTime()) {
-                playerMP.connection.sendPacket(teSync.getUpdatePacket());
+                if (container instanceof ContainerFactoryController factoryContainer) {
+                    // Factories with many threads would send multi-kilobyte packets every tick, only send what changed.
+                    factoryContainer.syncFactory(playerMP);
+                } else {
+                    playerMP.connection.sendPacket(teSync.getUpdatePacket());
+                }
             }
 
             World world = event.player.getEntityWorld();
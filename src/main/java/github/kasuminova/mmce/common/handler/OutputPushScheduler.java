@@ -0,0 +1,81 @@
+package github.kasuminova.mmce.common.handler;
+
+import hellfirepvp.modularmachinery.common.tiles.TileItemOutputBus;
+import it.unimi.dsi.fastutil.objects.ObjectIterator;
+import it.unimi.dsi.fastutil.objects.ReferenceLinkedOpenHashSet;
+import net.minecraftforge.common.config.Configuration;
+import net.minecraftforge.event.world.WorldEvent;
+import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
+import net.minecraftforge.fml.common.gameevent.TickEvent;
+import net.minecraftforge.fml.relauncher.Side;
+
+/**
+ * <p>输出仓的全局推送调度器。到达工作间隔的输出仓会被加入队列，在每个服务端 Tick 结束时按先进先出的顺序推送，
+ * 直到用完本 Tick 的时间预算；剩余的输出仓顺延到下一个 Tick，使大量输出仓的推送开销分摊到多个 Tick 中。</p>
+ *
+ * <p>Global push scheduler for output buses. Buses that reach their work interval are queued and pushed first in,
+ * first out at the end of each server tick until the tick's time budget is used up. The remaining buses carry over
+ * to the next tick, so the cost of many buses pushing at once is spread across ticks.</p>
+ */
+@SuppressWarnings("MethodMayBeStatic")
+public class OutputPushScheduler {
+    public static final OutputPushScheduler INSTANCE = new OutputPushScheduler();
+
+    /**
+     * 每 Tick 用于推送输出的时间预算（微秒），为 0 时输出仓在自身 Tick 中直接推送。
+     */
+    public static int tickTimeBudget = 1000;
+
+    private final ReferenceLinkedOpenHashSet<TileItemOutputBus> queue = new ReferenceLinkedOpenHashSet<>();
+
+    private OutputPushScheduler() {
+    }
+
+    public static void loadFromConfig(Configuration config) {
+        tickTimeBudget = config.getInt("output-push-tick-budget", "general",
+                1000, 0, 50000,
+                "How much time output buses may spend pushing items to adjacent inventories per tick, buses that do not fit are pushed in the next tick. 0 makes every bus push immediately in its own tick. (TimeUnit: Microseconds)");
+    }
+
+    public static boolean isEnabled() {
+        return tickTimeBudget > 0;
+    }
+
+    /**
+     * <p>将输出仓加入推送队列，已在队列中的输出仓不会重复加入。仅限服务端主线程调用。</p>
+     *
+     * <p>Queues a bus for pushing, a bus already in the queue is not added twice. Server thread only.</p>
+     */
+    public void schedule(TileItemOutputBus bus) {
+        queue.add(bus);
+    }
+
+    @SubscribeEvent
+    public void onServerTick(TickEvent.ServerTickEvent event) {
+        if (event.side == Side.CLIENT || event.phase != TickEvent.Phase.END || queue.isEmpty()) {
+            return;
+        }
+
+        long deadline = System.nanoTime() + tickTimeBudget * 1000L;
+        // At least one bus is pushed every tick, so a single slow bus can not stall the queue.
+        do {
+            TileItemOutputBus bus = queue.removeFirst();
+            if (!bus.isInvalid() && bus.getWorld().isBlockLoaded(bus.getPos())) {
+                bus.pushOutputs();
+            }
+        } while (!queue.isEmpty() && System.nanoTime() < deadline);
+    }
+
+    @SubscribeEvent
+    public void onWorldUnload(WorldEvent.Unload event) {
+        if (event.getWorld().isRemote || queue.isEmpty()) {
+            return;
+        }
+        ObjectIterator<TileItemOutputBus> it = queue.iterator();
+        while (it.hasNext()) {
+            if (it.next().getWorld() == event.getWorld()) {
+                it.remove();
+            }
+        }
+    }
+}
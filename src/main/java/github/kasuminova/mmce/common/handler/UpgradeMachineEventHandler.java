@@ -16,6 +16,9 @@ public class UpgradeMachineEventHandler {
 
     public static void onMachineEvent(MachineEvent event) {
         TileMultiblockMachineController controller = event.getController();
+        if (!controller.hasUpgradeEventListeners(event.getClass())) {
+            return;
+        }
 
         for (List<MachineUpgrade> upgrades : controller.getFoundUpgrades().values()) {
             for (final MachineUpgrade upgrade : upgrades) {
@@ -0,0 +1,130 @@
+package github.kasuminova.mmce.common.network;
+
+import com.github.bsideup.jabel.Desugar;
+import hellfirepvp.modularmachinery.common.crafting.helper.CraftingStatus;
+import hellfirepvp.modularmachinery.common.tiles.TileFactoryController;
+import hellfirepvp.modularmachinery.common.tiles.base.TileMultiblockMachineController;
+import hellfirepvp.modularmachinery.common.util.ByteBufUtils;
+import io.netty.buffer.ByteBuf;
+import net.minecraft.client.Minecraft;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.tileentity.TileEntity;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.World;
+import net.minecraftforge.fml.common.FMLCommonHandler;
+import net.minecraftforge.fml.common.network.simpleimpl.IMessage;
+import net.minecraftforge.fml.common.network.simpleimpl.IMessageHandler;
+import net.minecraftforge.fml.common.network.simpleimpl.MessageContext;
+import net.minecraftforge.fml.relauncher.Side;
+import net.minecraftforge.fml.relauncher.SideOnly;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>工厂控制器线程状态的增量同步包，只包含自上次同步以来发生变化的线程。</p>
+ * <p>线程的配方发生变化时携带该线程的完整 NBT，否则只携带进度、并行数与状态。</p>
+ *
+ * <p>Delta sync packet for the thread state of a factory controller, only carrying the threads that changed since
+ * the last sync.</p>
+ * <p>A thread whose recipe changed carries its full NBT, otherwise only its progress, parallelism and status.</p>
+ */
+public class PktFactoryThreadSync implements IMessage, IMessageHandler<PktFactoryThreadSync, IMessage> {
+    private BlockPos pos = BlockPos.ORIGIN;
+    private CraftingStatus controllerStatus = CraftingStatus.IDLE;
+    private int threadCount = 0;
+    private List<ThreadDelta> deltas = new ArrayList<>();
+
+    public PktFactoryThreadSync() {
+    }
+
+    public PktFactoryThreadSync(final BlockPos pos, final CraftingStatus controllerStatus, final int threadCount, final List<ThreadDelta> deltas) {
+        this.pos = pos;
+        this.controllerStatus = controllerStatus;
+        this.threadCount = threadCount;
+        this.deltas = deltas;
+    }
+
+    @Override
+    public void fromBytes(final ByteBuf buf) {
+        pos = BlockPos.fromLong(buf.readLong());
+        controllerStatus = readStatus(buf);
+        threadCount = buf.readInt();
+
+        int size = buf.readInt();
+        deltas = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            int index = buf.readInt();
+            if (buf.readBoolean()) {
+                deltas.add(new ThreadDelta(index, ByteBufUtils.readNBTTag(buf), 0, 0, 0, null));
+            } else {
+                deltas.add(new ThreadDelta(index, null, buf.readInt(), buf.readInt(), buf.readInt(), readStatus(buf)));
+            }
+        }
+    }
+
+    @Override
+    public void toBytes(final ByteBuf buf) {
+        buf.writeLong(pos.toLong());
+        writeStatus(buf, controllerStatus);
+        buf.writeInt(threadCount);
+
+        buf.writeInt(deltas.size());
+        for (final ThreadDelta delta : deltas) {
+            buf.writeInt(delta.index());
+            NBTTagCompound threadData = delta.threadData();
+            buf.writeBoolean(threadData != null);
+            if (threadData != null) {
+                ByteBufUtils.writeNBTTag(buf, threadData);
+            } else {
+                buf.writeInt(delta.tick());
+                buf.writeInt(delta.totalTick());
+                buf.writeInt(delta.parallelism());
+                writeStatus(buf, delta.status());
+            }
+        }
+    }
+
+    private static void writeStatus(final ByteBuf buf, final CraftingStatus status) {
+        buf.writeByte(status.getStatus().ordinal());
+        net.minecraftforge.fml.common.network.ByteBufUtils.writeUTF8String(buf, status.getUnlocMessage());
+    }
+
+    private static CraftingStatus readStatus(final ByteBuf buf) {
+        TileMultiblockMachineController.Type type = TileMultiblockMachineController.Type.values()[buf.readByte()];
+        return new CraftingStatus(type, net.minecraftforge.fml.common.network.ByteBufUtils.readUTF8String(buf));
+    }
+
+    @Override
+    public IMessage onMessage(final PktFactoryThreadSync message, final MessageContext ctx) {
+        if (FMLCommonHandler.instance().getSide().isClient()) {
+            processPacket(message);
+        }
+        return null;
+    }
+
+    @SideOnly(Side.CLIENT)
+    protected static void processPacket(final PktFactoryThreadSync message) {
+        Minecraft mc = Minecraft.getMinecraft();
+        mc.addScheduledTask(() -> {
+            World world = mc.world;
+            if (world == null || !world.isBlockLoaded(message.pos)) {
+                return;
+            }
+            TileEntity te = world.getTileEntity(message.pos);
+            if (te instanceof TileFactoryController factory) {
+                factory.readThreadSync(message.controllerStatus, message.threadCount, message.deltas);
+            }
+        });
+    }
+
+    /**
+     * @param index      线程在 {@link TileFactoryController#getThreadsInSyncOrder()} 中的位置
+     * @param threadData 线程的完整 NBT，为 null 时仅同步进度与状态
+     */
+    @Desugar
+    public record ThreadDelta(int index, @Nullable NBTTagCompound threadData,
+                              int tick, int totalTick, int parallelism, @Nullable CraftingStatus status) {
+    }
+}
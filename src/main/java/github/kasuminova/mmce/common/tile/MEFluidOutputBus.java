@@ -1,10 +1,12 @@
 package github.kasuminova.mmce.common.tile;
 
 import appeng.api.networking.IGridNode;
+import appeng.api.networking.energy.IEnergySource;
 import appeng.api.networking.ticking.TickRateModulation;
 import appeng.api.networking.ticking.TickingRequest;
 import appeng.api.storage.IMEMonitor;
 import appeng.api.storage.data.IAEFluidStack;
+import appeng.api.storage.data.IItemList;
 import appeng.me.GridAccessException;
 import appeng.util.Platform;
 import github.kasuminova.mmce.common.tile.base.MEFluidBus;
@@ -12,13 +14,25 @@ import hellfirepvp.modularmachinery.common.lib.ItemsMM;
 import hellfirepvp.modularmachinery.common.machine.IOType;
 import hellfirepvp.modularmachinery.common.machine.MachineComponent;
 import net.minecraft.item.ItemStack;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.nbt.NBTTagList;
+import net.minecraftforge.common.util.Constants;
 import net.minecraftforge.fluids.capability.IFluidHandler;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.locks.ReadWriteLock;
 
 public class MEFluidOutputBus extends MEFluidBus {
+    public static final String PENDING_OUTPUTS_TAG = "pendingOutputs";
+
+    /**
+     * 网络未能接收、且已无法放回储罐的流体，在下次注入时优先处理。
+     */
+    private IItemList<IAEFluidStack> pendingOutputs = channel.createList();
 
     public MEFluidOutputBus() {
         this.tanks.setOneFluidOneSlot(true);
@@ -53,51 +67,120 @@ public class MEFluidOutputBus extends MEFluidBus {
             return TickRateModulation.IDLE;
         }
         int[] needUpdateSlots = getNeedUpdateSlots();
-        if (needUpdateSlots.length == 0) {
+        if (needUpdateSlots.length == 0 && pendingOutputs.isEmpty()) {
             return TickRateModulation.SLOWER;
         }
 
-        ReadWriteLock rwLock = tanks.getRWLock();
-
+        IMEMonitor<IAEFluidStack> inv;
+        IEnergySource energy;
         try {
-            rwLock.writeLock().lock();
+            inv = proxy.getStorage().getInventory(channel);
+            energy = proxy.getEnergy();
+        } catch (GridAccessException e) {
+            changedSlots = new boolean[TANK_SLOT_AMOUNT];
+            return TickRateModulation.IDLE;
+        }
+
+        // The tank lock is only held while draining the slots and while restoring leftovers,
+        // recipe threads outputting into this bus never wait for the network injection itself.
+        IItemList<IAEFluidStack> outputs = drainSlots(needUpdateSlots);
+
+        boolean successAtLeastOnce = false;
+        List<IAEFluidStack> leftovers = new ArrayList<>();
+        for (final IAEFluidStack output : outputs) {
+            long size = output.getStackSize();
+            IAEFluidStack left = Platform.poweredInsert(energy, inv, output, source);
+            if (left == null || left.getStackSize() != size) {
+                successAtLeastOnce = true;
+            }
+            if (left != null && left.getStackSize() > 0) {
+                leftovers.add(left);
+            }
+        }
+
+        restoreLeftovers(leftovers);
+
+        return successAtLeastOnce ? TickRateModulation.FASTER : TickRateModulation.SLOWER;
+    }
+
+    /**
+     * <p>取出所有需要更新的槽位中的流体，相同的流体合并后每种只注入网络一次。</p>
+     *
+     * <p>Takes the fluids out of every slot that needs an update, identical fluids are merged so each one is
+     * injected into the network only once.</p>
+     */
+    private IItemList<IAEFluidStack> drainSlots(final int[] needUpdateSlots) {
+        IItemList<IAEFluidStack> outputs = channel.createList();
+        for (final IAEFluidStack pending : pendingOutputs) {
+            outputs.add(pending);
+        }
+        pendingOutputs = channel.createList();
 
+        ReadWriteLock rwLock = tanks.getRWLock();
+        rwLock.writeLock().lock();
+        try {
             inTick = true;
-            boolean successAtLeastOnce = false;
-            IMEMonitor<IAEFluidStack> inv = proxy.getStorage().getInventory(channel);
             for (final int slot : needUpdateSlots) {
                 changedSlots[slot] = false;
                 IAEFluidStack fluid = tanks.getFluidInSlot(slot);
-
                 if (fluid == null) {
                     continue;
                 }
+                outputs.add(fluid.copy());
+                tanks.setFluidInSlot(slot, null);
+            }
+        } finally {
+            inTick = false;
+            rwLock.writeLock().unlock();
+        }
+        return outputs;
+    }
 
-                IAEFluidStack left = Platform.poweredInsert(proxy.getEnergy(), inv, fluid.copy(), source);
+    /**
+     * <p>将网络未能接收的流体放回储罐，放不下的部分会在下次注入时优先处理。</p>
+     *
+     * <p>Puts the fluids the network did not accept back into the tanks, anything that no longer fits is injected
+     * first on the next tick.</p>
+     */
+    private void restoreLeftovers(final List<IAEFluidStack> leftovers) {
+        if (leftovers.isEmpty()) {
+            return;
+        }
 
-                if (left != null) {
-                    if (fluid.getStackSize() != left.getStackSize()) {
-                        successAtLeastOnce = true;
+        ReadWriteLock rwLock = tanks.getRWLock();
+        rwLock.writeLock().lock();
+        try {
+            inTick = true;
+            for (final IAEFluidStack left : leftovers) {
+                int target = -1;
+                for (int slot = 0; slot < tanks.getSlots(); slot++) {
+                    IAEFluidStack inSlot = tanks.getFluidInSlot(slot);
+                    if (inSlot == null) {
+                        if (target == -1) {
+                            target = slot;
+                        }
+                    } else if (inSlot.equals(left)) {
+                        target = slot;
+                        left.incStackSize(inSlot.getStackSize());
+                        break;
                     }
+                }
+                if (target == -1) {
+                    pendingOutputs.add(left);
                 } else {
-                    successAtLeastOnce = true;
+                    tanks.setFluidInSlot(target, left);
                 }
-
-                tanks.setFluidInSlot(slot, left);
             }
-
+        } finally {
             inTick = false;
             rwLock.writeLock().unlock();
-            return successAtLeastOnce ? TickRateModulation.FASTER : TickRateModulation.SLOWER;
-        } catch (GridAccessException e) {
-            inTick = false;
-            changedSlots = new boolean[TANK_SLOT_AMOUNT];
-            rwLock.writeLock().unlock();
-            return TickRateModulation.IDLE;
         }
     }
 
     public boolean hasFluid() {
+        if (!pendingOutputs.isEmpty()) {
+            return true;
+        }
         for (int i = 0; i < tanks.getSlots(); i++) {
             IAEFluidStack stack = tanks.getFluidInSlot(i);
             if (stack != null) {
@@ -107,6 +190,83 @@ public class MEFluidOutputBus extends MEFluidBus {
         return false;
     }
 
+    @Override
+    public void readCustomNBT(final NBTTagCompound compound) {
+        super.readCustomNBT(compound);
+        readPendingOutputsNBT(compound);
+    }
+
+    @Override
+    public void writeCustomNBT(final NBTTagCompound compound) {
+        super.writeCustomNBT(compound);
+        writePendingOutputsNBT(compound);
+    }
+
+    /**
+     * <p>待注入的输出只需保存，不需要同步到客户端。</p>
+     * <p>Pending outputs are only saved, they are never synced to the client.</p>
+     */
+    @Nonnull
+    @Override
+    public NBTTagCompound getUpdateTag() {
+        NBTTagCompound compound = super.getUpdateTag();
+        compound.removeTag(PENDING_OUTPUTS_TAG);
+        return compound;
+    }
+
+    @Override
+    public void writeNetNBT(final NBTTagCompound compound) {
+        super.writeNetNBT(compound);
+        compound.removeTag(PENDING_OUTPUTS_TAG);
+    }
+
+    public void readPendingOutputsNBT(final NBTTagCompound compound) {
+        pendingOutputs = channel.createList();
+        if (compound.hasKey(PENDING_OUTPUTS_TAG)) {
+            NBTTagList tagList = compound.getTagList(PENDING_OUTPUTS_TAG, Constants.NBT.TAG_COMPOUND);
+            for (int i = 0; i < tagList.tagCount(); i++) {
+                IAEFluidStack stack = channel.createFromNBT(tagList.getCompoundTagAt(i));
+                if (stack != null) {
+                    pendingOutputs.add(stack);
+                }
+            }
+        }
+    }
+
+    public void writePendingOutputsNBT(final NBTTagCompound compound) {
+        if (!pendingOutputs.isEmpty()) {
+            NBTTagList tagList = new NBTTagList();
+            for (final IAEFluidStack stack : pendingOutputs) {
+                NBTTagCompound tag = new NBTTagCompound();
+                stack.writeToNBT(tag);
+                tagList.appendTag(tag);
+            }
+            compound.setTag(PENDING_OUTPUTS_TAG, tagList);
+        }
+    }
+
+    public void clearPendingOutputs() {
+        pendingOutputs = channel.createList();
+    }
+
+    /**
+     * <p>保存储罐与待注入的流体，用于破坏方块时将其保存到掉落物中。</p>
+     * <p>Writes the tanks and the pending fluids, used to keep them on the dropped item when the block is broken.</p>
+     */
+    public void writeStoredFluidsNBT(final NBTTagCompound compound) {
+        tanks.writeToNBT(compound, "tanks");
+        writePendingOutputsNBT(compound);
+    }
+
+    public void readStoredFluidsNBT(final NBTTagCompound compound) {
+        tanks.readFromNBT(compound, "tanks");
+        readPendingOutputsNBT(compound);
+        synchronized (this) {
+            Arrays.fill(changedSlots, true);
+        }
+        markNoUpdateSync();
+    }
+
     @Override
     public void markNoUpdate() {
         if (proxy.isActive() && hasFluid()) {
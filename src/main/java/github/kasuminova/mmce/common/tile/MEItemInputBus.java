@@ -13,19 +13,25 @@ import hellfirepvp.modularmachinery.common.machine.IOType;
 import hellfirepvp.modularmachinery.common.machine.MachineComponent;
 import hellfirepvp.modularmachinery.common.util.IOInventory;
 import hellfirepvp.modularmachinery.common.util.ItemUtils;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntList;
 import net.minecraft.item.ItemStack;
 import net.minecraft.nbt.NBTTagCompound;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
-import java.util.Map;
-import java.util.WeakHashMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.locks.ReadWriteLock;
 
 public class MEItemInputBus extends MEItemBus {
-    // A simple cache for AEItemStack.
-    private static final Map<ItemStack, IAEItemStack> AE_STACK_CACHE = new WeakHashMap<>();
+    private static final long MAX_RETRY_DELAY = 100;
+
     private IOInventory configInventory = buildConfigInventory();
+    private final long[] nextRetryTick = new long[configInventory.getSlots()];
+    private final ItemStack[] templateSources = new ItemStack[configInventory.getSlots()];
+    private final IAEItemStack[] templates = new IAEItemStack[configInventory.getSlots()];
 
     @Override
     public IOInventory buildInventory() {
@@ -59,14 +65,19 @@ public class MEItemInputBus extends MEItemBus {
         IOInventory inv = new IOInventory(this, new int[]{}, new int[]{});
         inv.setStackLimit(Integer.MAX_VALUE, slotIDs);
         inv.setMiscSlots(slotIDs);
-        inv.setListener(slot -> {
-            synchronized (this) {
-                changedSlots[slot] = true;
-            }
-        });
+        inv.setListener(this::onConfigSlotChanged);
         return inv;
     }
 
+    /**
+     * 配置变化后，旧配置的补货失败次数不再有意义，立即重新检查该槽位。
+     */
+    private synchronized void onConfigSlotChanged(final int slot) {
+        changedSlots[slot] = true;
+        failureCounter[slot] = 0;
+        nextRetryTick[slot] = 0;
+    }
+
     @Override
     public void readCustomNBT(final NBTTagCompound compound) {
         super.readCustomNBT(compound);
@@ -74,6 +85,10 @@ public class MEItemInputBus extends MEItemBus {
         if (compound.hasKey("configInventory")) {
             readConfigInventoryNBT(compound.getCompoundTag("configInventory"));
         }
+        // Restocking is driven by slot changes, so every slot is checked once after loading.
+        synchronized (this) {
+            Arrays.fill(changedSlots, true);
+        }
     }
 
     @Override
@@ -127,6 +142,26 @@ public class MEItemInputBus extends MEItemBus {
         return false;
     }
 
+    /**
+     * <p>需要更新的槽位只来自实际发生变化的槽位（例如被配方消耗），补货失败的槽位按指数退避重试，不再定期全量扫描。
+     * 配置变化或槽位不再需要补货时重置退避。</p>
+     *
+     * <p>Slots only need an update when they actually changed (e.g. were consumed by a recipe), slots that failed to
+     * restock are retried with an exponential backoff instead of a periodic full scan. The backoff is reset once the
+     * config slot changes or the slot no longer needs restocking.</p>
+     */
+    @Override
+    protected synchronized int[] getNeedUpdateSlots() {
+        long current = world.getTotalWorldTime();
+        IntList needUpdateSlots = new IntArrayList(changedSlots.length);
+        for (int slot = 0; slot < changedSlots.length; slot++) {
+            if (failureCounter[slot] > 0 ? current >= nextRetryTick[slot] : changedSlots[slot]) {
+                needUpdateSlots.add(slot);
+            }
+        }
+        return needUpdateSlots.toIntArray();
+    }
+
     @Nonnull
     @Override
     public TickRateModulation tickingRequest(@Nonnull final IGridNode node, final int ticksSinceLastCall) {
@@ -147,6 +182,8 @@ public class MEItemInputBus extends MEItemBus {
             boolean successAtLeastOnce = false;
             inTick = true;
             IMEMonitor<IAEItemStack> inv = proxy.getStorage().getInventory(channel);
+            long current = world.getTotalWorldTime();
+            List<RestockRequest> requests = new ArrayList<>();
             for (final int slot : needUpdateSlots) {
                 changedSlots[slot] = false;
                 ItemStack cfgStack = configInventory.getStackInSlot(slot);
@@ -154,39 +191,37 @@ public class MEItemInputBus extends MEItemBus {
 
                 if (cfgStack.isEmpty()) {
                     if (invStack.isEmpty()) {
+                        resetRetry(slot);
                         continue;
                     }
-                    inventory.setStackInSlot(slot, insertStackToAE(inv, invStack));
+                    ItemStack left = insertStackToAE(inv, invStack);
+                    inventory.setStackInSlot(slot, left);
+                    updateRetry(slot, left.isEmpty(), current);
                     continue;
                 }
 
                 if (!ItemUtils.matchStacks(cfgStack, invStack)) {
-                    if (invStack.isEmpty() || insertStackToAE(inv, invStack).isEmpty()) {
-                        ItemStack stack = extractStackFromAE(inv, cfgStack);
-                        inventory.setStackInSlot(slot, stack);
-                        if (!stack.isEmpty()) {
-                            successAtLeastOnce = true;
+                    if (!invStack.isEmpty()) {
+                        ItemStack left = insertStackToAE(inv, invStack);
+                        if (!left.isEmpty()) {
+                            // The network is full, setting the slot flags it as changed again, so back off here too.
+                            inventory.setStackInSlot(slot, left);
+                            updateRetry(slot, false, current);
+                            continue;
                         }
+                        inventory.setStackInSlot(slot, ItemStack.EMPTY);
                     }
+                    addRestockRequest(requests, slot, cfgStack, cfgStack.getCount());
                     continue;
                 }
 
                 if (cfgStack.getCount() == invStack.getCount()) {
+                    resetRetry(slot);
                     continue;
                 }
 
                 if (cfgStack.getCount() > invStack.getCount()) {
-                    int countToReceive = cfgStack.getCount() - invStack.getCount();
-                    ItemStack stack = extractStackFromAE(inv, ItemUtils.copyStackWithSize(invStack, countToReceive));
-                    if (!stack.isEmpty()) {
-                        int newCount = invStack.getCount() + stack.getCount();
-                        inventory.setStackInSlot(slot, ItemUtils.copyStackWithSize(invStack, newCount));
-                        successAtLeastOnce = true;
-                        failureCounter[slot] = 0;
-                    } else {
-                        // If AE doesn't have enough item?
-                        failureCounter[slot]++;
-                    }
+                    addRestockRequest(requests, slot, cfgStack, cfgStack.getCount() - invStack.getCount());
                 } else {
                     int countToExtract = invStack.getCount() - cfgStack.getCount();
                     ItemStack stack = insertStackToAE(inv, ItemUtils.copyStackWithSize(invStack, countToExtract));
@@ -199,36 +234,107 @@ public class MEItemInputBus extends MEItemBus {
                                 invStack, invStack.getCount() - countToExtract + stack.getCount())
                         );
                     }
+                    updateRetry(slot, stack.isEmpty(), current);
                     successAtLeastOnce = true;
                 }
             }
 
+            for (final RestockRequest request : requests) {
+                successAtLeastOnce |= restock(inv, request, current);
+            }
+
             inTick = false;
             rwLock.writeLock().unlock();
             return successAtLeastOnce ? TickRateModulation.FASTER : TickRateModulation.SLOWER;
         } catch (GridAccessException e) {
             inTick = false;
-            changedSlots = new boolean[changedSlots.length];
+            // Keep the slots flagged so they are restocked once the grid is back.
+            synchronized (this) {
+                for (final int slot : needUpdateSlots) {
+                    changedSlots[slot] = true;
+                }
+            }
             rwLock.writeLock().unlock();
             return TickRateModulation.IDLE;
         }
     }
 
-    private ItemStack extractStackFromAE(final IMEMonitor<IAEItemStack> inv, final ItemStack stack) throws GridAccessException {
-        IAEItemStack aeStack = createStack(stack);
-        if (aeStack == null) {
-            return ItemStack.EMPTY;
+    private synchronized void resetRetry(final int slot) {
+        failureCounter[slot] = 0;
+        nextRetryTick[slot] = 0;
+    }
+
+    /**
+     * 槽位处理失败（网络缺少物品或无法放入多余物品）时按指数退避延后重试，成功时重置。
+     */
+    private synchronized void updateRetry(final int slot, final boolean success, final long current) {
+        if (success) {
+            resetRetry(slot);
+            return;
         }
+        failureCounter[slot]++;
+        nextRetryTick[slot] = current + Math.min(MAX_RETRY_DELAY, 10L << Math.min(failureCounter[slot] - 1, 4));
+    }
 
-        IAEItemStack extracted = Platform.poweredExtraction(proxy.getEnergy(), inv, aeStack, source);
-        if (extracted == null) {
-            return ItemStack.EMPTY;
+    private void addRestockRequest(final List<RestockRequest> requests, final int slot, final ItemStack cfgStack, final int amount) {
+        for (final RestockRequest request : requests) {
+            if (ItemUtils.matchStacks(request.cfgStack, cfgStack)) {
+                request.add(slot, amount);
+                return;
+            }
+        }
+        RestockRequest request = new RestockRequest(slot, cfgStack);
+        request.add(slot, amount);
+        requests.add(request);
+    }
+
+    /**
+     * <p>一次性从网络中取出同一种物品的所有需求量，再依次分配给各个槽位。</p>
+     *
+     * <p>Extracts the total amount requested for one item type from the network in a single request, then hands it
+     * out to the requesting slots in order.</p>
+     */
+    private boolean restock(final IMEMonitor<IAEItemStack> inv, final RestockRequest request, final long current) throws GridAccessException {
+        IAEItemStack template = getConfigTemplate(request.templateSlot, request.cfgStack);
+        IAEItemStack extracted = template == null ? null : Platform.poweredExtraction(
+                proxy.getEnergy(), inv, template.copy().setStackSize(request.total), source);
+        long available = extracted == null ? 0 : extracted.getStackSize();
+        ItemStack proto = extracted == null ? ItemStack.EMPTY : extracted.createItemStack();
+
+        for (int i = 0; i < request.slots.size(); i++) {
+            int slot = request.slots.getInt(i);
+            int amount = request.amounts.getInt(i);
+            int given = (int) Math.min(amount, available);
+            if (given > 0) {
+                ItemStack invStack = inventory.getStackInSlot(slot);
+                ItemStack base = invStack.isEmpty() ? proto : invStack;
+                inventory.setStackInSlot(slot, ItemUtils.copyStackWithSize(base, invStack.getCount() + given));
+                available -= given;
+            }
+
+            // AE doesn't have enough items, retry later instead of every tick.
+            updateRetry(slot, given >= amount, current);
+        }
+        return extracted != null;
+    }
+
+    /**
+     * <p>按配置物品的引用缓存对应的 {@link IAEItemStack} 模板，配置物品被替换后自动重建。仅在持有库存写锁时访问。</p>
+     *
+     * <p>Caches the {@link IAEItemStack} template of each config slot, keyed by the identity of the config stack and
+     * rebuilt once the stack is replaced. Only accessed while holding the inventory write lock.</p>
+     */
+    @Nullable
+    private IAEItemStack getConfigTemplate(final int slot, final ItemStack cfgStack) {
+        if (templateSources[slot] != cfgStack) {
+            templateSources[slot] = cfgStack;
+            templates[slot] = channel.createStack(cfgStack);
         }
-        return extracted.createItemStack();
+        return templates[slot];
     }
 
     private ItemStack insertStackToAE(final IMEMonitor<IAEItemStack> inv, final ItemStack stack) throws GridAccessException {
-        IAEItemStack aeStack = createStack(stack);
+        IAEItemStack aeStack = channel.createStack(stack);
         if (aeStack == null) {
             return stack;
         }
@@ -240,10 +346,6 @@ public class MEItemInputBus extends MEItemBus {
         return left.createItemStack();
     }
 
-    private IAEItemStack createStack(final ItemStack stack) {
-        return AE_STACK_CACHE.computeIfAbsent(stack, v -> channel.createStack(stack));
-    }
-
     @Override
     public void markNoUpdate() {
         if (proxy.isActive() && hasChangedSlots()) {
@@ -269,11 +371,7 @@ public class MEItemInputBus extends MEItemBus {
 
     public void readConfigInventoryNBT(final NBTTagCompound compound) {
         configInventory = IOInventory.deserialize(this, compound);
-        configInventory.setListener(slot -> {
-            synchronized (this) {
-                changedSlots[slot] = true;
-            }
-        });
+        configInventory.setListener(this::onConfigSlotChanged);
 
         int[] slotIDs = new int[configInventory.getSlots()];
         for (int slotID = 0; slotID < slotIDs.length; slotID++) {
@@ -281,4 +379,23 @@ public class MEItemInputBus extends MEItemBus {
         }
         configInventory.setStackLimit(Integer.MAX_VALUE, slotIDs);
     }
+
+    private static class RestockRequest {
+        private final int templateSlot;
+        private final ItemStack cfgStack;
+        private final IntList slots = new IntArrayList();
+        private final IntList amounts = new IntArrayList();
+        private long total = 0;
+
+        private RestockRequest(final int templateSlot, final ItemStack cfgStack) {
+            this.templateSlot = templateSlot;
+            this.cfgStack = cfgStack;
+        }
+
+        private void add(final int slot, final int amount) {
+            slots.add(slot);
+            amounts.add(amount);
+            total += amount;
+        }
+    }
 }
@@ -1,10 +1,12 @@
 package github.kasuminova.mmce.common.tile;
 
 import appeng.api.networking.IGridNode;
+import appeng.api.networking.energy.IEnergySource;
 import appeng.api.networking.ticking.TickRateModulation;
 import appeng.api.networking.ticking.TickingRequest;
 import appeng.api.storage.IMEMonitor;
 import appeng.api.storage.data.IAEItemStack;
+import appeng.api.storage.data.IItemList;
 import appeng.me.GridAccessException;
 import appeng.util.Platform;
 import github.kasuminova.mmce.common.tile.base.MEItemBus;
@@ -12,13 +14,25 @@ import hellfirepvp.modularmachinery.common.lib.ItemsMM;
 import hellfirepvp.modularmachinery.common.machine.IOType;
 import hellfirepvp.modularmachinery.common.machine.MachineComponent;
 import hellfirepvp.modularmachinery.common.util.IOInventory;
+import hellfirepvp.modularmachinery.common.util.ItemUtils;
 import net.minecraft.item.ItemStack;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.nbt.NBTTagList;
+import net.minecraftforge.common.util.Constants;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.locks.ReadWriteLock;
 
 public class MEItemOutputBus extends MEItemBus {
+    public static final String PENDING_OUTPUTS_TAG = "pendingOutputs";
+
+    /**
+     * 网络未能接收、且已无法放回总线的物品，在下次注入时优先处理。
+     */
+    private IItemList<IAEItemStack> pendingOutputs = channel.createList();
 
     @Override
     public IOInventory buildInventory() {
@@ -68,19 +82,59 @@ public class MEItemOutputBus extends MEItemBus {
         }
 
         int[] needUpdateSlots = getNeedUpdateSlots();
-        if (needUpdateSlots.length == 0) {
+        if (needUpdateSlots.length == 0 && pendingOutputs.isEmpty()) {
             return TickRateModulation.SLOWER;
         }
 
-        inTick = true;
+        IMEMonitor<IAEItemStack> inv;
+        IEnergySource energy;
+        try {
+            inv = proxy.getStorage().getInventory(channel);
+            energy = proxy.getEnergy();
+        } catch (GridAccessException e) {
+            changedSlots = new boolean[changedSlots.length];
+            return TickRateModulation.IDLE;
+        }
+
+        // The inventory lock is only held while draining the slots and while restoring leftovers,
+        // recipe threads outputting into this bus never wait for the network injection itself.
+        IItemList<IAEItemStack> outputs = drainSlots(needUpdateSlots);
+
         boolean successAtLeastOnce = false;
+        List<IAEItemStack> leftovers = new ArrayList<>();
+        for (final IAEItemStack output : outputs) {
+            long size = output.getStackSize();
+            IAEItemStack left = Platform.poweredInsert(energy, inv, output, source);
+            if (left == null || left.getStackSize() != size) {
+                successAtLeastOnce = true;
+            }
+            if (left != null && left.getStackSize() > 0) {
+                leftovers.add(left);
+            }
+        }
 
-        ReadWriteLock rwLock = inventory.getRWLock();
+        restoreLeftovers(leftovers);
 
-        try {
-            rwLock.writeLock().lock();
+        return successAtLeastOnce ? TickRateModulation.FASTER : TickRateModulation.SLOWER;
+    }
 
-            IMEMonitor<IAEItemStack> inv = proxy.getStorage().getInventory(channel);
+    /**
+     * <p>取出所有需要更新的槽位中的物品，并将相同的物品合并为一个 {@link IAEItemStack}，以便每种物品只注入网络一次。</p>
+     *
+     * <p>Takes the items out of every slot that needs an update and merges identical items into a single
+     * {@link IAEItemStack}, so each item type is injected into the network only once.</p>
+     */
+    private IItemList<IAEItemStack> drainSlots(final int[] needUpdateSlots) {
+        IItemList<IAEItemStack> outputs = channel.createList();
+        for (final IAEItemStack pending : pendingOutputs) {
+            outputs.add(pending);
+        }
+        pendingOutputs = channel.createList();
+
+        ReadWriteLock rwLock = inventory.getRWLock();
+        rwLock.writeLock().lock();
+        try {
+            inTick = true;
             for (final int slot : needUpdateSlots) {
                 changedSlots[slot] = false;
                 ItemStack stack = inventory.getStackInSlot(slot);
@@ -88,37 +142,142 @@ public class MEItemOutputBus extends MEItemBus {
                     continue;
                 }
 
-                ItemStack extracted = inventory.extractItem(slot, stack.getCount(), false);
-
-                IAEItemStack aeStack = channel.createStack(extracted);
-                if (aeStack == null) {
-                    continue;
+                IAEItemStack aeStack = channel.createStack(inventory.extractItem(slot, stack.getCount(), false));
+                if (aeStack != null) {
+                    outputs.add(aeStack);
                 }
+            }
+        } finally {
+            inTick = false;
+            rwLock.writeLock().unlock();
+        }
+        return outputs;
+    }
 
-                IAEItemStack left = Platform.poweredInsert(proxy.getEnergy(), inv, aeStack, source);
+    /**
+     * <p>将网络未能接收的物品放回总线，放不下的部分会在下次注入时优先处理。</p>
+     *
+     * <p>Puts the items the network did not accept back into the bus, anything that no longer fits is injected
+     * first on the next tick.</p>
+     */
+    private void restoreLeftovers(final List<IAEItemStack> leftovers) {
+        if (leftovers.isEmpty()) {
+            return;
+        }
 
-                if (left != null) {
-                    inventory.setStackInSlot(slot, left.createItemStack());
+        ReadWriteLock rwLock = inventory.getRWLock();
+        rwLock.writeLock().lock();
+        try {
+            inTick = true;
+            for (final IAEItemStack left : leftovers) {
+                long remaining = left.getStackSize();
+                while (remaining > 0) {
+                    IAEItemStack part = left.copy().setStackSize(Math.min(remaining, Integer.MAX_VALUE));
+                    remaining -= part.getStackSize();
 
-                    if (aeStack.getStackSize() != left.getStackSize()) {
-                        successAtLeastOnce = true;
+                    ItemStack notInserted = putBack(part.createItemStack());
+                    if (!notInserted.isEmpty()) {
+                        pendingOutputs.add(part.setStackSize(notInserted.getCount() + remaining));
+                        break;
                     }
-                } else {
-                    successAtLeastOnce = true;
                 }
             }
-
+        } finally {
             inTick = false;
             rwLock.writeLock().unlock();
-            return successAtLeastOnce ? TickRateModulation.FASTER : TickRateModulation.SLOWER;
-        } catch (GridAccessException e) {
-            inTick = false;
-            changedSlots = new boolean[changedSlots.length];
-            rwLock.writeLock().unlock();
-            return TickRateModulation.IDLE;
         }
     }
 
+    private ItemStack putBack(ItemStack stack) {
+        // Stacks of the same item first, then empty slots.
+        for (int pass = 0; pass < 2; pass++) {
+            for (int slot = 0; slot < inventory.getSlots(); slot++) {
+                ItemStack inSlot = inventory.getStackInSlot(slot);
+                boolean canPlace = pass == 0
+                        ? !inSlot.isEmpty() && ItemUtils.matchStacks(inSlot, stack)
+                        : inSlot.isEmpty();
+                if (!canPlace) {
+                    continue;
+                }
+
+                int toPlace = Math.min(inventory.getSlotLimit(slot) - inSlot.getCount(), stack.getCount());
+                if (toPlace <= 0) {
+                    continue;
+                }
+                inventory.setStackInSlot(slot, ItemUtils.copyStackWithSize(stack, inSlot.getCount() + toPlace));
+                stack = ItemUtils.copyStackWithSize(stack, stack.getCount() - toPlace);
+                if (stack.isEmpty()) {
+                    return ItemStack.EMPTY;
+                }
+            }
+        }
+        return stack;
+    }
+
+    @Override
+    public boolean hasItem() {
+        return !pendingOutputs.isEmpty() || super.hasItem();
+    }
+
+    @Override
+    public void readCustomNBT(final NBTTagCompound compound) {
+        super.readCustomNBT(compound);
+        readPendingOutputsNBT(compound);
+    }
+
+    @Override
+    public void writeCustomNBT(final NBTTagCompound compound) {
+        super.writeCustomNBT(compound);
+        writePendingOutputsNBT(compound);
+    }
+
+    /**
+     * <p>待注入的输出只需保存，不需要同步到客户端。</p>
+     * <p>Pending outputs are only saved, they are never synced to the client.</p>
+     */
+    @Nonnull
+    @Override
+    public NBTTagCompound getUpdateTag() {
+        NBTTagCompound compound = super.getUpdateTag();
+        compound.removeTag(PENDING_OUTPUTS_TAG);
+        return compound;
+    }
+
+    @Override
+    public void writeNetNBT(final NBTTagCompound compound) {
+        super.writeNetNBT(compound);
+        compound.removeTag(PENDING_OUTPUTS_TAG);
+    }
+
+    public void readPendingOutputsNBT(final NBTTagCompound compound) {
+        pendingOutputs = channel.createList();
+        if (compound.hasKey(PENDING_OUTPUTS_TAG)) {
+            NBTTagList tagList = compound.getTagList(PENDING_OUTPUTS_TAG, Constants.NBT.TAG_COMPOUND);
+            for (int i = 0; i < tagList.tagCount(); i++) {
+                IAEItemStack stack = channel.createFromNBT(tagList.getCompoundTagAt(i));
+                if (stack != null) {
+                    pendingOutputs.add(stack);
+                }
+            }
+        }
+    }
+
+    public void writePendingOutputsNBT(final NBTTagCompound compound) {
+        if (!pendingOutputs.isEmpty()) {
+            NBTTagList tagList = new NBTTagList();
+            for (final IAEItemStack stack : pendingOutputs) {
+                NBTTagCompound tag = new NBTTagCompound();
+                stack.writeToNBT(tag);
+                tagList.appendTag(tag);
+            }
+            compound.setTag(PENDING_OUTPUTS_TAG, tagList);
+        }
+    }
+
+    public void clearPendingOutputs() {
+        pendingOutputs = channel.createList();
+    }
+
     @Override
     public void markNoUpdate() {
         if (proxy.isActive() && hasChangedSlots()) {
@@ -535,6 +535,11 @@ public class MEPatternProvider extends MEMachineComponent implements ICraftingPr
         markChunkDirty();
     }
 
+    @Override
+    public boolean isListening(final Class<? extends MachineEvent> eventClass) {
+        return RecipeFinishEvent.class.isAssignableFrom(eventClass) || FactoryRecipeFinishEvent.class.isAssignableFrom(eventClass);
+    }
+
     @Override
     public void onMachineEvent(final MachineEvent event) {
         if (event instanceof RecipeFinishEvent || event instanceof FactoryRecipeFinishEvent) {
@@ -50,6 +50,10 @@ public abstract class MachineUpgrade {
         return eventProcessor.getOrDefault(eventClass, Collections.emptyList());
     }
 
+    public Set<Class<?>> getEventClasses() {
+        return eventProcessor.keySet();
+    }
+
     public TileUpgradeBus getParentBus() {
         return parentBus;
     }
@@ -0,0 +1,228 @@
+package github.kasuminova.mmce.common.util;
+
+import hellfirepvp.modularmachinery.common.machine.IOType;
+import hellfirepvp.modularmachinery.common.util.IEnergyHandler;
+import hellfirepvp.modularmachinery.common.util.IEnergyHandlerAsync;
+import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>控制器级别的虚拟能量池，聚合同一控制器内同方向、只属于该控制器且没有选择器标签的能量仓。</p>
+ * <p>每 Tick 开始时控制器调用 {@link #settle(long)}，将上一 Tick 从池中流出（或流入）的能量一次性结算到各个能量仓，
+ * 并重新统计可用能量（输入）或剩余容量（输出）。在此期间配方只需对一个原子计数器进行 CAS，无需逐个获取能量仓的锁。</p>
+ * <p>能量仓在外部只会被充能（输入仓）或被抽取（输出仓），因此快照总是保守的；若结算时能量仓无法完全承担，
+ * 差额会保留到下一次结算并从快照中扣除；能量池重建时差额会转移到新的能量池。</p>
+ *
+ * <p>Controller-level virtual energy pool that aggregates the energy hatches of one direction that belong to this
+ * controller alone and carry no selector tag.</p>
+ * <p>At the start of each tick the controller calls {@link #settle(long)}, which pays the energy drawn from
+ * (or fed into) the pool during the last tick to the hatches in one pass and snapshots the available energy
+ * (input) or free capacity (output) again. In between, recipes only CAS a single atomic counter instead of taking
+ * every hatch's monitor.</p>
+ * <p>From the outside, input hatches are only charged and output hatches are only drained, so the snapshot is always
+ * conservative. If the hatches can not cover a settlement, the difference is carried to the next one and deducted
+ * from the snapshot. When the pool is rebuilt, the difference is handed over to the new pool.</p>
+ */
+public class EnergyPool implements IEnergyHandlerAsync {
+    private final IOType ioType;
+    private final IEnergyHandlerAsync[] hatches;
+    private final Set<IEnergyHandlerAsync> hatchSet;
+    private final long capacity;
+
+    /**
+     * 输入：可抽取的能量；输出：可输入的剩余容量。
+     */
+    private final AtomicLong available = new AtomicLong();
+    /**
+     * 自上次结算以来经过本池的能量，为负数时表示需要退还给能量仓的能量。
+     */
+    private final AtomicLong transferred = new AtomicLong();
+    /**
+     * 自上次结算以来绕过本池直接与能量仓交换的能量，仅用于统计。
+     */
+    private final AtomicLong untracked = new AtomicLong();
+
+    /**
+     * 尚未结算到能量仓的能量，由 {@code this} 保护。
+     */
+    private long carried;
+    private long lastSettleTick = -1;
+    private volatile long energyPerTick = 0;
+
+    /**
+     * @param carried 上一个能量池未能结算的能量，见 {@link #getCarried()}
+     */
+    public EnergyPool(final IOType ioType, final List<IEnergyHandlerAsync> hatches, final long carried) {
+        this.ioType = ioType;
+        this.hatches = hatches.toArray(new IEnergyHandlerAsync[0]);
+        this.hatchSet = new ReferenceOpenHashSet<>(this.hatches);
+        this.carried = carried;
+        long capacity = 0;
+        for (final IEnergyHandlerAsync hatch : this.hatches) {
+            capacity = saturatedAdd(capacity, hatch.getMaxEnergy());
+        }
+        this.capacity = capacity;
+        snapshot();
+    }
+
+    /**
+     * <p>将上次结算以来的能量流动结算到各个能量仓，并重新统计能量快照。能量仓均为 {@link IEnergyHandlerAsync}，
+     * 因此可以在任意线程调用（例如异步结构检查中重建能量池时）；结算期间流经本池的能量会在下一次结算时处理。</p>
+     *
+     * <p>Pays the energy moved since the last settlement to the hatches and takes a new snapshot. Every hatch is an
+     * {@link IEnergyHandlerAsync}, so this may run on any thread (e.g. when an async structure check rebuilds the
+     * pool). Energy moved through the pool while settling is handled by the next settlement.</p>
+     *
+     * @param tick 当前世界时间，用于计算每 Tick 能量
+     */
+    public synchronized void settle(final long tick) {
+        long moved = transferred.getAndSet(0);
+        long remaining = saturatedAdd(carried, moved);
+
+        for (final IEnergyHandlerAsync hatch : hatches) {
+            if (remaining == 0) {
+                break;
+            }
+            // A negative balance is energy the pool owes back to the hatches, see setCurrentEnergy.
+            boolean drain = (ioType == IOType.INPUT) == (remaining > 0);
+            long amount = Math.abs(remaining);
+            if (drain) {
+                long toExtract = Math.min(hatch.getCurrentEnergy(), amount);
+                if (toExtract > 0 && hatch.extractEnergy(toExtract)) {
+                    amount -= toExtract;
+                }
+            } else {
+                long toReceive = Math.min(hatch.getRemainingCapacity(), amount);
+                if (toReceive > 0 && hatch.receiveEnergy(toReceive)) {
+                    amount -= toReceive;
+                }
+            }
+            remaining = remaining > 0 ? amount : -amount;
+        }
+        carried = remaining;
+
+        long elapsed = lastSettleTick < 0 ? 1 : Math.max(1, tick - lastSettleTick);
+        lastSettleTick = tick;
+        energyPerTick = saturatedAdd(Math.abs(moved), untracked.getAndSet(0)) / elapsed;
+
+        snapshot();
+    }
+
+    /**
+     * <p>获取尚未结算到能量仓的能量，重建能量池时应传递给新的能量池，以免欠下的能量被免除。</p>
+     *
+     * <p>Returns the energy not settled to the hatches yet. It has to be passed on to the new pool when rebuilding,
+     * so the debt is not forgiven.</p>
+     */
+    public synchronized long getCarried() {
+        return carried;
+    }
+
+    /**
+     * @return 该能量仓是否由本池管理
+     */
+    public boolean contains(final IEnergyHandler handler) {
+        return handler instanceof IEnergyHandlerAsync && hatchSet.contains(handler);
+    }
+
+    /**
+     * <p>记录一次未经过本池、直接与能量仓交换的能量（例如带有选择器标签的需求），使每 Tick 统计保持准确。</p>
+     *
+     * <p>Records energy exchanged with the hatches without going through this pool (e.g. requirements with a
+     * selector tag), so the per-tick metric stays accurate.</p>
+     */
+    public void recordUntracked(final long energy) {
+        if (energy > 0) {
+            untracked.addAndGet(energy);
+        }
+    }
+
+    /**
+     * <p>上一次结算周期内平均每 Tick 经过本池的能量。</p>
+     *
+     * <p>Average energy per tick that went through this pool during the last settlement period.</p>
+     */
+    public long getEnergyPerTick() {
+        return energyPerTick;
+    }
+
+    public IOType getIOType() {
+        return ioType;
+    }
+
+    public boolean isEmpty() {
+        return hatches.length == 0;
+    }
+
+    private void snapshot() {
+        long total = 0;
+        for (final IEnergyHandlerAsync hatch : hatches) {
+            total = saturatedAdd(total, ioType == IOType.INPUT ? hatch.getCurrentEnergy() : hatch.getRemainingCapacity());
+        }
+        available.set(Math.max(0, Math.min(capacity, total - carried)));
+    }
+
+    @Override
+    public boolean extractEnergy(final long energy) {
+        return ioType == IOType.INPUT && take(energy);
+    }
+
+    @Override
+    public boolean receiveEnergy(final long energy) {
+        return ioType == IOType.OUTPUT && take(energy);
+    }
+
+    private boolean take(final long energy) {
+        if (energy <= 0) {
+            return true;
+        }
+        long current;
+        do {
+            current = available.get();
+            if (current < energy) {
+                return false;
+            }
+        } while (!available.compareAndSet(current, current - energy));
+        transferred.addAndGet(energy);
+        return true;
+    }
+
+    @Override
+    public long getCurrentEnergy() {
+        return ioType == IOType.INPUT ? available.get() : Math.max(0, capacity - available.get());
+    }
+
+    /**
+     * <p>直接设置能量池的能量，与当前能量的差值会在下一次结算时从能量仓中抽取或退还给能量仓。</p>
+     *
+     * <p>Sets the energy of the pool directly. The difference to the current energy is drawn from or paid back to
+     * the hatches on the next settlement.</p>
+     */
+    @Override
+    public void setCurrentEnergy(final long energy) {
+        long target = Math.max(0, Math.min(capacity, ioType == IOType.INPUT ? energy : capacity - energy));
+        long current;
+        do {
+            current = available.get();
+        } while (!available.compareAndSet(current, target));
+        transferred.addAndGet(current - target);
+    }
+
+    @Override
+    public long getMaxEnergy() {
+        return capacity;
+    }
+
+    @Override
+    public long getRemainingCapacity() {
+        return ioType == IOType.OUTPUT ? available.get() : Math.max(0, capacity - available.get());
+    }
+
+    private static long saturatedAdd(final long a, final long b) {
+        long result = a + b;
+        return ((a ^ result) & (b ^ result)) < 0 ? Long.MAX_VALUE : result;
+    }
+}
@@ -12,12 +12,19 @@ import java.util.Objects;
 @SuppressWarnings("unused")
 public class MultiFluidTank implements IFluidHandler {
     private final FluidStack[] contents;
+    /**
+     * <p>标记仍然引用原处理器中 {@link FluidStack} 的槽位，这些槽位在第一次修改前才会被复制。</p>
+     * <p>Marks slots still referencing a {@link FluidStack} of the source handler,
+     * those are only copied right before they are modified for the first time.</p>
+     */
+    private final boolean[] shared;
     private final IFluidTankProperties[] props;
     private int capacity;
 
     public MultiFluidTank(int capacity, int tankCount) {
         this.capacity = capacity;
         this.contents = new FluidStack[tankCount];
+        this.shared = new boolean[tankCount];
         this.props = new IFluidTankProperties[tankCount];
 
         for (int i = 0; i < this.props.length; i++) {
@@ -36,6 +43,11 @@ public class MultiFluidTank implements IFluidHandler {
         }
     }
 
+    /**
+     * <p>创建一个写时复制的模拟视图，原处理器的内容不会被复制，也永远不会被修改。</p>
+     * <p>Creates a copy-on-write simulation view, the contents of the source handler are neither copied up front
+     * nor ever modified.</p>
+     */
     public MultiFluidTank(IFluidHandler from) {
         this(0, from.getTankProperties().length);
 
@@ -46,11 +58,22 @@ public class MultiFluidTank implements IFluidHandler {
 
             FluidStack stack = prop.getContents();
             if (stack != null) {
-                contents[i] = stack.copy();
+                contents[i] = stack;
+                shared[i] = true;
             }
         }
     }
 
+    private FluidStack getOwnedContent(final int slot) {
+        FluidStack content = contents[slot];
+        if (content != null && shared[slot]) {
+            content = content.copy();
+            contents[slot] = content;
+            shared[slot] = false;
+        }
+        return content;
+    }
+
     public int getCapacity() {
         return capacity;
     }
@@ -98,6 +121,7 @@ public class MultiFluidTank implements IFluidHandler {
             if (capacity > insert.amount) {
                 if (doFill) {
                     contents[slot] = insert;
+                    shared[slot] = false;
                 }
                 return insert.amount;
             }
@@ -105,6 +129,7 @@ public class MultiFluidTank implements IFluidHandler {
                 FluidStack copied = insert.copy();
                 copied.amount = capacity;
                 contents[slot] = copied;
+                shared[slot] = false;
             }
             return capacity;
         }
@@ -117,12 +142,12 @@ public class MultiFluidTank implements IFluidHandler {
 
         if (maxCanFill > insert.amount) {
             if (doFill) {
-                content.amount += insert.amount;
+                getOwnedContent(slot).amount += insert.amount;
             }
             return insert.amount;
         }
         if (doFill) {
-            content.amount = capacity;
+            getOwnedContent(slot).amount = capacity;
         }
         return maxCanFill;
     }
@@ -176,13 +201,16 @@ public class MultiFluidTank implements IFluidHandler {
         if (content.amount < maxDrain) {
             if (doDrain) {
                 contents[slot] = null;
-                return content;
+                if (!shared[slot]) {
+                    return content;
+                }
+                shared[slot] = false;
             }
             return content.copy();
         }
 
         if (doDrain) {
-            content.amount -= maxDrain;
+            getOwnedContent(slot).amount -= maxDrain;
         }
 
         FluidStack copied = content.copy();
@@ -215,6 +243,7 @@ public class MultiFluidTank implements IFluidHandler {
     public void readFromNBT(final NBTTagCompound compound, final String name) {
         NBTTagCompound tag = compound.getCompoundTag(name);
         Arrays.fill(contents, null);
+        Arrays.fill(shared, false);
 
         if (tag.isEmpty()) {
             return;
@@ -16,6 +16,12 @@ import java.util.function.IntConsumer;
 @SuppressWarnings("unused")
 public class MultiGasTank implements IExtendedGasHandler {
     private final GasStack[] contents;
+    /**
+     * <p>标记仍然引用原处理器中 {@link GasStack} 的槽位，这些槽位在第一次修改前才会被复制。</p>
+     * <p>Marks slots still referencing a {@link GasStack} of the source handler,
+     * those are only copied right before they are modified for the first time.</p>
+     */
+    private final boolean[] shared;
     private final GasTankInfo[] props;
     private int capacity;
     private IntConsumer onSlotChanged = null;
@@ -23,6 +29,7 @@ public class MultiGasTank implements IExtendedGasHandler {
     public MultiGasTank(int capacity, int tankCount) {
         this.capacity = capacity;
         this.contents = new GasStack[tankCount];
+        this.shared = new boolean[tankCount];
         this.props = new GasTankInfo[tankCount];
 
         for (int i = 0; i < this.props.length; i++) {
@@ -41,6 +48,11 @@ public class MultiGasTank implements IExtendedGasHandler {
         }
     }
 
+    /**
+     * <p>创建一个写时复制的模拟视图，原处理器的内容不会被复制，也永远不会被修改。</p>
+     * <p>Creates a copy-on-write simulation view, the contents of the source handler are neither copied up front
+     * nor ever modified.</p>
+     */
     public MultiGasTank(IGasHandler from) {
         this(0, from.getTankInfo().length);
 
@@ -51,11 +63,22 @@ public class MultiGasTank implements IExtendedGasHandler {
 
             GasStack stack = prop.getGas();
             if (stack != null) {
-                contents[i] = stack.copy();
+                contents[i] = stack;
+                shared[i] = true;
             }
         }
     }
 
+    private GasStack getOwnedContent(final int slot) {
+        GasStack content = contents[slot];
+        if (content != null && shared[slot]) {
+            content = content.copy();
+            contents[slot] = content;
+            shared[slot] = false;
+        }
+        return content;
+    }
+
     public int getCapacity() {
         return capacity;
     }
@@ -104,6 +127,7 @@ public class MultiGasTank implements IExtendedGasHandler {
             if (capacity > insert.amount) {
                 if (doFill) {
                     contents[slot] = insert;
+                    shared[slot] = false;
                     onSlotChanged(slot);
                 }
                 return insert.amount;
@@ -112,6 +136,7 @@ public class MultiGasTank implements IExtendedGasHandler {
                 GasStack copied = insert.copy();
                 copied.amount = capacity;
                 contents[slot] = copied;
+                shared[slot] = false;
                 onSlotChanged(slot);
             }
             return capacity;
@@ -125,13 +150,13 @@ public class MultiGasTank implements IExtendedGasHandler {
 
         if (maxCanFill > insert.amount) {
             if (doFill) {
-                content.amount += insert.amount;
+                getOwnedContent(slot).amount += insert.amount;
                 onSlotChanged(slot);
             }
             return insert.amount;
         }
         if (doFill) {
-            content.amount = capacity;
+            getOwnedContent(slot).amount = capacity;
             onSlotChanged(slot);
         }
         return maxCanFill;
@@ -187,13 +212,16 @@ public class MultiGasTank implements IExtendedGasHandler {
             if (doDrain) {
                 contents[slot] = null;
                 onSlotChanged(slot);
-                return content;
+                if (!shared[slot]) {
+                    return content;
+                }
+                shared[slot] = false;
             }
             return content.copy();
         }
 
         if (doDrain) {
-            content.amount -= maxDrain;
+            getOwnedContent(slot).amount -= maxDrain;
             onSlotChanged(slot);
         }
 
@@ -231,6 +259,7 @@ public class MultiGasTank implements IExtendedGasHandler {
     public void setGasInSlot(final int slot, final GasStack stack) {
         if (slot >= 0 && slot < contents.length) {
             contents[slot] = stack;
+            shared[slot] = false;
             onSlotChanged(slot);
         }
     }
@@ -262,6 +291,7 @@ public class MultiGasTank implements IExtendedGasHandler {
     public void readFromNBT(final NBTTagCompound compound, final String name) {
         NBTTagCompound tag = compound.getCompoundTag(name);
         Arrays.fill(contents, null);
+        Arrays.fill(shared, false);
 
         if (tag.isEmpty()) {
             return;
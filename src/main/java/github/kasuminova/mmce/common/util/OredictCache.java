@@ -1,49 +1,238 @@
 package github.kasuminova.mmce.common.util;
 
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntList;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ReferenceLinkedOpenHashSet;
+import it.unimi.dsi.fastutil.objects.ReferenceSet;
 import net.minecraft.item.Item;
 import net.minecraft.item.ItemStack;
+import net.minecraftforge.common.MinecraftForge;
 import net.minecraftforge.fml.common.FMLLog;
+import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
 import net.minecraftforge.oredict.OreDictionary;
 import net.minecraftforge.registries.IRegistryDelegate;
 
 import javax.annotation.Nonnull;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * <p>矿物词典索引。在矿物词典注册完成后一次性构建 (物品 ID, 元数据) -> 矿物 ID 的只读表，以及矿物 ID -> 物品的反向索引，
+ * 查询时无需任何锁。每当有新的矿物词典条目注册时，索引会被丢弃并在下一次查询时重建后原子替换。</p>
+ *
+ * <p>Ore dictionary index. Builds a read-only (item id, meta) -> ore ids table and a reverse ore id -> items index in
+ * one go once the ore dictionary is populated, so lookups never take a lock. Whenever a new ore entry is registered,
+ * the index is dropped and rebuilt on the next lookup, then swapped in atomically.</p>
+ * <p>每个索引都记录了构建时的代数，{@link #invalidate()} 会使代数加一，因此与失效并发构建出的索引在下一次查询时就会被丢弃。
+ * 注册监听器时会丢弃此前构建的索引，因此监听器注册之前的矿物词典注册也不会被遗漏。</p>
+ *
+ * <p>Every index records the generation it was built for and {@link #invalidate()} bumps the generation, so an index
+ * built concurrently with an invalidation is discarded on the next lookup. Registering the listener drops any index
+ * built before it, so ore registrations that happened before the listener existed are not missed either.</p>
+ */
 public class OredictCache {
-    private static final Map<Integer, Map<Integer, int[]>> ORE_ID_CACHE_MAP = new ConcurrentHashMap<>();
+    private static final int[] EMPTY_IDS = new int[0];
+    private static final Item[] EMPTY_ITEMS = new Item[0];
+
+    private static final AtomicInteger GENERATION = new AtomicInteger();
+    private static volatile OreTable table = null;
+
 
     public static int[] getOreIDsFast(@Nonnull ItemStack stack) {
         if (stack.isEmpty()) {
-            return new int[0];
+            return EMPTY_IDS;
         }
 
         IRegistryDelegate<Item> delegate = stack.getItem().delegate;
         if (delegate.name() == null) {
             FMLLog.log.debug("Attempted to find the oreIDs for an unregistered object ({}). This won't work very well.", stack);
-            return new int[0];
+            return EMPTY_IDS;
         }
 
         int id = Item.REGISTRY.getIDForObject(delegate.get());
-        int damageOffset = id | ((stack.getItemDamage() + 1) << 16);
+        OreTable table = getTable();
+
+        int[] oreIDs = table.oreIds.get(itemKey(id, stack.getItemDamage()));
+        if (oreIDs != null) {
+            return oreIDs;
+        }
+        oreIDs = table.oreIds.get(itemKey(id, OreDictionary.WILDCARD_VALUE));
+        return oreIDs != null ? oreIDs : EMPTY_IDS;
+    }
+
+    /**
+     * <p>获取矿物词典名称对应的 ID，不存在时返回 -1（不会像 {@link OreDictionary#getOreID(String)} 一样创建新 ID）。</p>
+     *
+     * <p>Returns the ore id of the given name, or -1 if it does not exist
+     * (unlike {@link OreDictionary#getOreID(String)}, no new id is created).</p>
+     */
+    public static int getOreID(@Nonnull String oreName) {
+        return getTable().nameToId.getInt(oreName);
+    }
+
+    /**
+     * <p>获取注册在该矿物词典下的所有物品。</p>
+     *
+     * <p>Returns every item registered under the given ore name.</p>
+     */
+    @Nonnull
+    public static Item[] getOreItems(@Nonnull String oreName) {
+        OreTable table = getTable();
+        int oreId = table.nameToId.getInt(oreName);
+        return oreId < 0 || oreId >= table.oreItems.length ? EMPTY_ITEMS : table.oreItems[oreId];
+    }
+
+    /**
+     * <p>获取该矿物词典下第一个非空的物品，返回的物品堆属于矿物词典，调用方必须复制后再修改。</p>
+     *
+     * <p>Returns the first non-empty stack registered under the given ore name. The stack belongs to the ore
+     * dictionary, callers must copy it before modifying it.</p>
+     */
+    @Nonnull
+    public static ItemStack getFirstOre(@Nonnull String oreName) {
+        OreTable table = getTable();
+        int oreId = table.nameToId.getInt(oreName);
+        return oreId < 0 || oreId >= table.firstOres.length ? ItemStack.EMPTY : table.firstOres[oreId];
+    }
+
+    public static void invalidate() {
+        GENERATION.incrementAndGet();
+        table = null;
+    }
+
+    /**
+     * <p>立即重建索引，在矿物词典注册完成后调用，避免第一次查询时的重建开销。</p>
+     *
+     * <p>Rebuilds the index right away, called once the ore dictionary is populated so the first lookup does not
+     * pay for the build.</p>
+     */
+    public static void rebuild() {
+        synchronized (OredictCache.class) {
+            table = OreTable.build(GENERATION.get());
+        }
+    }
+
+    public static void registerListener() {
+        MinecraftForge.EVENT_BUS.register(OredictCache.class);
+        invalidate();
+    }
+
+    @SubscribeEvent
+    public static void onOreRegister(OreDictionary.OreRegisterEvent event) {
+        invalidate();
+    }
 
-        Map<Integer, int[]> map = ORE_ID_CACHE_MAP.get(id);
-        if (map == null) {
-            synchronized (ORE_ID_CACHE_MAP) {
-                map = ORE_ID_CACHE_MAP.computeIfAbsent(id, k -> new ConcurrentHashMap<>());
+    private static OreTable getTable() {
+        OreTable table = OredictCache.table;
+        if (table != null && table.generation == GENERATION.get()) {
+            return table;
+        }
+        synchronized (OredictCache.class) {
+            table = OredictCache.table;
+            int generation = GENERATION.get();
+            if (table == null || table.generation != generation) {
+                OredictCache.table = table = OreTable.build(generation);
             }
         }
+        return table;
+    }
+
+    private static long itemKey(int itemId, int meta) {
+        return ((long) itemId << 32) | (meta & 0xFFFFFFFFL);
+    }
+
+    private static final class OreTable {
+        private final int generation;
+        private final Long2ObjectMap<int[]> oreIds;
+        private final Object2IntMap<String> nameToId;
+        private final Item[][] oreItems;
+        private final ItemStack[] firstOres;
+
+        private OreTable(final int generation,
+                         final Long2ObjectMap<int[]> oreIds,
+                         final Object2IntMap<String> nameToId,
+                         final Item[][] oreItems,
+                         final ItemStack[] firstOres) {
+            this.generation = generation;
+            this.oreIds = oreIds;
+            this.nameToId = nameToId;
+            this.oreItems = oreItems;
+            this.firstOres = firstOres;
+        }
+
+        private static OreTable build(final int generation) {
+            String[] oreNames = OreDictionary.getOreNames();
+
+            Object2IntMap<String> nameToId = new Object2IntOpenHashMap<>(oreNames.length);
+            nameToId.defaultReturnValue(-1);
+            Item[][] oreItems = new Item[oreNames.length][];
+            ItemStack[] firstOres = new ItemStack[oreNames.length];
+            Long2ObjectMap<IntList> exact = new Long2ObjectOpenHashMap<>();
+            Long2ObjectMap<IntList> wildcard = new Long2ObjectOpenHashMap<>();
 
-        int[] oreIDs = map.get(damageOffset);
-        if (oreIDs == null) {
-            synchronized (map) {
-                oreIDs = map.get(damageOffset);
-                if (oreIDs == null) {
-                    map.put(id, oreIDs = OreDictionary.getOreIDs(stack));
+            for (int oreId = 0; oreId < oreNames.length; oreId++) {
+                String oreName = oreNames[oreId];
+                firstOres[oreId] = ItemStack.EMPTY;
+                if (oreName == null) {
+                    oreItems[oreId] = EMPTY_ITEMS;
+                    continue;
                 }
+                nameToId.put(oreName, oreId);
+
+                List<ItemStack> ores = OreDictionary.getOres(oreName, false);
+                ReferenceSet<Item> items = new ReferenceLinkedOpenHashSet<>();
+                for (final ItemStack ore : ores) {
+                    if (ore.isEmpty() || ore.getItem().delegate.name() == null) {
+                        continue;
+                    }
+                    if (firstOres[oreId].isEmpty()) {
+                        firstOres[oreId] = ore;
+                    }
+                    items.add(ore.getItem());
+
+                    int itemId = Item.REGISTRY.getIDForObject(ore.getItem().delegate.get());
+                    int meta = ore.getItemDamage();
+                    Long2ObjectMap<IntList> target = meta == OreDictionary.WILDCARD_VALUE ? wildcard : exact;
+                    IntList ids = target.computeIfAbsent(itemKey(itemId, meta), k -> new IntArrayList());
+                    if (!ids.contains(oreId)) {
+                        ids.add(oreId);
+                    }
+                }
+                oreItems[oreId] = items.toArray(EMPTY_ITEMS);
+            }
+
+            // Exact entries also carry the ore ids of their item's wildcard entry, so a lookup needs one probe.
+            Long2ObjectMap<int[]> oreIds = new Long2ObjectOpenHashMap<>(exact.size() + wildcard.size());
+            for (final Long2ObjectMap.Entry<IntList> entry : wildcard.long2ObjectEntrySet()) {
+                oreIds.put(entry.getLongKey(), sorted(entry.getValue()));
             }
+            for (final Long2ObjectMap.Entry<IntList> entry : exact.long2ObjectEntrySet()) {
+                long key = entry.getLongKey();
+                IntList ids = entry.getValue();
+                IntList wildcardIds = wildcard.get(itemKey((int) (key >>> 32), OreDictionary.WILDCARD_VALUE));
+                if (wildcardIds != null) {
+                    for (int i = 0; i < wildcardIds.size(); i++) {
+                        int oreId = wildcardIds.getInt(i);
+                        if (!ids.contains(oreId)) {
+                            ids.add(oreId);
+                        }
+                    }
+                }
+                oreIds.put(key, sorted(ids));
+            }
+
+            return new OreTable(generation, oreIds, nameToId, oreItems, firstOres);
         }
 
-        return oreIDs;
+        private static int[] sorted(final IntList ids) {
+            int[] array = ids.toIntArray();
+            Arrays.sort(array);
+            return array;
+        }
     }
 }
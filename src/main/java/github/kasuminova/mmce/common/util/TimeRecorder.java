@@ -1,14 +1,34 @@
 package github.kasuminova.mmce.common.util;
 
+import com.github.bsideup.jabel.Desugar;
 import github.kasuminova.mmce.common.util.concurrent.ActionExecutor;
 import it.unimi.dsi.fastutil.ints.IntArrayFIFOQueue;
 
+import java.util.Arrays;
+
 public class TimeRecorder {
+    /**
+     * 每个阶段保留的最近 Tick 样本数量，用于计算百分位数。
+     */
+    public static final int PHASE_SAMPLE_SIZE = 200;
+
+    private static final Phase[] PHASES = Phase.values();
+
     private final IntArrayFIFOQueue usedTimeList = new IntArrayFIFOQueue();
     private final IntArrayFIFOQueue searchUsedTimeList = new IntArrayFIFOQueue();
     private int usedTimeCache = 0;
     private int searchUsedTimeCache = 0;
 
+    /**
+     * 每个阶段最近 {@link #PHASE_SAMPLE_SIZE} 个执行过该阶段的 Tick 的耗时（纳秒），按环形缓冲区写入。
+     */
+    private final int[][] phaseSamples = new int[PHASES.length][PHASE_SAMPLE_SIZE];
+    private final int[] phaseSampleCount = new int[PHASES.length];
+    private final long[] phaseTickTime = new long[PHASES.length];
+    private final boolean[] phaseTicked = new boolean[PHASES.length];
+    private final long[] phaseTotalTime = new long[PHASES.length];
+    private final long[] phaseMaxTime = new long[PHASES.length];
+
     public void updateUsedTime(ActionExecutor executor) {
         addUsedTime(executor == null ? 0 : executor.usedTime);
     }
@@ -32,6 +52,7 @@ public class TimeRecorder {
     }
 
     public void addRecipeResearchUsedTime(int time) {
+        addPhaseTime(Phase.RECIPE_SEARCH, time * 1000L);
         searchUsedTimeCache += time;
         searchUsedTimeList.enqueueFirst(time);
         if (searchUsedTimeList.size() > 20) {
@@ -40,6 +61,7 @@ public class TimeRecorder {
     }
 
     public void incrementRecipeResearchUsedTime(int add) {
+        addPhaseTime(Phase.RECIPE_SEARCH, add * 1000L);
         searchUsedTimeCache += add;
         if (!searchUsedTimeList.isEmpty()) {
             searchUsedTimeList.enqueueFirst(searchUsedTimeList.dequeueInt() + add);
@@ -62,4 +84,109 @@ public class TimeRecorder {
         return searchUsedTimeCache / searchUsedTimeList.size();
     }
 
+    /**
+     * <p>将一段耗时计入当前 Tick 的某个阶段，同一 Tick 内多次计入会被累加（例如工厂的多个线程）。</p>
+     *
+     * <p>Adds time to a phase of the current tick. Time added several times within one tick is summed up,
+     * e.g. for the threads of a factory.</p>
+     *
+     * @param nanos 耗时（纳秒）
+     */
+    public void addPhaseTime(Phase phase, long nanos) {
+        int idx = phase.ordinal();
+        phaseTickTime[idx] += nanos;
+        phaseTicked[idx] = true;
+    }
+
+    /**
+     * <p>结束当前 Tick，将执行过的阶段的耗时写入样本。未执行的阶段不记录样本，以免空闲 Tick 拉低百分位数。</p>
+     *
+     * <p>Finishes the current tick and records a sample for every phase that ran. Phases that did not run record
+     * nothing, so idle ticks do not drag the percentiles down.</p>
+     */
+    public void finishPhaseTick() {
+        for (int i = 0; i < PHASES.length; i++) {
+            if (!phaseTicked[i]) {
+                continue;
+            }
+            long time = phaseTickTime[i];
+            phaseSamples[i][phaseSampleCount[i]++ % PHASE_SAMPLE_SIZE] = (int) Math.min(time, Integer.MAX_VALUE);
+            phaseTotalTime[i] += time;
+            phaseMaxTime[i] = Math.max(phaseMaxTime[i], time);
+            phaseTickTime[i] = 0;
+            phaseTicked[i] = false;
+        }
+    }
+
+    /**
+     * <p>获取某个阶段的统计数据，百分位数基于最近 {@link #PHASE_SAMPLE_SIZE} 个样本，总耗时与最大值自上次重置起累计。</p>
+     *
+     * <p>Returns the stats of a phase. Percentiles cover the last {@link #PHASE_SAMPLE_SIZE} samples, the total and
+     * max time are accumulated since the last reset.</p>
+     */
+    public PhaseStats getPhaseStats(Phase phase) {
+        int idx = phase.ordinal();
+        int count = phaseSampleCount[idx];
+        int size = Math.min(count, PHASE_SAMPLE_SIZE);
+        if (size == 0) {
+            return new PhaseStats(phase, 0, 0, 0, phaseTotalTime[idx], 0);
+        }
+        int[] sorted = Arrays.copyOf(phaseSamples[idx], size);
+        Arrays.sort(sorted);
+        return new PhaseStats(phase,
+                sorted[percentileIndex(size, 0.50)],
+                sorted[percentileIndex(size, 0.99)],
+                phaseMaxTime[idx],
+                phaseTotalTime[idx],
+                count);
+    }
+
+    /**
+     * @return 自上次重置以来所有阶段的总耗时（纳秒）
+     */
+    public long getTotalPhaseTime() {
+        long total = 0;
+        for (final long time : phaseTotalTime) {
+            total += time;
+        }
+        return total;
+    }
+
+    public void resetPhaseStats() {
+        for (int i = 0; i < PHASES.length; i++) {
+            phaseSampleCount[i] = 0;
+            phaseTotalTime[i] = 0;
+            phaseMaxTime[i] = 0;
+        }
+    }
+
+    private static int percentileIndex(int size, double percentile) {
+        return Math.min(size - 1, (int) Math.ceil(size * percentile) - 1);
+    }
+
+    /**
+     * 控制器 Tick 中被单独计时的阶段。
+     */
+    public enum Phase {
+        STRUCTURE_CHECK,
+        RECIPE_SEARCH,
+        RECIPE_TICK,
+        RECIPE_FINISH,
+        EVENTS;
+
+        public String getLangKey() {
+            return "command.modularmachinery.performance_report.phase." + name().toLowerCase();
+        }
+    }
+
+    /**
+     * @param p50     最近样本的中位数（纳秒）
+     * @param p99     最近样本的 99 百分位数（纳秒）
+     * @param max     最大值（纳秒）
+     * @param total   总耗时（纳秒）
+     * @param samples 样本总数
+     */
+    @Desugar
+    public record PhaseStats(Phase phase, long p50, long p99, long max, long total, int samples) {
+    }
 }
\ No newline at end of file
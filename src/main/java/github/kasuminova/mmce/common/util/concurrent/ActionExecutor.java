@@ -3,12 +3,19 @@ package github.kasuminova.mmce.common.util.concurrent;
 import hellfirepvp.modularmachinery.ModularMachinery;
 import io.netty.util.internal.ThrowableUtil;
 
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
 public class ActionExecutor implements Runnable, Comparable<ActionExecutor> {
+    private static final AtomicIntegerFieldUpdater<ActionExecutor> CLAIMED_UPDATER =
+            AtomicIntegerFieldUpdater.newUpdater(ActionExecutor.class, "claimed");
+
     public final Action action;
     public final int priority;
     public volatile boolean isCompleted = false;
     public volatile int usedTime = 0;
 
+    private volatile int claimed = 0;
+
     public ActionExecutor(Action action) {
         this(action, 0);
     }
@@ -32,6 +39,18 @@ public class ActionExecutor implements Runnable, Comparable<ActionExecutor> {
         isCompleted = true;
     }
 
+    /**
+     * <p>尝试获取此任务的执行权，同一个任务只会有一个线程获取成功，用于工作线程与主线程之间的协同执行。</p>
+     *
+     * <p>Attempts to claim this task for execution. Exactly one thread succeeds, which lets the worker threads and
+     * the helping main thread race for the same task without running it twice.</p>
+     *
+     * @return 是否获取成功 / whether the caller now owns the task
+     */
+    public boolean tryClaim() {
+        return CLAIMED_UPDATER.compareAndSet(this, 0, 1);
+    }
+
     @Override
     public int compareTo(ActionExecutor o) {
         return o.priority - priority;
@@ -1,25 +1,62 @@
 package github.kasuminova.mmce.common.util.concurrent;
 
+import javax.annotation.Nullable;
 import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.ForkJoinWorkerThread;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class CustomForkJoinWorkerThreadFactory implements ForkJoinPool.ForkJoinWorkerThreadFactory {
     private static final AtomicLong THREAD_ID = new AtomicLong(0);
 
     private final String threadName;
+    private final ThreadGroup group;
 
-    public CustomForkJoinWorkerThreadFactory(String threadName) {
+    /**
+     * <p>{@link ForkJoinWorkerThread} 无法指定线程组，只会继承创建它的线程的线程组，
+     * 因此不在目标线程组中时，由一个位于该线程组的临时线程创建工作线程。</p>
+     *
+     * <p>A {@link ForkJoinWorkerThread} can not be given a thread group, it inherits the group of the thread creating
+     * it. When called from outside the target group, the worker is created by a short-lived thread in that group.</p>
+     *
+     * @param group 工作线程所在的线程组，为 null 时继承调用者的线程组
+     */
+    public CustomForkJoinWorkerThreadFactory(String threadName, @Nullable ThreadGroup group) {
         this.threadName = threadName;
+        this.group = group;
+    }
+
+    public CustomForkJoinWorkerThreadFactory(String threadName) {
+        this(threadName, null);
     }
 
     @Override
     public ForkJoinWorkerThread newThread(final ForkJoinPool pool) {
-        CustomForkJoinWorkerThread thread = new CustomForkJoinWorkerThread(pool);
+        CustomForkJoinWorkerThread thread = group == null || Thread.currentThread().getThreadGroup() == group
+                ? new CustomForkJoinWorkerThread(pool)
+                : createInGroup(pool);
+        if (thread == null) {
+            return null;
+        }
         thread.setName(String.format(threadName, THREAD_ID.getAndIncrement()));
         return thread;
     }
 
+    @Nullable
+    private CustomForkJoinWorkerThread createInGroup(final ForkJoinPool pool) {
+        AtomicReference<CustomForkJoinWorkerThread> created = new AtomicReference<>();
+        Thread creator = new Thread(group, () -> created.set(new CustomForkJoinWorkerThread(pool)), group.getName() + "-worker-creator");
+        creator.start();
+        try {
+            creator.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            // The pool treats a null worker as a failed creation and tries again later.
+            return null;
+        }
+        return created.get();
+    }
+
     public static class CustomForkJoinWorkerThread extends ForkJoinWorkerThread {
         public CustomForkJoinWorkerThread(final ForkJoinPool pool) {
             super(pool);
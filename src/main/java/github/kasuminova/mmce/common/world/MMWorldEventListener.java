@@ -1,9 +1,6 @@
 package github.kasuminova.mmce.common.world;
 
 import github.kasuminova.mmce.client.world.BlockModelHider;
-import it.unimi.dsi.fastutil.Function;
-import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
-import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
 import net.minecraft.block.state.IBlockState;
 import net.minecraft.entity.Entity;
 import net.minecraft.entity.player.EntityPlayer;
@@ -13,24 +10,17 @@ import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.ChunkPos;
 import net.minecraft.world.IWorldEventListener;
 import net.minecraft.world.World;
-import net.minecraft.world.gen.structure.StructureBoundingBox;
 import net.minecraftforge.event.world.ChunkEvent;
 import net.minecraftforge.event.world.WorldEvent;
 import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
-import net.minecraftforge.fml.common.gameevent.TickEvent;
-import net.minecraftforge.fml.relauncher.Side;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
-import java.util.HashMap;
-import java.util.Map;
 
 public class MMWorldEventListener implements IWorldEventListener {
 
     public static final MMWorldEventListener INSTANCE = new MMWorldEventListener();
 
-    private final Map<World, Long2ObjectMap<StructureBoundingBox>> worldChangedChunks = new HashMap<>();
-
     private MMWorldEventListener() {
     }
 
@@ -51,17 +41,8 @@ public class MMWorldEventListener implements IWorldEventListener {
             BlockModelHider.onWorldUnload(world);
             return;
         }
-        worldChangedChunks.remove(world);
         MachineComponentManager.INSTANCE.removeWorld(world);
-    }
-
-    @SubscribeEvent
-    public void onServerTickStart(TickEvent.ServerTickEvent event) {
-        if (event.side != Side.SERVER || event.phase != TickEvent.Phase.START) {
-            return;
-        }
-
-        worldChangedChunks.values().forEach(Function::clear);
+        StructureNBTCache.INSTANCE.removeWorld(world);
     }
 
     @SubscribeEvent
@@ -71,41 +52,7 @@ public class MMWorldEventListener implements IWorldEventListener {
             return;
         }
         ChunkPos pos = event.getChunk().getPos();
-        int xStart = pos.getXStart();
-        int xEnd = pos.getXEnd();
-        int zStart = pos.getZStart();
-        int zEnd = pos.getZEnd();
-
-        StructureBoundingBox structureArea = new StructureBoundingBox(xStart, zStart, xEnd, zEnd);
-        Long2ObjectMap<StructureBoundingBox> changedChunks = worldChangedChunks.get(world);
-        if (changedChunks == null) {
-            return;
-        }
-        changedChunks.put(ChunkPos.asLong(pos.x, pos.z), structureArea);
-    }
-
-    public boolean isAreaChanged(@Nonnull final World worldIn,
-                                 @Nonnull final BlockPos min,
-                                 @Nonnull final BlockPos max) {
-        int minChunkX = min.getX() >> 4;
-        int maxChunkX = max.getX() >> 4;
-        int minChunkZ = min.getZ() >> 4;
-        int maxChunkZ = max.getZ() >> 4;
-
-        StructureBoundingBox structureArea = new StructureBoundingBox(min, max);
-
-        for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
-            for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
-                Long2ObjectMap<StructureBoundingBox> changedChunks = worldChangedChunks.get(worldIn);
-                if (changedChunks != null) {
-                    StructureBoundingBox changedArea = changedChunks.get(ChunkPos.asLong(chunkX, chunkZ));
-                    if (changedArea != null && changedArea.intersectsWith(structureArea)) {
-                        return true;
-                    }
-                }
-            }
-        }
-        return false;
+        MachineComponentManager.INSTANCE.notifyStructureChunkChanged(world, pos.x, pos.z);
     }
 
     @Override
@@ -117,16 +64,8 @@ public class MMWorldEventListener implements IWorldEventListener {
             return;
         }
 
-        Long2ObjectMap<StructureBoundingBox> changedChunks = worldChangedChunks.computeIfAbsent(worldIn, v -> new Long2ObjectOpenHashMap<>());
-        ChunkPos chunkPos = new ChunkPos(pos.getX() >> 4, pos.getZ() >> 4);
-        long longChunkPos = ChunkPos.asLong(chunkPos.x, chunkPos.z);
-        StructureBoundingBox changedArea = changedChunks.get(longChunkPos);
-
-        if (changedArea == null) {
-            changedChunks.put(longChunkPos, new StructureBoundingBox(pos, pos));
-        } else {
-            changedArea.expandTo(new StructureBoundingBox(pos, pos));
-        }
+        MachineComponentManager.INSTANCE.notifyStructureBlockChanged(worldIn, pos);
+        StructureNBTCache.INSTANCE.invalidate(worldIn, pos);
     }
 
     // Noop
@@ -2,18 +2,27 @@ package github.kasuminova.mmce.common.world;
 
 import com.github.bsideup.jabel.Desugar;
 import github.kasuminova.mmce.common.util.concurrent.ExecuteGroup;
+import hellfirepvp.modularmachinery.common.machine.TaggedPositionBlockArray;
 import hellfirepvp.modularmachinery.common.tiles.base.TileMultiblockMachineController;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
 import it.unimi.dsi.fastutil.objects.ObjectArraySet;
 import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet;
 import it.unimi.dsi.fastutil.objects.ReferenceSets;
 import net.minecraft.tileentity.TileEntity;
 import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
 import net.minecraft.world.World;
+import net.minecraft.world.gen.structure.StructureBoundingBox;
 
+import javax.annotation.Nonnull;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongConsumer;
 
 public class MachineComponentManager {
     public static final MachineComponentManager INSTANCE = new MachineComponentManager();
@@ -23,11 +32,28 @@ public class MachineComponentManager {
 
     private final Map<World, Map<BlockPos, ComponentInfo>> componentMap = new ConcurrentHashMap<>();
 
+    /**
+     * <p>已成型结构的空间索引，以区块坐标为键，值为包围盒与该区块相交的所有结构。</p>
+     * <p>Spatial index of formed structures, keyed by chunk, holding every structure whose bounding box intersects
+     * that chunk. Guarded by the per-world map itself.</p>
+     */
+    private final Map<World, Long2ObjectMap<List<StructureInfo>>> structureMap = new ConcurrentHashMap<>();
+    private final Map<TileMultiblockMachineController, StructureInfo> formedStructures = new ConcurrentHashMap<>();
+
     public void addWorld(World world) {
         componentMap.put(world, new ConcurrentHashMap<>());
+        structureMap.put(world, new Long2ObjectOpenHashMap<>());
     }
 
     public void removeWorld(World world) {
+        Long2ObjectMap<List<StructureInfo>> removedStructures = structureMap.remove(world);
+        if (removedStructures != null) {
+            synchronized (removedStructures) {
+                removedStructures.values().forEach(structures -> structures.forEach(info -> formedStructures.remove(info.ctrl())));
+                removedStructures.clear();
+            }
+        }
+
         Map<BlockPos, ComponentInfo> removed = componentMap.remove(world);
         if (removed == null) {
             return;
@@ -63,6 +89,9 @@ public class MachineComponentManager {
                 return;
             }
 
+            // Shared hatches must not stay in any owner's energy pool.
+            owners.forEach(TileMultiblockMachineController::invalidateEnergyPools);
+
             long groupId = owners.stream()
                     .filter(owner -> owner.getExecuteGroupId() != -1)
                     .findFirst()
@@ -73,6 +102,25 @@ public class MachineComponentManager {
         }
     }
 
+    /**
+     * <p>检查组件是否同时属于多个控制器。</p>
+     * <p>Checks whether the component belongs to more than one controller.</p>
+     */
+    public boolean isComponentShared(TileEntity component) {
+        Map<BlockPos, ComponentInfo> posComponentMap = componentMap.get(component.getWorld());
+        if (posComponentMap == null) {
+            return false;
+        }
+        ComponentInfo info = posComponentMap.get(component.getPos());
+        if (info == null || !info.areTileEntityEquals(component)) {
+            return false;
+        }
+        Set<TileMultiblockMachineController> owners = info.owners;
+        synchronized (owners) {
+            return owners.size() > 1;
+        }
+    }
+
     public void removeOwner(TileEntity component, TileMultiblockMachineController ctrl) {
         World world = component.getWorld();
         BlockPos pos = component.getPos();
@@ -95,6 +143,201 @@ public class MachineComponentManager {
         }
     }
 
+    /**
+     * <p>通知所有拥有此组件的控制器，组件内容已变更。</p>
+     * <p>Notifies every controller owning the component that its contents have changed.</p>
+     */
+    public void notifyComponentChanged(TileEntity component) {
+        Map<BlockPos, ComponentInfo> posComponentMap = componentMap.get(component.getWorld());
+        if (posComponentMap == null) {
+            return;
+        }
+
+        ComponentInfo info = posComponentMap.get(component.getPos());
+        if (info == null || !info.areTileEntityEquals(component)) {
+            return;
+        }
+
+        Set<TileMultiblockMachineController> owners = info.owners;
+        synchronized (owners) {
+            for (final TileMultiblockMachineController owner : owners) {
+                owner.markRecipeInputsChanged();
+            }
+        }
+    }
+
+    /**
+     * <p>将控制器当前成型的结构加入空间索引，结构未变化时不做任何事。</p>
+     * <p>Adds the currently formed structure of the controller to the spatial index, does nothing if it is already
+     * indexed with the same pattern.</p>
+     */
+    public void addStructure(@Nonnull TileMultiblockMachineController ctrl) {
+        TaggedPositionBlockArray pattern = ctrl.getFoundPattern();
+        World world = ctrl.getWorld();
+        if (pattern == null || world == null) {
+            removeStructure(ctrl);
+            return;
+        }
+
+        StructureInfo previous = formedStructures.get(ctrl);
+        if (previous != null && previous.world() != world) {
+            removeStructure(ctrl);
+        }
+
+        BlockPos ctrlPos = ctrl.getPos();
+        Long2ObjectMap<List<StructureInfo>> chunkMap = structureMap.computeIfAbsent(world, v -> new Long2ObjectOpenHashMap<>());
+        synchronized (chunkMap) {
+            StructureInfo existing = formedStructures.get(ctrl);
+            if (existing != null && existing.world() == world) {
+                if (existing.pattern() == pattern && existing.ctrlPos().equals(ctrlPos)) {
+                    return;
+                }
+                unindexStructure(chunkMap, existing);
+                formedStructures.remove(ctrl, existing);
+            }
+
+            StructureInfo info = new StructureInfo(ctrl, world, ctrlPos, pattern, pattern.getPatternBoundingBox(ctrlPos));
+            info.forEachChunk(chunkPos -> chunkMap.computeIfAbsent(chunkPos, v -> new ObjectArrayList<>()).add(info));
+            formedStructures.put(ctrl, info);
+        }
+    }
+
+    /**
+     * <p>将控制器的结构移出空间索引。</p>
+     * <p>Removes the structure of the controller from the spatial index.</p>
+     */
+    public void removeStructure(@Nonnull TileMultiblockMachineController ctrl) {
+        StructureInfo info = formedStructures.get(ctrl);
+        if (info == null) {
+            return;
+        }
+        Long2ObjectMap<List<StructureInfo>> chunkMap = structureMap.get(info.world());
+        if (chunkMap == null) {
+            formedStructures.remove(ctrl, info);
+            return;
+        }
+        synchronized (chunkMap) {
+            if (formedStructures.remove(ctrl, info)) {
+                unindexStructure(chunkMap, info);
+            }
+        }
+    }
+
+    private static void unindexStructure(final Long2ObjectMap<List<StructureInfo>> chunkMap, final StructureInfo info) {
+        info.forEachChunk(chunkPos -> {
+            List<StructureInfo> structures = chunkMap.get(chunkPos);
+            if (structures == null) {
+                return;
+            }
+            structures.remove(info);
+            if (structures.isEmpty()) {
+                chunkMap.remove(chunkPos);
+            }
+        });
+    }
+
+    /**
+     * <p>查询指定坐标属于哪些已成型结构（坐标必须是结构中的一个方块）。</p>
+     * <p>Returns the controllers whose formed structure contains a block at the given position.</p>
+     */
+    public List<TileMultiblockMachineController> getStructureOwners(@Nonnull World world, @Nonnull BlockPos pos) {
+        Long2ObjectMap<List<StructureInfo>> chunkMap = structureMap.get(world);
+        if (chunkMap == null) {
+            return Collections.emptyList();
+        }
+
+        List<TileMultiblockMachineController> owners = null;
+        synchronized (chunkMap) {
+            List<StructureInfo> structures = chunkMap.get(ChunkPos.asLong(pos.getX() >> 4, pos.getZ() >> 4));
+            if (structures == null) {
+                return Collections.emptyList();
+            }
+            for (final StructureInfo info : structures) {
+                if (info.isPartOfStructure(pos)) {
+                    if (owners == null) {
+                        owners = new ObjectArrayList<>();
+                    }
+                    owners.add(info.ctrl());
+                }
+            }
+        }
+        return owners == null ? Collections.emptyList() : owners;
+    }
+
+    /**
+     * <p>将方块变化直接路由到包围盒覆盖此坐标的已成型结构的控制器。</p>
+     * <p>Routes a block change straight to the controllers whose formed structure covers the position.</p>
+     */
+    public void notifyStructureBlockChanged(@Nonnull World world, @Nonnull BlockPos pos) {
+        Long2ObjectMap<List<StructureInfo>> chunkMap = structureMap.get(world);
+        if (chunkMap == null) {
+            return;
+        }
+        synchronized (chunkMap) {
+            List<StructureInfo> structures = chunkMap.get(ChunkPos.asLong(pos.getX() >> 4, pos.getZ() >> 4));
+            if (structures == null) {
+                return;
+            }
+            for (final StructureInfo info : structures) {
+                // Modifier blocks may sit outside the pattern, so anything inside the bounding box is routed.
+                if (info.area().isVecInside(pos)) {
+                    info.ctrl().onStructureBlockChanged(pos);
+                }
+            }
+        }
+    }
+
+    /**
+     * <p>通知所有与指定区块相交的已成型结构需要完整检查（例如区块被卸载）。</p>
+     * <p>Tells every formed structure intersecting the chunk that it needs a full check (e.g. the chunk was unloaded).</p>
+     */
+    public void notifyStructureChunkChanged(@Nonnull World world, int chunkX, int chunkZ) {
+        Long2ObjectMap<List<StructureInfo>> chunkMap = structureMap.get(world);
+        if (chunkMap == null) {
+            return;
+        }
+        synchronized (chunkMap) {
+            List<StructureInfo> structures = chunkMap.get(ChunkPos.asLong(chunkX, chunkZ));
+            if (structures == null) {
+                return;
+            }
+            for (final StructureInfo info : structures) {
+                info.ctrl().onStructureAreaChanged();
+            }
+        }
+    }
+
+    @Desugar
+    public record StructureInfo(TileMultiblockMachineController ctrl, World world, BlockPos ctrlPos,
+                                TaggedPositionBlockArray pattern, StructureBoundingBox area) {
+
+        public boolean isPartOfStructure(BlockPos pos) {
+            return area.isVecInside(pos) && pattern.hasBlockAt(pos.subtract(ctrlPos));
+        }
+
+        public void forEachChunk(LongConsumer consumer) {
+            int minChunkX = area.minX >> 4;
+            int maxChunkX = area.maxX >> 4;
+            int minChunkZ = area.minZ >> 4;
+            int maxChunkZ = area.maxZ >> 4;
+            for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
+                for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
+                    consumer.accept(ChunkPos.asLong(chunkX, chunkZ));
+                }
+            }
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(ctrl);
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            return this == obj;
+        }
+    }
+
     @Desugar
     public record ComponentInfo(TileEntity te, BlockPos pos, Set<TileMultiblockMachineController> owners) {
 
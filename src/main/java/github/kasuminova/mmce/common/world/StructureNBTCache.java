@@ -0,0 +1,115 @@
+package github.kasuminova.mmce.common.world;
+
+import com.github.bsideup.jabel.Desugar;
+import hellfirepvp.modularmachinery.common.tiles.base.TileMultiblockMachineController;
+import it.unimi.dsi.fastutil.HashCommon;
+import it.unimi.dsi.fastutil.longs.Long2ObjectLinkedOpenHashMap;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.tileentity.TileEntity;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.World;
+
+import javax.annotation.Nonnull;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * <p>缓存结构检查中需要 NBT 匹配的方块的序列化结果，避免每次检查都调用 {@link TileEntity#writeToNBT(NBTTagCompound)}。</p>
+ * <p>缓存以 (坐标, TileEntity 实例) 为键，在 TileEntity 调用 markDirty 或方块发生变化时失效。
+ * 并非所有 TileEntity 都会在改变时调用 markDirty，因此结构检查读取到超过最大结构检查间隔的缓存时会重新序列化。
+ * 每个世界最多缓存 {@link #MAX_ENTRIES_PER_WORLD} 个方块，超出时淘汰最久未使用的条目。
+ * 每次 markDirty 都会调用失效方法，因此先用无锁的计数过滤器排除未缓存的坐标，再获取世界缓存的锁。</p>
+ *
+ * <p>Caches the serialized NBT of the NBT-constrained blocks of structure checks, so big inventories are not
+ * written to NBT on every check. Entries are keyed by (position, TileEntity identity) and dropped when the
+ * TileEntity is marked dirty or the block changes.</p>
+ * <p>Not every TileEntity calls markDirty when it changes, so a structure check re-serializes an entry older than
+ * the maximum structure check delay. Each world keeps at most {@link #MAX_ENTRIES_PER_WORLD} entries, the least
+ * recently used one is evicted first.</p>
+ * <p>Invalidation runs on every markDirty, so a lock-free counting filter rules out uncached positions before the
+ * world cache lock is taken.</p>
+ */
+public class StructureNBTCache {
+    public static final StructureNBTCache INSTANCE = new StructureNBTCache();
+
+    public static final int MAX_ENTRIES_PER_WORLD = 4096;
+
+    private static final int FILTER_SIZE = MAX_ENTRIES_PER_WORLD * 4;
+
+    private final Map<World, WorldCache> worldCache = new ConcurrentHashMap<>();
+
+    private StructureNBTCache() {
+    }
+
+    /**
+     * <p>获取 TileEntity 的 NBT，返回值是共享的缓存对象，<strong>不可修改</strong>。</p>
+     * <p>Returns the NBT of the TileEntity. The returned compound is the shared cached instance and
+     * <strong>must not be modified</strong>.</p>
+     */
+    @Nonnull
+    public NBTTagCompound getTileNBT(@Nonnull World world, @Nonnull BlockPos pos, @Nonnull TileEntity te) {
+        WorldCache cache = worldCache.computeIfAbsent(world, v -> new WorldCache());
+        Long2ObjectLinkedOpenHashMap<CachedNBT> entries = cache.entries;
+        long posLong = pos.toLong();
+        long now = world.getTotalWorldTime();
+
+        synchronized (entries) {
+            CachedNBT cached = entries.getAndMoveToLast(posLong);
+            if (cached != null && cached.te() == te && now - cached.writtenAt() < TileMultiblockMachineController.maxStructureCheckDelay) {
+                return cached.nbt();
+            }
+        }
+
+        NBTTagCompound nbt = new NBTTagCompound();
+        te.writeToNBT(nbt);
+
+        synchronized (entries) {
+            if (entries.putAndMoveToLast(posLong, new CachedNBT(te, nbt, now)) == null) {
+                cache.filter.incrementAndGet(filterIndex(posLong));
+            }
+            while (entries.size() > MAX_ENTRIES_PER_WORLD) {
+                long evicted = entries.firstLongKey();
+                entries.removeFirst();
+                cache.filter.decrementAndGet(filterIndex(evicted));
+            }
+        }
+        return nbt;
+    }
+
+    public void invalidate(@Nonnull World world, @Nonnull BlockPos pos) {
+        WorldCache cache = worldCache.get(world);
+        if (cache == null) {
+            return;
+        }
+        long posLong = pos.toLong();
+        if (cache.filter.get(filterIndex(posLong)) <= 0) {
+            return;
+        }
+        synchronized (cache.entries) {
+            if (cache.entries.remove(posLong) != null) {
+                cache.filter.decrementAndGet(filterIndex(posLong));
+            }
+        }
+    }
+
+    private static int filterIndex(final long posLong) {
+        return (int) HashCommon.mix(posLong) & (FILTER_SIZE - 1);
+    }
+
+    public void removeWorld(@Nonnull World world) {
+        worldCache.remove(world);
+    }
+
+    /**
+     * 计数过滤器记录每个哈希桶中缓存的坐标数量，仅在持有 {@link #entries} 的锁时修改。
+     */
+    private static final class WorldCache {
+        private final Long2ObjectLinkedOpenHashMap<CachedNBT> entries = new Long2ObjectLinkedOpenHashMap<>();
+        private final AtomicIntegerArray filter = new AtomicIntegerArray(FILTER_SIZE);
+    }
+
+    @Desugar
+    private record CachedNBT(TileEntity te, NBTTagCompound nbt, long writtenAt) {
+    }
+}
@@ -0,0 +1,23 @@
+package github.kasuminova.mmce.mixin.minecraft;
+
+import github.kasuminova.mmce.common.world.StructureNBTCache;
+import net.minecraft.tileentity.TileEntity;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.World;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+@Mixin(World.class)
+public class MixinWorld {
+
+    /**
+     * Drops the cached structure check NBT of a TileEntity when it is marked dirty.
+     */
+    @Inject(method = "markChunkDirty", at = @At("HEAD"))
+    private void injectMarkChunkDirty(BlockPos pos, TileEntity unusedTileEntity, CallbackInfo ci) {
+        StructureNBTCache.INSTANCE.invalidate((World) (Object) this, pos);
+    }
+
+}
@@ -98,6 +98,7 @@ public class ModularMachinery {
         if (Mods.ASTRAL_SORCERY.isPresent()) {
             NET_CHANNEL.registerMessage(StarlightMessage.StarlightMessageHandler.class, StarlightMessage.class, 5, Side.CLIENT);
         }
+        NET_CHANNEL.registerMessage(PktFactoryThreadSync.class, PktFactoryThreadSync.class, 6, Side.CLIENT);
 
         NET_CHANNEL.registerMessage(PktInteractFluidTankGui.class, PktInteractFluidTankGui.class, 100, Side.SERVER);
         NET_CHANNEL.registerMessage(PktSmartInterfaceUpdate.class, PktSmartInterfaceUpdate.class, 101, Side.SERVER);
@@ -13,10 +13,12 @@ import github.kasuminova.mmce.common.capability.CapabilityUpgrade;
 import github.kasuminova.mmce.common.concurrent.TaskExecutor;
 import github.kasuminova.mmce.common.container.*;
 import github.kasuminova.mmce.common.handler.EventHandler;
+import github.kasuminova.mmce.common.handler.OutputPushScheduler;
 import github.kasuminova.mmce.common.handler.UpgradeEventHandler;
 import github.kasuminova.mmce.common.integration.ModIntegrationAE2;
 import github.kasuminova.mmce.common.integration.gregtech.ModIntegrationGTCEU;
 import github.kasuminova.mmce.common.tile.*;
+import github.kasuminova.mmce.common.util.OredictCache;
 import github.kasuminova.mmce.common.util.concurrent.Action;
 import github.kasuminova.mmce.common.world.MMWorldEventListener;
 import hellfirepvp.modularmachinery.ModularMachinery;
@@ -128,8 +130,9 @@ public class CommonProxy implements IGuiHandler {
         MinecraftForge.EVENT_BUS.register(new EventHandler());
         MinecraftForge.EVENT_BUS.register(new UpgradeEventHandler());
         MinecraftForge.EVENT_BUS.register(MMWorldEventListener.INSTANCE);
+        OredictCache.registerListener();
+        MinecraftForge.EVENT_BUS.register(OutputPushScheduler.INSTANCE);
 
-        ModularMachinery.EXECUTE_MANAGER.init();
         ModularMachinery.log.info(String.format("[ModularMachinery-CE] Parallel executor is ready (%s Threads), Let's get started!!!", TaskExecutor.THREAD_COUNT));
 
         ModularMagicItems.initItems();
@@ -177,6 +180,7 @@ public class CommonProxy implements IGuiHandler {
     }
 
     public void loadComplete() {
+        OredictCache.rebuild();
         CompletableFuture.runAsync(() -> BlockArrayCache.buildCache(MachineRegistry.getLoadedMachines()));
     }
 
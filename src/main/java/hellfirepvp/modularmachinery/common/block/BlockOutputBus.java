@@ -9,10 +9,14 @@
 package hellfirepvp.modularmachinery.common.block;
 
 import hellfirepvp.modularmachinery.common.tiles.TileItemOutputBus;
+import net.minecraft.block.Block;
 import net.minecraft.block.state.IBlockState;
 import net.minecraft.tileentity.TileEntity;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.IBlockAccess;
 import net.minecraft.world.World;
 
+import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
 /**
@@ -29,4 +33,20 @@ public class BlockOutputBus extends BlockBus {
         return new TileItemOutputBus(state.getValue(BUS_TYPE));
     }
 
+    @Override
+    public void neighborChanged(@Nonnull final IBlockState state, final World world, @Nonnull final BlockPos pos, @Nonnull final Block blockIn, @Nonnull final BlockPos fromPos) {
+        super.neighborChanged(state, world, pos, blockIn, fromPos);
+        if (world.getTileEntity(pos) instanceof TileItemOutputBus bus) {
+            bus.onNeighborChange();
+        }
+    }
+
+    @Override
+    public void onNeighborChange(final IBlockAccess world, final BlockPos pos, final BlockPos neighbor) {
+        super.onNeighborChange(world, pos, neighbor);
+        if (world.getTileEntity(pos) instanceof TileItemOutputBus bus) {
+            bus.onNeighborChange();
+        }
+    }
+
 }
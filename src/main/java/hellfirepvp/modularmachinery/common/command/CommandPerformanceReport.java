@@ -1,19 +1,40 @@
 package hellfirepvp.modularmachinery.common.command;
 
+import github.kasuminova.mmce.common.util.TimeRecorder;
+import hellfirepvp.modularmachinery.ModularMachinery;
+import hellfirepvp.modularmachinery.common.machine.DynamicMachine;
+import hellfirepvp.modularmachinery.common.tiles.base.TileMultiblockMachineController;
 import hellfirepvp.modularmachinery.common.util.MiscUtils;
 import net.minecraft.command.CommandBase;
+import net.minecraft.command.CommandException;
 import net.minecraft.command.ICommandSender;
 import net.minecraft.server.MinecraftServer;
+import net.minecraft.tileentity.TileEntity;
+import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.text.TextComponentString;
 import net.minecraft.util.text.TextComponentTranslation;
 import net.minecraft.util.text.TextFormatting;
+import net.minecraft.world.WorldServer;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
 
 import static github.kasuminova.mmce.common.concurrent.TaskExecutor.*;
 
 public class CommandPerformanceReport extends CommandBase {
     private static final String LANG_KEY = "command.modularmachinery.performance_report";
+    private static final int DEFAULT_MACHINE_COUNT = 10;
 
     @Nonnull
     @Override
@@ -33,15 +54,27 @@ public class CommandPerformanceReport extends CommandBase {
     }
 
     @Override
-    public void execute(@Nonnull MinecraftServer server, @Nonnull ICommandSender sender, String[] args) {
+    public void execute(@Nonnull MinecraftServer server, @Nonnull ICommandSender sender, String[] args) throws CommandException {
         if (args.length > 0 && args[0].equals("reset")) {
             executedCount = 0;
             totalExecuted = 0;
             totalUsedTime = 0;
             taskUsedTime = 0;
+            for (final TileMultiblockMachineController ctrl : collectControllers(server)) {
+                ctrl.getTimeRecorder().resetPhaseStats();
+            }
             sender.sendMessage(new TextComponentTranslation(LANG_KEY + ".reset"));
             return;
         }
+        if (args.length > 0 && args[0].equals("machines")) {
+            int count = args.length > 1 ? parseInt(args[1], 1, 100) : DEFAULT_MACHINE_COUNT;
+            reportMachines(server, sender, count);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("export")) {
+            exportMachines(server, sender);
+            return;
+        }
 
         long executedAvgPerExecution = executedCount == 0 ? 0 : totalExecuted / executedCount;
         double usedTimeAvgPerExecution = executedCount == 0 ? 0 : (double) (totalUsedTime / executedCount) / 1000;
@@ -73,4 +106,145 @@ public class CommandPerformanceReport extends CommandBase {
         sender.sendMessage(new TextComponentTranslation(LANG_KEY + ".used_time_avg",
                 TextFormatting.BLUE + String.valueOf(usedTimeAvg) + TextFormatting.RESET));
     }
+
+    @Nonnull
+    @Override
+    public List<String> getTabCompletions(@Nonnull MinecraftServer server, @Nonnull ICommandSender sender, String[] args, @Nullable BlockPos targetPos) {
+        if (args.length == 1) {
+            return getListOfStringsMatchingLastWord(args, "reset", "machines", "export");
+        }
+        return Collections.emptyList();
+    }
+
+    /**
+     * <p>按自上次重置以来的总耗时对已加载的控制器排序，并输出前 N 个控制器各阶段的耗时。</p>
+     *
+     * <p>Ranks the loaded controllers by their total time since the last reset and prints the phase timings of the
+     * top N.</p>
+     */
+    private static void reportMachines(final MinecraftServer server, final ICommandSender sender, final int count) {
+        List<TileMultiblockMachineController> controllers = collectControllers(server);
+        if (controllers.isEmpty() || controllers.get(0).getTimeRecorder().getTotalPhaseTime() <= 0) {
+            sender.sendMessage(new TextComponentTranslation(LANG_KEY + ".machines.empty"));
+            return;
+        }
+
+        sender.sendMessage(new TextComponentTranslation(LANG_KEY + ".machines.title",
+                TextFormatting.GREEN + String.valueOf(Math.min(count, controllers.size())) + TextFormatting.RESET));
+        for (int i = 0; i < Math.min(count, controllers.size()); i++) {
+            TileMultiblockMachineController ctrl = controllers.get(i);
+            TimeRecorder recorder = ctrl.getTimeRecorder();
+            BlockPos pos = ctrl.getPos();
+
+            sender.sendMessage(new TextComponentString(""));
+            sender.sendMessage(new TextComponentTranslation(LANG_KEY + ".machines.entry",
+                    String.valueOf(i + 1),
+                    TextFormatting.AQUA + getMachineName(ctrl, true) + TextFormatting.RESET,
+                    pos.getX() + ", " + pos.getY() + ", " + pos.getZ(),
+                    String.valueOf(ctrl.getWorld().provider.getDimension()),
+                    TextFormatting.YELLOW + String.format("%.2f", recorder.getTotalPhaseTime() / 1_000_000D) + TextFormatting.RESET));
+
+            for (final TimeRecorder.Phase phase : TimeRecorder.Phase.values()) {
+                TimeRecorder.PhaseStats stats = recorder.getPhaseStats(phase);
+                if (stats.samples() <= 0) {
+                    continue;
+                }
+                sender.sendMessage(new TextComponentTranslation(LANG_KEY + ".machines.phase",
+                        new TextComponentTranslation(phase.getLangKey()),
+                        TextFormatting.BLUE + formatMicros(stats.p50()) + TextFormatting.RESET,
+                        TextFormatting.BLUE + formatMicros(stats.p99()) + TextFormatting.RESET,
+                        TextFormatting.RED + formatMicros(stats.max()) + TextFormatting.RESET,
+                        MiscUtils.formatDecimal(stats.samples())));
+            }
+        }
+    }
+
+    /**
+     * <p>将所有已加载控制器的各阶段耗时导出为 CSV 文件，以便离线分析。</p>
+     *
+     * <p>Exports the phase timings of every loaded controller to a CSV file for offline analysis.</p>
+     */
+    private static void exportMachines(final MinecraftServer server, final ICommandSender sender) {
+        List<TileMultiblockMachineController> controllers = collectControllers(server);
+        String fileName = "performance_report_" + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date()) + ".csv";
+        File file = server.getFile("modularmachinery/" + fileName);
+
+        try {
+            File parent = file.getParentFile();
+            if (parent != null && !parent.exists() && !parent.mkdirs()) {
+                throw new IOException("Could not create directory " + parent.getAbsolutePath());
+            }
+            try (BufferedWriter writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+                StringBuilder header = new StringBuilder("rank,dimension,x,y,z,machine,total_ms");
+                for (final TimeRecorder.Phase phase : TimeRecorder.Phase.values()) {
+                    String name = phase.name().toLowerCase();
+                    header.append(',').append(name).append("_p50_us")
+                          .append(',').append(name).append("_p99_us")
+                          .append(',').append(name).append("_max_us")
+                          .append(',').append(name).append("_total_ms")
+                          .append(',').append(name).append("_samples");
+                }
+                writer.write(header.toString());
+                writer.newLine();
+
+                for (int i = 0; i < controllers.size(); i++) {
+                    TileMultiblockMachineController ctrl = controllers.get(i);
+                    TimeRecorder recorder = ctrl.getTimeRecorder();
+                    BlockPos pos = ctrl.getPos();
+                    StringBuilder line = new StringBuilder()
+                            .append(i + 1)
+                            .append(',').append(ctrl.getWorld().provider.getDimension())
+                            .append(',').append(pos.getX())
+                            .append(',').append(pos.getY())
+                            .append(',').append(pos.getZ())
+                            .append(',').append(getMachineName(ctrl, false))
+                            .append(',').append(recorder.getTotalPhaseTime() / 1_000_000D);
+                    for (final TimeRecorder.Phase phase : TimeRecorder.Phase.values()) {
+                        TimeRecorder.PhaseStats stats = recorder.getPhaseStats(phase);
+                        line.append(',').append(stats.p50() / 1000D)
+                            .append(',').append(stats.p99() / 1000D)
+                            .append(',').append(stats.max() / 1000D)
+                            .append(',').append(stats.total() / 1_000_000D)
+                            .append(',').append(stats.samples());
+                    }
+                    writer.write(line.toString());
+                    writer.newLine();
+                }
+            }
+        } catch (IOException e) {
+            ModularMachinery.log.warn("Failed to export performance report!", e);
+            sender.sendMessage(new TextComponentTranslation(LANG_KEY + ".export.failed", e.getMessage()));
+            return;
+        }
+
+        sender.sendMessage(new TextComponentTranslation(LANG_KEY + ".export",
+                TextFormatting.GREEN + String.valueOf(controllers.size()) + TextFormatting.RESET,
+                file.getAbsolutePath()));
+    }
+
+    private static List<TileMultiblockMachineController> collectControllers(final MinecraftServer server) {
+        List<TileMultiblockMachineController> controllers = new ArrayList<>();
+        for (final WorldServer world : server.worlds) {
+            for (final TileEntity te : world.loadedTileEntityList) {
+                if (te instanceof TileMultiblockMachineController ctrl && !ctrl.isInvalid()) {
+                    controllers.add(ctrl);
+                }
+            }
+        }
+        controllers.sort(Comparator.comparingLong(
+                (TileMultiblockMachineController ctrl) -> ctrl.getTimeRecorder().getTotalPhaseTime()).reversed());
+        return controllers;
+    }
+
+    private static String getMachineName(final TileMultiblockMachineController ctrl, final boolean localized) {
+        DynamicMachine machine = ctrl.getFoundMachine();
+        if (machine == null) {
+            return "-";
+        }
+        return localized ? machine.getLocalizedName() : machine.getRegistryName().toString();
+    }
+
+    private static String formatMicros(final long nanos) {
+        return String.format("%.2f", nanos / 1000D);
+    }
 }
@@ -8,16 +8,29 @@
 
 package hellfirepvp.modularmachinery.common.container;
 
+import github.kasuminova.mmce.common.network.PktFactoryThreadSync;
+import hellfirepvp.modularmachinery.ModularMachinery;
+import hellfirepvp.modularmachinery.common.crafting.ActiveMachineRecipe;
+import hellfirepvp.modularmachinery.common.crafting.MachineRecipe;
+import hellfirepvp.modularmachinery.common.crafting.helper.CraftingStatus;
 import hellfirepvp.modularmachinery.common.item.ItemBlueprint;
+import hellfirepvp.modularmachinery.common.machine.DynamicMachine;
+import hellfirepvp.modularmachinery.common.machine.TaggedPositionBlockArray;
+import hellfirepvp.modularmachinery.common.machine.factory.FactoryRecipeThread;
 import hellfirepvp.modularmachinery.common.tiles.TileFactoryController;
 import hellfirepvp.modularmachinery.common.tiles.base.TileMultiblockMachineController;
 import net.minecraft.entity.player.EntityPlayer;
+import net.minecraft.entity.player.EntityPlayerMP;
 import net.minecraft.inventory.Slot;
 import net.minecraft.item.ItemStack;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.util.EnumFacing;
 import net.minecraftforge.items.IItemHandler;
 import net.minecraftforge.items.SlotItemHandler;
 
 import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * This class is part of the Modular Machinery Mod
@@ -30,6 +43,28 @@ public class ContainerFactoryController extends ContainerBase<TileFactoryControl
 
     private final Slot slotBlueprint;
 
+    /**
+     * 上一次发送给该玩家的线程状态，用于计算增量。
+     */
+    private FactoryRecipeThread[] syncedThreads = null;
+    private ActiveMachineRecipe[] syncedActiveRecipes;
+    private MachineRecipe[] syncedRecipes;
+    private int[] syncedTicks;
+    private int[] syncedTotalTicks;
+    private int[] syncedParallelism;
+    private CraftingStatus[] syncedStatus;
+    private long lastFullSyncTick = 0;
+
+    /**
+     * 上一次完整同步时的控制器状态，任意一项变化都需要重新发送完整的更新包。
+     */
+    private DynamicMachine syncedMachine = null;
+    private TaggedPositionBlockArray syncedPattern = null;
+    private EnumFacing syncedRotation = null;
+    private int syncedTotalParallelism = 0;
+    private int syncedExtraThreadCount = 0;
+    private NBTTagCompound syncedCustomData = null;
+
     public ContainerFactoryController(TileFactoryController owner, EntityPlayer opening) {
         super(owner, opening);
 
@@ -87,6 +122,124 @@ public class ContainerFactoryController extends ContainerBase<TileFactoryControl
         return itemstack;
     }
 
+    /**
+     * <p>将工厂状态同步给打开界面的玩家。线程增减、结构、并行数或自定义数据变化、首次打开或到达完整同步间隔时发送完整的更新包，
+     * 否则只发送自上次同步以来发生变化的线程。仅限服务端主线程调用。</p>
+     *
+     * <p>Syncs the factory to the player viewing it. A full update packet is sent when threads were added or removed,
+     * when the structure, total parallelism or custom data changed, on the first sync or once the full sync interval
+     * has passed. Otherwise, only the threads that changed since the last sync are sent. Server thread only.</p>
+     */
+    public void syncFactory(final EntityPlayerMP player) {
+        List<FactoryRecipeThread> threads = owner.getThreadsInSyncOrder();
+        long now = player.world.getTotalWorldTime();
+
+        if (requiresFullSync(threads, now)) {
+            player.connection.sendPacket(owner.getUpdatePacket());
+            snapshot(threads);
+            snapshotController();
+            lastFullSyncTick = now;
+            return;
+        }
+
+        List<PktFactoryThreadSync.ThreadDelta> deltas = new ArrayList<>();
+        for (int i = 0; i < threads.size(); i++) {
+            FactoryRecipeThread thread = threads.get(i);
+            ActiveMachineRecipe activeRecipe = thread.getActiveRecipe();
+            MachineRecipe recipe = activeRecipe == null ? null : activeRecipe.getRecipe();
+
+            if (activeRecipe != syncedActiveRecipes[i] || recipe != syncedRecipes[i]) {
+                deltas.add(new PktFactoryThreadSync.ThreadDelta(i, thread.serialize(), 0, 0, 0, null));
+                snapshot(i, thread);
+                continue;
+            }
+
+            int tick = activeRecipe == null ? 0 : activeRecipe.getTick();
+            int totalTick = activeRecipe == null ? 0 : activeRecipe.getTotalTick();
+            int parallelism = activeRecipe == null ? 0 : activeRecipe.getParallelism();
+            CraftingStatus status = thread.getStatus();
+            if (tick != syncedTicks[i] || totalTick != syncedTotalTicks[i]
+                    || parallelism != syncedParallelism[i] || !status.equals(syncedStatus[i])) {
+                deltas.add(new PktFactoryThreadSync.ThreadDelta(i, null, tick, totalTick, parallelism, status));
+                snapshot(i, thread);
+            }
+        }
+
+        if (!deltas.isEmpty()) {
+            ModularMachinery.NET_CHANNEL.sendTo(new PktFactoryThreadSync(
+                    owner.getPos(), owner.getControllerStatus(), threads.size(), deltas), player);
+        }
+    }
+
+    private boolean requiresFullSync(final List<FactoryRecipeThread> threads, final long now) {
+        if (syncedThreads == null || syncedThreads.length != threads.size()) {
+            return true;
+        }
+        if (now - lastFullSyncTick >= TileMultiblockMachineController.factoryFullSyncInterval) {
+            return true;
+        }
+        if (isControllerChanged()) {
+            return true;
+        }
+        for (int i = 0; i < syncedThreads.length; i++) {
+            if (syncedThreads[i] != threads.get(i)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 增量包只携带线程状态，结构、总并行数与自定义数据只能通过完整的更新包同步。
+     */
+    private boolean isControllerChanged() {
+        DynamicMachine machine = owner.getFoundMachine();
+        if (machine != syncedMachine || owner.getFoundPattern() != syncedPattern
+                || owner.getControllerRotation() != syncedRotation) {
+            return true;
+        }
+        if (machine != null && (owner.getMaxParallelism() != syncedTotalParallelism
+                || owner.getExtraThreadCount() != syncedExtraThreadCount)) {
+            return true;
+        }
+        // Scripts may edit the custom data in place, so compare the content rather than the instance.
+        return !owner.getCustomDataTag().equals(syncedCustomData);
+    }
+
+    private void snapshotController() {
+        DynamicMachine machine = owner.getFoundMachine();
+        syncedMachine = machine;
+        syncedPattern = owner.getFoundPattern();
+        syncedRotation = owner.getControllerRotation();
+        syncedTotalParallelism = machine == null ? 0 : owner.getMaxParallelism();
+        syncedExtraThreadCount = owner.getExtraThreadCount();
+        syncedCustomData = owner.getCustomDataTag().copy();
+    }
+
+    private void snapshot(final List<FactoryRecipeThread> threads) {
+        int size = threads.size();
+        syncedThreads = threads.toArray(new FactoryRecipeThread[0]);
+        syncedActiveRecipes = new ActiveMachineRecipe[size];
+        syncedRecipes = new MachineRecipe[size];
+        syncedTicks = new int[size];
+        syncedTotalTicks = new int[size];
+        syncedParallelism = new int[size];
+        syncedStatus = new CraftingStatus[size];
+        for (int i = 0; i < size; i++) {
+            snapshot(i, syncedThreads[i]);
+        }
+    }
+
+    private void snapshot(final int i, final FactoryRecipeThread thread) {
+        ActiveMachineRecipe activeRecipe = thread.getActiveRecipe();
+        syncedActiveRecipes[i] = activeRecipe;
+        syncedRecipes[i] = activeRecipe == null ? null : activeRecipe.getRecipe();
+        syncedTicks[i] = activeRecipe == null ? 0 : activeRecipe.getTick();
+        syncedTotalTicks[i] = activeRecipe == null ? 0 : activeRecipe.getTotalTick();
+        syncedParallelism[i] = activeRecipe == null ? 0 : activeRecipe.getParallelism();
+        syncedStatus[i] = thread.getStatus();
+    }
+
     @Override
     protected void addPlayerSlots(EntityPlayer opening) {
         for (int i = 0; i < 3; i++) {
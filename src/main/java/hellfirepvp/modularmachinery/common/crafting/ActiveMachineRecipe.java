@@ -70,6 +70,23 @@ public class ActiveMachineRecipe {
         this.data = new NBTTagCompound();
     }
 
+    /**
+     * <p>将一个仅在配方搜索中使用过的实例重置为刚创建时的状态，以便再次用于搜索。</p>
+     *
+     * <p>Resets an instance that was only used by a recipe search to its freshly constructed state,
+     * so it can be used by another search.</p>
+     */
+    public ActiveMachineRecipe reuse(int maxParallelism) {
+        this.tick = 0;
+        this.totalTick = recipe.getRecipeTotalTickTime();
+        this.parallelism = 1;
+        this.maxParallelism = maxParallelism;
+        if (!this.data.isEmpty()) {
+            this.data = new NBTTagCompound();
+        }
+        return this;
+    }
+
     public MachineRecipe getRecipe() {
         return recipe;
     }
@@ -0,0 +1,394 @@
+package hellfirepvp.modularmachinery.common.crafting;
+
+import crafttweaker.util.IEventHandler;
+import github.kasuminova.mmce.common.event.recipe.RecipeCheckEvent;
+import github.kasuminova.mmce.common.upgrade.MachineUpgrade;
+import github.kasuminova.mmce.common.util.OredictCache;
+import hellfirepvp.modularmachinery.common.base.Mods;
+import hellfirepvp.modularmachinery.common.crafting.helper.ComponentRequirement;
+import hellfirepvp.modularmachinery.common.crafting.helper.ProcessingComponent;
+import hellfirepvp.modularmachinery.common.crafting.requirement.RequirementCatalyst;
+import hellfirepvp.modularmachinery.common.crafting.requirement.RequirementFluid;
+import hellfirepvp.modularmachinery.common.crafting.requirement.RequirementGas;
+import hellfirepvp.modularmachinery.common.crafting.requirement.RequirementItem;
+import hellfirepvp.modularmachinery.common.crafting.requirement.type.RequirementType;
+import hellfirepvp.modularmachinery.common.data.Config;
+import hellfirepvp.modularmachinery.common.lib.RequirementTypesMM;
+import hellfirepvp.modularmachinery.common.machine.DynamicMachine;
+import hellfirepvp.modularmachinery.common.machine.IOType;
+import hellfirepvp.modularmachinery.common.machine.MachineComponent;
+import hellfirepvp.modularmachinery.common.machine.RecipeThread;
+import hellfirepvp.modularmachinery.common.modifier.RecipeModifier;
+import hellfirepvp.modularmachinery.common.tiles.base.TileMultiblockMachineController;
+import hellfirepvp.modularmachinery.common.util.MiscUtils;
+import it.unimi.dsi.fastutil.doubles.DoubleArrayList;
+import it.unimi.dsi.fastutil.doubles.DoubleList;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntList;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectOpenHashSet;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectOpenHashMap;
+import mekanism.api.gas.GasStack;
+import mekanism.api.gas.GasTankInfo;
+import mekanism.api.gas.IGasHandler;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.util.ResourceLocation;
+import net.minecraftforge.fluids.FluidStack;
+import net.minecraftforge.fluids.capability.IFluidHandler;
+import net.minecraftforge.fluids.capability.IFluidTankProperties;
+import net.minecraftforge.fml.common.Optional;
+import net.minecraftforge.items.IItemHandler;
+import net.minecraftforge.oredict.OreDictionary;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * <p>机械配方输入索引，在配方注册表加载时为每个机械构建。</p>
+ * <p>每个可索引的输入需求（物品 ID/Meta、矿物辞典、流体、气体）都会分配一个槽位，
+ * 配方搜索时只需扫描一次机械的输入仓，即可跳过所需输入不存在的配方，无需为它们创建 {@code RecipeCraftingContext}。</p>
+ * <p>Per-machine recipe input index, built when the recipe registry is loaded.</p>
+ * <p>Every indexable input requirement (item id/meta, ore dictionary, fluid, gas) gets a slot.
+ * A recipe search scans the machine's input components once and skips every recipe whose
+ * required inputs are absent, without building a {@code RecipeCraftingContext} for it.</p>
+ * <p>Recipes with {@link RecipeCheckEvent} handlers, {@link RequirementCatalyst catalysts} or without any indexable
+ * input are never skipped.</p>
+ */
+public class RecipeInputIndex {
+    /**
+     * <p>结果只取决于机械组件内容的需求类型。</p>
+     * <p>Requirement types whose result only depends on the contents of machine components.</p>
+     */
+    private static final Set<ResourceLocation> COMPONENT_DRIVEN_REQUIREMENTS = new ObjectOpenHashSet<>(new ResourceLocation[]{
+            RequirementTypesMM.KEY_REQUIREMENT_ITEM,
+            RequirementTypesMM.KEY_REQUIREMENT_ITEM_DURABILITY,
+            RequirementTypesMM.KEY_REQUIREMENT_INGREDIENT_ARRAY,
+            RequirementTypesMM.KEY_REQUIREMENT_FLUID,
+            RequirementTypesMM.KEY_REQUIREMENT_FLUID_PERTICK,
+            RequirementTypesMM.KEY_REQUIREMENT_GAS,
+            RequirementTypesMM.KEY_REQUIREMENT_GAS_PERTICK,
+            RequirementTypesMM.KEY_REQUIREMENT_ENERGY,
+            RequirementTypesMM.KEY_REQUIREMENT_DURATION,
+            RequirementTypesMM.KEY_INTERFACE_NUMBER_INPUT,
+    });
+
+    private final Reference2ObjectOpenHashMap<MachineRecipe, int[]> recipeSlots = new Reference2ObjectOpenHashMap<>();
+
+    private final Long2ObjectOpenHashMap<IntList> itemSlots = new Long2ObjectOpenHashMap<>();
+    private final Int2ObjectOpenHashMap<IntList> oreSlots = new Int2ObjectOpenHashMap<>();
+    private final Object2ObjectOpenHashMap<String, IntList> fluidSlots = new Object2ObjectOpenHashMap<>();
+    private final Object2ObjectOpenHashMap<String, IntList> gasSlots = new Object2ObjectOpenHashMap<>();
+
+    private final List<RequirementType<?, ?>> slotTypes = new ArrayList<>();
+    private final DoubleList slotAmounts = new DoubleArrayList();
+
+    private boolean requiresPolling = false;
+
+    public RecipeInputIndex(Iterable<MachineRecipe> recipes) {
+        for (MachineRecipe recipe : recipes) {
+            indexRecipe(recipe);
+        }
+        recipeSlots.trim();
+    }
+
+    /**
+     * <p>为控制器创建一个候选配方过滤器，如果当前机械无法安全地跳过配方则返回 null。</p>
+     * <p>Creates a candidate filter for the given controller,
+     * or null if recipes of the current machine cannot be safely skipped.</p>
+     */
+    @Nullable
+    public static Predicate<MachineRecipe> createCandidateFilter(final TileMultiblockMachineController ctrl,
+                                                                 final DynamicMachine machine,
+                                                                 @Nullable final RecipeThread thread)
+    {
+        if (!Config.enableRecipeInputIndex) {
+            return null;
+        }
+        RecipeInputIndex index = RecipeRegistry.getInputIndex(machine);
+        if (index == null || index.recipeSlots.isEmpty()) {
+            return null;
+        }
+
+        // RecipeCheckEvent handlers may add modifiers at check time, so nothing can be skipped safely.
+        if (hasRecipeCheckEventHandlers(ctrl, machine)) {
+            return null;
+        }
+
+        List<RecipeModifier> modifiers = MiscUtils.flatten(ctrl.getFoundModifiers().values());
+        modifiers.addAll(ctrl.getCustomModifiers().values());
+        if (thread != null) {
+            modifiers.addAll(thread.getSemiPermanentModifiers().values());
+            modifiers.addAll(thread.getPermanentModifiers().values());
+        }
+
+        return index.createFilter(ctrl.getFoundComponents().values(), modifiers);
+    }
+
+    /**
+     * <p>机械或控制器的升级是否注册了 {@link RecipeCheckEvent} 处理器。</p>
+     * <p>Whether the machine or any upgrade of the controller registers a {@link RecipeCheckEvent} handler.</p>
+     */
+    public static boolean hasRecipeCheckEventHandlers(final TileMultiblockMachineController ctrl, final DynamicMachine machine) {
+        if (hasCheckEventHandlers(machine.getMachineEventHandlers(RecipeCheckEvent.class))) {
+            return true;
+        }
+        for (List<MachineUpgrade> upgrades : ctrl.getFoundUpgrades().values()) {
+            for (MachineUpgrade upgrade : upgrades) {
+                if (!upgrade.getEventHandlers(RecipeCheckEvent.class).isEmpty()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean hasCheckEventHandlers(@Nullable List<? extends IEventHandler<?>> handlers) {
+        return handlers != null && !handlers.isEmpty();
+    }
+
+    private static long itemKey(int itemId, int meta) {
+        return ((long) itemId << 32) | (meta & 0xFFFFFFFFL);
+    }
+
+    /**
+     * <p>如果任意配方的检查结果可能在组件内容不变的情况下改变（如 {@link RecipeCheckEvent} 处理器或依赖世界状态的需求），则返回 true。</p>
+     * <p>True if the check result of any recipe may change while the component contents stay the same,
+     * e.g. because of {@link RecipeCheckEvent} handlers or requirements depending on world state.</p>
+     */
+    public boolean requiresPolling() {
+        return requiresPolling;
+    }
+
+    public CandidateFilter createFilter(final Collection<ProcessingComponent<?>> components, final List<RecipeModifier> modifiers) {
+        BitSet present = new BitSet(slotTypes.size());
+        LongOpenHashSet scannedItems = new LongOpenHashSet();
+
+        for (ProcessingComponent<?> component : components) {
+            MachineComponent<?> machineComponent = component.component();
+            if (machineComponent.getIOType() != IOType.INPUT) {
+                continue;
+            }
+            Object provided = component.getProvidedComponent();
+            if (provided instanceof IItemHandler itemHandler) {
+                scanItems(itemHandler, present, scannedItems);
+            }
+            if (provided instanceof IFluidHandler fluidHandler) {
+                scanFluids(fluidHandler, present);
+            }
+            if (Mods.MEKANISM.isPresent()) {
+                scanGases(provided, present);
+            }
+        }
+
+        return new CandidateFilter(present, modifiers);
+    }
+
+    private void scanItems(final IItemHandler handler, final BitSet present, final LongOpenHashSet scannedItems) {
+        for (int slot = 0; slot < handler.getSlots(); slot++) {
+            ItemStack stack = handler.getStackInSlot(slot);
+            if (stack.isEmpty()) {
+                continue;
+            }
+            int itemId = Item.REGISTRY.getIDForObject(stack.getItem());
+            long key = itemKey(itemId, stack.getItemDamage());
+            if (!scannedItems.add(key)) {
+                continue;
+            }
+            markPresent(itemSlots.get(key), present);
+            markPresent(itemSlots.get(itemKey(itemId, OreDictionary.WILDCARD_VALUE)), present);
+            if (!oreSlots.isEmpty()) {
+                for (int oreId : OredictCache.getOreIDsFast(stack)) {
+                    markPresent(oreSlots.get(oreId), present);
+                }
+            }
+        }
+    }
+
+    private void scanFluids(final IFluidHandler handler, final BitSet present) {
+        if (fluidSlots.isEmpty()) {
+            return;
+        }
+        IFluidTankProperties[] properties = handler.getTankProperties();
+        if (properties == null) {
+            return;
+        }
+        for (IFluidTankProperties property : properties) {
+            FluidStack contents = property.getContents();
+            if (contents != null && contents.amount > 0) {
+                markPresent(fluidSlots.get(contents.getFluid().getName()), present);
+            }
+        }
+    }
+
+    @Optional.Method(modid = "mekanism")
+    private void scanGases(final Object provided, final BitSet present) {
+        if (gasSlots.isEmpty() || !(provided instanceof IGasHandler gasHandler)) {
+            return;
+        }
+        for (GasTankInfo info : gasHandler.getTankInfo()) {
+            GasStack stored = info.getGas();
+            if (stored != null && stored.amount > 0) {
+                markPresent(gasSlots.get(stored.getGas().getName()), present);
+            }
+        }
+    }
+
+    private static void markPresent(@Nullable IntList slots, final BitSet present) {
+        if (slots == null) {
+            return;
+        }
+        for (int i = 0; i < slots.size(); i++) {
+            present.set(slots.getInt(i));
+        }
+    }
+
+    private void indexRecipe(final MachineRecipe recipe) {
+        for (ComponentRequirement<?, ?> req : recipe.getCraftingRequirements()) {
+            if (!COMPONENT_DRIVEN_REQUIREMENTS.contains(req.getRequirementType().getRegistryName())) {
+                requiresPolling = true;
+                break;
+            }
+        }
+        if (hasCheckEventHandlers(recipe.getRecipeEventHandlers(RecipeCheckEvent.class))) {
+            requiresPolling = true;
+            return;
+        }
+        // Catalysts add their modifiers to the context at check time, which the filter can not see,
+        // and they may scale an indexed input down to zero.
+        for (ComponentRequirement<?, ?> req : recipe.getCraftingRequirements()) {
+            if (req instanceof RequirementCatalyst) {
+                return;
+            }
+        }
+
+        IntList slots = new IntArrayList();
+        for (ComponentRequirement<?, ?> req : recipe.getCraftingRequirements()) {
+            if (req.getActionType() != IOType.INPUT || req.getTriggerTime() > 0) {
+                continue;
+            }
+
+            int slot = slotTypes.size();
+            boolean indexed;
+            if (req.getClass() == RequirementItem.class) {
+                indexed = indexItem((RequirementItem) req, slot);
+            } else if (req.getClass() == RequirementFluid.class) {
+                indexed = indexFluid((RequirementFluid) req, slot);
+            } else if (Mods.MEKANISM.isPresent()) {
+                indexed = indexGas(req, slot);
+            } else {
+                indexed = false;
+            }
+
+            if (indexed) {
+                slots.add(slot);
+            }
+        }
+
+        if (!slots.isEmpty()) {
+            recipeSlots.put(recipe, slots.toIntArray());
+        }
+    }
+
+    private boolean indexItem(final RequirementItem req, final int slot) {
+        switch (req.requirementType) {
+            case ITEMSTACKS -> {
+                ItemStack required = req.required;
+                if (required.isEmpty()) {
+                    return false;
+                }
+                int itemId = Item.REGISTRY.getIDForObject(required.getItem());
+                addSlot(req, Math.min(req.minAmount, req.maxAmount));
+                itemSlots.computeIfAbsent(itemKey(itemId, required.getItemDamage()), k -> new IntArrayList()).add(slot);
+                return true;
+            }
+            case OREDICT -> {
+                if (req.oreDictName == null || !OreDictionary.doesOreNameExist(req.oreDictName)) {
+                    return false;
+                }
+                addSlot(req, Math.min(req.minAmount, req.maxAmount));
+                oreSlots.computeIfAbsent(OreDictionary.getOreID(req.oreDictName), k -> new IntArrayList()).add(slot);
+                return true;
+            }
+            default -> {
+                return false;
+            }
+        }
+    }
+
+    private boolean indexFluid(final RequirementFluid req, final int slot) {
+        FluidStack required = req.required;
+        if (required == null || required.getFluid() == null) {
+            return false;
+        }
+        addSlot(req, required.amount);
+        fluidSlots.computeIfAbsent(required.getFluid().getName(), k -> new IntArrayList()).add(slot);
+        return true;
+    }
+
+    @Optional.Method(modid = "mekanism")
+    private boolean indexGas(final ComponentRequirement<?, ?> req, final int slot) {
+        if (req.getClass() != RequirementGas.class) {
+            return false;
+        }
+        GasStack required = ((RequirementGas) req).required;
+        if (required == null || required.getGas() == null) {
+            return false;
+        }
+        addSlot(req, required.amount);
+        gasSlots.computeIfAbsent(required.getGas().getName(), k -> new IntArrayList()).add(slot);
+        return true;
+    }
+
+    private void addSlot(final ComponentRequirement<?, ?> req, final double amount) {
+        slotTypes.add(req.getRequirementType());
+        slotAmounts.add(amount);
+    }
+
+    /**
+     * <p>单次配方搜索的候选过滤器，线程封闭，不可跨搜索复用。</p>
+     * <p>Candidate filter of a single recipe search, thread-confined and not reusable across searches.</p>
+     */
+    public final class CandidateFilter implements Predicate<MachineRecipe> {
+        private final BitSet present;
+        private final List<RecipeModifier> modifiers;
+
+        private CandidateFilter(final BitSet present, final List<RecipeModifier> modifiers) {
+            this.present = present;
+            this.modifiers = modifiers;
+        }
+
+        @Override
+        public boolean test(final MachineRecipe recipe) {
+            int[] slots = recipeSlots.get(recipe);
+            if (slots == null) {
+                return true;
+            }
+            for (final int slot : slots) {
+                if (!present.get(slot) && isStillRequired(slot)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Modifiers can scale an input down to zero, in which case the requirement passes without any input.
+         * Only controller and thread modifiers are known here, recipes with catalysts are never indexed.
+         */
+        private boolean isStillRequired(final int slot) {
+            if (modifiers.isEmpty()) {
+                return true;
+            }
+            return RecipeModifier.applyModifiers(modifiers, slotTypes.get(slot), IOType.INPUT, slotAmounts.getDouble(slot), false) >= 1;
+        }
+    }
+}
@@ -39,6 +39,7 @@ public class RecipeRegistry {
     private static final RecipeRegistry INSTANCE = new RecipeRegistry();
     private static final Map<ResourceLocation, TreeMap<Integer, TreeSet<MachineRecipe>>> REGISTRY_RECIPE_BY_MACHINE = new HashMap<>();
     private static final Map<ResourceLocation, MachineRecipe> RECIPE_REGISTRY = new HashMap<>();
+    private static final Map<ResourceLocation, RecipeInputIndex> RECIPE_INPUT_INDEX = new ConcurrentHashMap<>();
 
     private final List<PreparedRecipe> earlyRecipes = new LinkedList<>();
     private final List<RecipeAdapterBuilder> earlyRecipeAdapters = new LinkedList<>();
@@ -59,6 +60,20 @@ public class RecipeRegistry {
         return Iterables.concat(recipes.values());
     }
 
+    @Nullable
+    public static RecipeInputIndex getInputIndex(DynamicMachine machine) {
+        return RECIPE_INPUT_INDEX.get(machine.getRegistryName());
+    }
+
+    private static void rebuildInputIndex(ResourceLocation machineName) {
+        TreeMap<Integer, TreeSet<MachineRecipe>> recipes = REGISTRY_RECIPE_BY_MACHINE.get(machineName);
+        if (recipes == null) {
+            RECIPE_INPUT_INDEX.remove(machineName);
+            return;
+        }
+        RECIPE_INPUT_INDEX.put(machineName, new RecipeInputIndex(Iterables.concat(recipes.values())));
+    }
+
     @Nullable
     public static MachineRecipe getRecipe(ResourceLocation key) {
         return RECIPE_REGISTRY.get(key);
@@ -165,6 +180,10 @@ public class RecipeRegistry {
                 recipeSet.add(recipe);
             }
         }
+
+        for (RecipeAdapterAccessor accessor : RecipeLoader.RECIPE_ADAPTER_ACCESSORS) {
+            rebuildInputIndex(accessor.getOwningMachine());
+        }
     }
 
     public static void registerRecipes(Map<DynamicMachine, List<MachineRecipe>> map) {
@@ -176,6 +195,7 @@ public class RecipeRegistry {
                 TreeSet<MachineRecipe> recipeSet = recipeList.computeIfAbsent(recipe.getConfiguredPriority(), inte -> new TreeSet<>());
                 recipeSet.add(recipe);
             }
+            rebuildInputIndex(machine.getRegistryName());
         }
     }
 
@@ -246,6 +266,7 @@ public class RecipeRegistry {
     public void clearAllRecipes() {
         RECIPE_REGISTRY.clear();
         REGISTRY_RECIPE_BY_MACHINE.clear();
+        RECIPE_INPUT_INDEX.clear();
         this.earlyRecipes.clear();
         this.earlyRecipeAdapters.clear();
     }
@@ -0,0 +1,301 @@
+package hellfirepvp.modularmachinery.common.crafting;
+
+import com.github.bsideup.jabel.Desugar;
+import github.kasuminova.mmce.common.concurrent.TaskExecutor;
+import github.kasuminova.mmce.common.event.recipe.RecipeCheckEvent;
+import hellfirepvp.modularmachinery.common.base.Mods;
+import hellfirepvp.modularmachinery.common.crafting.helper.ComponentRequirement;
+import hellfirepvp.modularmachinery.common.crafting.helper.ProcessingComponent;
+import hellfirepvp.modularmachinery.common.crafting.helper.RecipeCraftingContext;
+import hellfirepvp.modularmachinery.common.crafting.requirement.RequirementFluid;
+import hellfirepvp.modularmachinery.common.crafting.requirement.RequirementGas;
+import hellfirepvp.modularmachinery.common.crafting.requirement.RequirementItem;
+import hellfirepvp.modularmachinery.common.crafting.requirement.type.RequirementType;
+import hellfirepvp.modularmachinery.common.data.Config;
+import hellfirepvp.modularmachinery.common.machine.DynamicMachine;
+import hellfirepvp.modularmachinery.common.machine.IOType;
+import hellfirepvp.modularmachinery.common.machine.RecipeThread;
+import hellfirepvp.modularmachinery.common.modifier.RecipeModifier;
+import hellfirepvp.modularmachinery.common.tiles.base.TileMultiblockMachineController;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import mekanism.api.gas.GasStack;
+import mekanism.api.gas.GasTankInfo;
+import mekanism.api.gas.IGasHandler;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.util.ResourceLocation;
+import net.minecraftforge.fluids.FluidStack;
+import net.minecraftforge.fluids.capability.IFluidHandler;
+import net.minecraftforge.fluids.capability.IFluidTankProperties;
+import net.minecraftforge.fml.common.Optional;
+import net.minecraftforge.items.IItemHandler;
+
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>同一 Tick 内，同类型机械之间共享的配方搜索结果缓存。</p>
+ * <p>以 (机械注册名, 输入仓内容快照, 修改器列表, 最大并行数) 为键，记录因物品/流体/气体输入不足而失败的配方检查结果。
+ * 输入内容完全相同的控制器可以直接复用这些失败结果，而无需再次检查。</p>
+ *
+ * <p>Recipe search results shared between machines of the same type within one tick.</p>
+ * <p>Keyed on (machine registry name, snapshot of the input component contents, modifiers, max parallelism),
+ * it stores the check results of recipes that failed because of missing item, fluid or gas inputs. Controllers
+ * seeing identical inputs in the same tick reuse those failures instead of checking the recipes again.</p>
+ * <p>Only failures caused by plain item/fluid/gas input requirements are shared, their outcome only depends on
+ * what is captured in the key.</p>
+ */
+public class RecipeSearchCache {
+    private static final Map<SearchKey, Map<MachineRecipe, RecipeCraftingContext.CraftingCheckResult>> CACHE = new ConcurrentHashMap<>();
+
+    private static final Comparator<Object> HASH_ORDER = Comparator.comparingInt(Object::hashCode);
+
+    private static final int CONTENTS_ITEM = 0;
+    private static final int CONTENTS_FLUID = 1;
+    private static final int CONTENTS_GAS = 2;
+    private static final int EMPTY = -1;
+
+    private static volatile long cacheTick = -1;
+
+    /**
+     * <p>获取控制器当前输入内容对应的共享缓存，如果当前控制器无法安全共享结果则返回 null。</p>
+     * <p>Returns the shared cache for the current inputs of the controller,
+     * or null if its results cannot be shared safely.</p>
+     */
+    @Nullable
+    public static Entry getEntry(final TileMultiblockMachineController ctrl,
+                                 final DynamicMachine machine,
+                                 @Nullable final RecipeThread thread,
+                                 final int maxParallelism)
+    {
+        if (!Config.enableSharedRecipeSearchCache) {
+            return null;
+        }
+        // RecipeCheckEvent handlers may add modifiers or fail recipes at check time.
+        if (RecipeInputIndex.hasRecipeCheckEventHandlers(ctrl, machine)) {
+            return null;
+        }
+
+        long tick = TaskExecutor.tickExisted;
+        if (cacheTick != tick) {
+            synchronized (CACHE) {
+                if (cacheTick != tick) {
+                    CACHE.clear();
+                    cacheTick = tick;
+                }
+            }
+        }
+
+        List<ModifierKey> modifiers = new ObjectArrayList<>();
+        for (final List<RecipeModifier> found : ctrl.getFoundModifiers().values()) {
+            addModifiers(modifiers, found);
+        }
+        addModifiers(modifiers, ctrl.getCustomModifiers().values());
+        if (thread != null) {
+            addModifiers(modifiers, thread.getSemiPermanentModifiers().values());
+            addModifiers(modifiers, thread.getPermanentModifiers().values());
+        }
+        // Modifiers are applied commutatively, so their order does not matter.
+        modifiers.sort(HASH_ORDER);
+
+        SearchKey key = new SearchKey(machine.getRegistryName(), snapshotInputs(ctrl.getFoundComponents().values()), modifiers, maxParallelism);
+        return new Entry(CACHE.computeIfAbsent(key, v -> new ConcurrentHashMap<>()));
+    }
+
+    /**
+     * <p>需求的检查结果是否只取决于输入仓的内容（不含高级检查器等依赖控制器的逻辑）。</p>
+     * <p>Whether the check result of the requirement only depends on the contents of the input components
+     * (no advanced checkers or other controller dependent logic).</p>
+     */
+    public static boolean isContentDrivenInput(final ComponentRequirement<?, ?> req) {
+        if (req.actionType != IOType.INPUT || req.getTriggerTime() > 0) {
+            return false;
+        }
+        Class<?> reqClass = req.getClass();
+        if (reqClass == RequirementItem.class) {
+            RequirementItem reqItem = (RequirementItem) req;
+            return reqItem.itemChecker == null && reqItem.itemModifierList.isEmpty();
+        }
+        if (reqClass == RequirementFluid.class) {
+            return true;
+        }
+        return Mods.MEKANISM.isPresent() && reqClass == RequirementGas.class;
+    }
+
+    private static void addModifiers(final List<ModifierKey> keys, final Collection<RecipeModifier> modifiers) {
+        for (final RecipeModifier modifier : modifiers) {
+            keys.add(new ModifierKey(modifier.getTarget(), modifier.getIOTarget(), modifier.getModifier(),
+                    modifier.getOperation(), modifier.affectsChance()));
+        }
+    }
+
+    private static List<ComponentContents> snapshotInputs(final Collection<ProcessingComponent<?>> components) {
+        List<ComponentContents> snapshot = new ObjectArrayList<>();
+        IntArrayList values = new IntArrayList();
+        ObjectArrayList<Object> objects = new ObjectArrayList<>();
+        for (final ProcessingComponent<?> component : components) {
+            if (component.component().getIOType() != IOType.INPUT) {
+                continue;
+            }
+            Object provided = component.getProvidedComponent();
+            if (provided instanceof IItemHandler itemHandler) {
+                snapshotItems(itemHandler, values, objects);
+            }
+            if (provided instanceof IFluidHandler fluidHandler) {
+                snapshotFluids(fluidHandler, values, objects);
+            }
+            if (Mods.MEKANISM.isPresent()) {
+                snapshotGases(provided, values, objects);
+            }
+            snapshot.add(new ComponentContents(component.getTag(), values.toIntArray(), objects.toArray()));
+            values.clear();
+            objects.clear();
+        }
+        // The order of components differs between controllers.
+        snapshot.sort(HASH_ORDER);
+        return snapshot;
+    }
+
+    private static void snapshotItems(final IItemHandler handler, final IntArrayList values, final List<Object> objects) {
+        values.add(CONTENTS_ITEM);
+        values.add(handler.getSlots());
+        for (int slot = 0; slot < handler.getSlots(); slot++) {
+            ItemStack stack = handler.getStackInSlot(slot);
+            if (stack.isEmpty()) {
+                values.add(EMPTY);
+                continue;
+            }
+            values.add(stack.getCount());
+            values.add(Item.REGISTRY.getIDForObject(stack.getItem()));
+            values.add(stack.getItemDamage());
+            NBTTagCompound tag = stack.getTagCompound();
+            objects.add(tag == null ? null : tag.copy());
+        }
+    }
+
+    private static void snapshotFluids(final IFluidHandler handler, final IntArrayList values, final List<Object> objects) {
+        IFluidTankProperties[] properties = handler.getTankProperties();
+        values.add(CONTENTS_FLUID);
+        if (properties == null) {
+            values.add(EMPTY);
+            return;
+        }
+        values.add(properties.length);
+        for (IFluidTankProperties property : properties) {
+            FluidStack contents = property.getContents();
+            if (contents == null) {
+                values.add(EMPTY);
+                continue;
+            }
+            values.add(contents.amount);
+            objects.add(contents.getFluid().getName());
+            objects.add(contents.tag == null ? null : contents.tag.copy());
+        }
+    }
+
+    @Optional.Method(modid = "mekanism")
+    private static void snapshotGases(final Object provided, final IntArrayList values, final List<Object> objects) {
+        if (!(provided instanceof IGasHandler gasHandler)) {
+            return;
+        }
+        GasTankInfo[] tankInfo = gasHandler.getTankInfo();
+        values.add(CONTENTS_GAS);
+        values.add(tankInfo.length);
+        for (GasTankInfo info : tankInfo) {
+            GasStack stored = info.getGas();
+            if (stored == null) {
+                values.add(EMPTY);
+                continue;
+            }
+            values.add(stored.amount);
+            objects.add(stored.getGas().getName());
+        }
+    }
+
+    /**
+     * <p>配方是否可以写入共享缓存（配方自身没有 {@link RecipeCheckEvent} 处理器）。</p>
+     * <p>Whether results of the recipe may be shared (the recipe has no {@link RecipeCheckEvent} handlers).</p>
+     */
+    private static boolean isShareable(final MachineRecipe recipe) {
+        List<?> handlers = recipe.getRecipeEventHandlers(RecipeCheckEvent.class);
+        return handlers == null || handlers.isEmpty();
+    }
+
+    public static final class Entry {
+        private final Map<MachineRecipe, RecipeCraftingContext.CraftingCheckResult> failures;
+
+        private Entry(final Map<MachineRecipe, RecipeCraftingContext.CraftingCheckResult> failures) {
+            this.failures = failures;
+        }
+
+        /**
+         * @return 其他控制器在本 Tick 内得到的失败结果，没有则返回 null。
+         * <br>The failure another controller got for this recipe in this tick, or null if there is none.
+         */
+        @Nullable
+        public RecipeCraftingContext.CraftingCheckResult getFailure(final MachineRecipe recipe) {
+            RecipeCraftingContext.CraftingCheckResult failure = failures.get(recipe);
+            // Every controller gets its own copy, the cached result must not see their changes.
+            return failure == null ? null : failure.copy();
+        }
+
+        public void offerResult(final MachineRecipe recipe, final RecipeCraftingContext.CraftingCheckResult result) {
+            if (result.isFailure() && result.isContentInputFailure() && isShareable(recipe)) {
+                failures.putIfAbsent(recipe, result);
+            }
+        }
+    }
+
+    @Desugar
+    private record SearchKey(ResourceLocation machine, List<ComponentContents> inputs, List<ModifierKey> modifiers, int maxParallelism) {
+    }
+
+    @Desugar
+    private record ModifierKey(RequirementType<?, ?> target, IOType ioTarget, float modifier, int operation, boolean affectsChance) {
+    }
+
+    /**
+     * <p>单个输入组件内容的快照，物品与流体的 NBT 均为副本。</p>
+     * <p>A snapshot of the contents of one input component, item and fluid NBT tags are copies.</p>
+     */
+    private static final class ComponentContents {
+        private final Object tag;
+        private final int[] values;
+        private final Object[] objects;
+        private final int hash;
+
+        private ComponentContents(final Object tag, final int[] values, final Object[] objects) {
+            this.tag = tag;
+            this.values = values;
+            this.objects = objects;
+            this.hash = 31 * (31 * Objects.hashCode(tag) + Arrays.hashCode(values)) + Arrays.hashCode(objects);
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof ComponentContents other)) {
+                return false;
+            }
+            return hash == other.hash
+                    && Objects.equals(tag, other.tag)
+                    && Arrays.equals(values, other.values)
+                    && Arrays.equals(objects, other.objects);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
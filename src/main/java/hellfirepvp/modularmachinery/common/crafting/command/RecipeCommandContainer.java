@@ -38,6 +38,18 @@ public class RecipeCommandContainer {
         this.finishCommands.add(command);
     }
 
+    public boolean hasStartCommands() {
+        return !this.startCommands.isEmpty();
+    }
+
+    public boolean hasTickCommands() {
+        return !this.processingCommands.isEmpty();
+    }
+
+    public boolean hasFinishCommands() {
+        return !this.finishCommands.isEmpty();
+    }
+
     public void runStartCommands(ICommandSender sender) {
         this.startCommands.forEach(cmd -> cmd.run(sender, 0));
     }
@@ -11,17 +11,22 @@ package hellfirepvp.modularmachinery.common.crafting.helper;
 import github.kasuminova.mmce.common.concurrent.Sync;
 import github.kasuminova.mmce.common.event.Phase;
 import github.kasuminova.mmce.common.event.recipe.ResultChanceCreateEvent;
+import github.kasuminova.mmce.common.util.concurrent.Action;
 import hellfirepvp.modularmachinery.common.crafting.ActiveMachineRecipe;
 import hellfirepvp.modularmachinery.common.crafting.MachineRecipe;
+import hellfirepvp.modularmachinery.common.crafting.RecipeSearchCache;
 import hellfirepvp.modularmachinery.common.crafting.command.ControllerCommandSender;
+import hellfirepvp.modularmachinery.common.crafting.command.RecipeCommandContainer;
 import hellfirepvp.modularmachinery.common.crafting.requirement.type.RequirementType;
 import hellfirepvp.modularmachinery.common.data.Config;
 import hellfirepvp.modularmachinery.common.lib.RequirementTypesMM;
 import hellfirepvp.modularmachinery.common.machine.IOType;
 import hellfirepvp.modularmachinery.common.modifier.RecipeModifier;
+import hellfirepvp.modularmachinery.common.modifier.RecipeModifierTable;
 import hellfirepvp.modularmachinery.common.modifier.SingleBlockModifierReplacement;
 import hellfirepvp.modularmachinery.common.tiles.base.TileMultiblockMachineController;
 import hellfirepvp.modularmachinery.common.util.Asyncable;
+import hellfirepvp.modularmachinery.common.util.ComponentSyncable;
 import hellfirepvp.modularmachinery.common.util.ResultChance;
 import it.unimi.dsi.fastutil.objects.Object2ObjectArrayMap;
 import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
@@ -29,8 +34,6 @@ import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Predicate;
@@ -48,9 +51,14 @@ public class RecipeCraftingContext {
 
     private final int reloadCounter;
 
-    private final Map<RequirementType<?, ?>, List<RecipeModifier>> modifiers = new ConcurrentHashMap<>();
-    private final Map<RequirementType<?, ?>, RecipeModifier.ModifierApplier> modifierAppliers = new ConcurrentHashMap<>();
-    private final Map<RequirementType<?, ?>, RecipeModifier.ModifierApplier> chanceModifierAppliers = new ConcurrentHashMap<>();
+    /**
+     * <p>控制器共享的修改器表，与上下文自身的修改器（线程修改器、催化剂等，记录在 {@link #contextModifiers} 中）合并后的结果。</p>
+     *
+     * <p>The modifier table shared by the controller, merged with the context's own modifiers
+     * (thread modifiers, catalysts, etc., recorded in {@link #contextModifiers}).</p>
+     */
+    private volatile RecipeModifierTable modifierTable = RecipeModifierTable.EMPTY;
+    private final List<RecipeModifier> contextModifiers = new ArrayList<>();
 
     private final List<RecipeModifier> permanentModifierList = new ArrayList<>();
 
@@ -60,6 +68,13 @@ public class RecipeCraftingContext {
     private final List<RequirementComponents> requirementComponents = new ArrayList<>();
 
     private ActiveMachineRecipe activeRecipe;
+    /**
+     * <p>{@link #requirements} 深拷贝自的配方，上下文归还到池中后仍然保留，相同配方再次借出时无需重新拷贝需求。</p>
+     *
+     * <p>The recipe {@link #requirements} were deep-copied from. Kept while the context sits in the pool,
+     * so borrowing it again for the same recipe does not copy the requirements again.</p>
+     */
+    private MachineRecipe copiedRecipe;
     private TileMultiblockMachineController controller = null;
     private ControllerCommandSender commandSender = null;
 
@@ -73,6 +88,7 @@ public class RecipeCraftingContext {
     {
         this.reloadCounter = reloadCounter;
         this.activeRecipe = activeRecipe;
+        this.copiedRecipe = activeRecipe.getRecipe();
         for (ComponentRequirement<?, ?> requirement : getParentRecipe().getCraftingRequirements()) {
             this.requirements.add(this.requirements.size(), requirement.deepCopy().postDeepCopy(requirement));
         }
@@ -81,9 +97,8 @@ public class RecipeCraftingContext {
     }
 
     public RecipeCraftingContext reset() {
-        this.modifiers.clear();
-        this.modifierAppliers.clear();
-        this.chanceModifierAppliers.clear();
+        this.modifierTable = RecipeModifierTable.EMPTY;
+        this.contextModifiers.clear();
         this.permanentModifierList.clear();
         this.currentRestrictions.clear();
 
@@ -92,12 +107,18 @@ public class RecipeCraftingContext {
     }
 
     public RecipeCraftingContext resetAll() {
-        setParallelism(1);
+        // Detach the active recipe without touching it, it may already be handed to another search or thread.
         this.activeRecipe = null;
         this.controller = null;
         this.commandSender = null;
         this.typeComponents = null;
         this.requirementComponents.clear();
+        for (ComponentRequirement<?, ?> requirement : requirements) {
+            requirement.setTriggered(false);
+            if (requirement instanceof ComponentRequirement.Parallelizable parallelizable) {
+                parallelizable.setParallelism(1);
+            }
+        }
 
         return reset();
     }
@@ -105,22 +126,24 @@ public class RecipeCraftingContext {
     public void destroy() {
         resetAll();
         this.requirements.clear();
+        this.copiedRecipe = null;
     }
 
     public RecipeCraftingContext init(final ActiveMachineRecipe activeRecipe,
                                       final TileMultiblockMachineController ctrl)
     {
+        if (this.controller != ctrl) {
+            this.commandSender = null;
+        }
         this.controller = ctrl;
-        if (this.activeRecipe == null || this.activeRecipe.getRecipe() != activeRecipe.getRecipe()) {
-            this.activeRecipe = activeRecipe;
+        this.activeRecipe = activeRecipe;
+        if (this.copiedRecipe != activeRecipe.getRecipe()) {
+            this.copiedRecipe = activeRecipe.getRecipe();
             this.requirements.clear();
             for (ComponentRequirement<?, ?> requirement : getParentRecipe().getCraftingRequirements()) {
                 this.requirements.add(this.requirements.size(), requirement.deepCopy().postDeepCopy(requirement));
             }
-        } else {
-            this.activeRecipe = activeRecipe;
         }
-        this.commandSender = new ControllerCommandSender(this.controller);
 
         reset();
         updateComponents(ctrl.getFoundComponents().values());
@@ -143,16 +166,37 @@ public class RecipeCraftingContext {
         return activeRecipe;
     }
 
+    /**
+     * <p>命令发送者仅在配方确实执行命令时才创建。</p>
+     *
+     * <p>The command sender is only created once the recipe actually runs commands.</p>
+     */
+    private ControllerCommandSender getCommandSender() {
+        ControllerCommandSender commandSender = this.commandSender;
+        if (commandSender == null) {
+            commandSender = this.commandSender = new ControllerCommandSender(this.controller);
+        }
+        return commandSender;
+    }
+
+    /**
+     * <p>返回该需求类型的修改器，列表为只读，添加修改器请使用 {@link #addModifier(RecipeModifier)}。</p>
+     *
+     * <p>Returns the modifiers of the requirement type. The list is read-only, use {@link #addModifier(RecipeModifier)}
+     * to add modifiers.</p>
+     */
     @Nonnull
     public List<RecipeModifier> getModifiers(RequirementType<?, ?> target) {
-        return modifiers.computeIfAbsent(target, t -> new CopyOnWriteArrayList<>());
+        return modifierTable.getModifiers(target);
     }
 
     @Nonnull
     public RecipeModifier.ModifierApplier getModifierApplier(RequirementType<?, ?> target, boolean isChance) {
-        return isChance
-                ? chanceModifierAppliers.getOrDefault(target, RecipeModifier.ModifierApplier.DEFAULT_APPLIER)
-                : modifierAppliers.getOrDefault(target, RecipeModifier.ModifierApplier.DEFAULT_APPLIER);
+        return modifierTable.getApplier(target, isChance);
+    }
+
+    public RecipeModifierTable getModifierTable() {
+        return modifierTable;
     }
 
     public float getDurationMultiplier() {
@@ -210,7 +254,15 @@ public class RecipeCraftingContext {
             }
 
             if (perTickReq instanceof ComponentRequirement.PerTickMultiComponent<?, ?> reqMultiComp) {
-                CraftCheck result = reqMultiComp.doIOTick(reqComponent.components(), this, durMultiplier);
+                List<ProcessingComponent<?>> components = reqComponent.components();
+                CraftCheck result;
+                if (reqMultiComp instanceof ComponentSyncable) {
+                    AtomicReference<CraftCheck> syncResult = new AtomicReference<>();
+                    doSyncAction(components, () -> syncResult.set(reqMultiComp.doIOTick(components, this, durMultiplier)));
+                    result = syncResult.get();
+                } else {
+                    result = reqMultiComp.doIOTick(components, this, durMultiplier);
+                }
                 if (!result.isSuccess()) {
                     currentIOTickIndex = i;
                     checkResult.addError(result.getUnlocalizedMessage());
@@ -227,7 +279,7 @@ public class RecipeCraftingContext {
                 if (perTickReq instanceof Asyncable) {
                     result.set(perTickReq.doIOTick(component, this));
                 } else {
-                    Sync.doSyncAction(() -> result.set(perTickReq.doIOTick(component, this)));
+                    doSyncAction(perTickReq, component, () -> result.set(perTickReq.doIOTick(component, this)));
                 }
                 if (result.get().isSuccess()) {
                     break;
@@ -243,7 +295,10 @@ public class RecipeCraftingContext {
         }
         currentIOTickIndex = 0;
 
-        this.getParentRecipe().getCommandContainer().runTickCommands(this.commandSender, currentTick);
+        RecipeCommandContainer commands = this.getParentRecipe().getCommandContainer();
+        if (commands.hasTickCommands()) {
+            commands.runTickCommands(getCommandSender(), currentTick);
+        }
 
         return CraftingCheckResult.SUCCESS;
     }
@@ -291,14 +346,22 @@ public class RecipeCraftingContext {
             }
         }
 
-        this.getParentRecipe().getCommandContainer().runStartCommands(this.commandSender);
+        RecipeCommandContainer commands = this.getParentRecipe().getCommandContainer();
+        if (commands.hasStartCommands()) {
+            commands.runStartCommands(getCommandSender());
+        }
     }
 
     private void startCrafting(final ResultChance chance, final RequirementComponents reqComponents) {
         ComponentRequirement<?, ?> requirement = reqComponents.requirement();
 
         if (requirement instanceof ComponentRequirement.MultiComponent req) {
-            req.startCrafting(reqComponents.components(), this, chance);
+            List<ProcessingComponent<?>> components = reqComponents.components();
+            if (requirement instanceof ComponentSyncable) {
+                doSyncAction(components, () -> req.startCrafting(components, this, chance));
+            } else {
+                req.startCrafting(components, this, chance);
+            }
             return;
         }
 
@@ -308,7 +371,7 @@ public class RecipeCraftingContext {
             if (requirement instanceof Asyncable) {
                 success.set(requirement.startCrafting(component, this, chance));
             } else {
-                Sync.doSyncAction(() -> success.set(requirement.startCrafting(component, this, chance)));
+                doSyncAction(requirement, component, () -> success.set(requirement.startCrafting(component, this, chance)));
             }
             if (success.get()) {
                 requirement.endRequirementCheck();
@@ -318,22 +381,55 @@ public class RecipeCraftingContext {
         requirement.endRequirementCheck();
     }
 
+    /**
+     * <p>只访问自身组件的需求仅锁定该组件，其他需求（包括附属模组的需求）仍使用全局同步。</p>
+     * <p>Requirements that only touch their own component lock just that component,
+     * any other requirement (including addon ones) keeps the global lock.</p>
+     */
+    private static void doSyncAction(final ComponentRequirement<?, ?> requirement, final ProcessingComponent<?> component, final Action action) {
+        if (requirement instanceof ComponentSyncable) {
+            Sync.doSyncAction(component.providedComponent(), action);
+        } else {
+            Sync.doSyncAction(action);
+        }
+    }
+
+    /**
+     * <p>多组件需求一次操作所有组件，按固定顺序锁定全部组件，使模拟与实际的输入输出之间不会被其他线程打断。</p>
+     * <p>Multi-component requirements work on all their components at once, so every component is locked in a fixed
+     * order and other threads cannot step in between the simulated and the actual IO.</p>
+     */
+    private static void doSyncAction(final List<ProcessingComponent<?>> components, final Action action) {
+        Object[] provided = new Object[components.size()];
+        for (int i = 0; i < provided.length; i++) {
+            provided[i] = components.get(i).providedComponent();
+        }
+        Sync.doSyncAction(provided, action);
+    }
+
     public void finishCrafting() {
         finishCrafting(RAND.nextLong());
     }
 
     public void finishCrafting(long seed) {
-        ResultChanceCreateEvent event = new ResultChanceCreateEvent(
-                controller, this, new ResultChance(seed), Phase.END);
-        event.postEvent();
-        ResultChance chance = event.getResultChance();
+        ResultChance chance = new ResultChance(seed);
+        if (controller.hasEventListeners(ResultChanceCreateEvent.class, getParentRecipe())) {
+            ResultChanceCreateEvent event = new ResultChanceCreateEvent(controller, this, chance, Phase.END);
+            event.postEvent();
+            chance = event.getResultChance();
+        }
 
         for (RequirementComponents reqComponents : requirementComponents) {
             ComponentRequirement<?, ?> requirement = reqComponents.requirement();
             List<ProcessingComponent<?>> components = reqComponents.components();
 
             if (requirement instanceof ComponentRequirement.MultiComponent reqMulti) {
-                reqMulti.finishCrafting(components, this, chance);
+                if (requirement instanceof ComponentSyncable) {
+                    ResultChance finalChance = chance;
+                    doSyncAction(components, () -> reqMulti.finishCrafting(components, this, finalChance));
+                } else {
+                    reqMulti.finishCrafting(components, this, chance);
+                }
                 continue;
             }
 
@@ -343,7 +439,7 @@ public class RecipeCraftingContext {
                 if (requirement instanceof Asyncable) {
                     check.set(requirement.finishCrafting(component, this, chance));
                 } else {
-                    Sync.doSyncAction(() -> check.set(requirement.finishCrafting(component, this, chance)));
+                    doSyncAction(requirement, component, () -> check.set(requirement.finishCrafting(component, this, chance)));
                 }
                 if (check.get().isSuccess()) {
                     break;
@@ -352,7 +448,10 @@ public class RecipeCraftingContext {
             requirement.endRequirementCheck();
         }
 
-        this.getParentRecipe().getCommandContainer().runFinishCommands(this.commandSender);
+        RecipeCommandContainer commands = this.getParentRecipe().getCommandContainer();
+        if (commands.hasFinishCommands()) {
+            commands.runFinishCommands(getCommandSender());
+        }
     }
 
     public List<RequirementComponents> getAllParallelizableComponents() {
@@ -437,23 +536,22 @@ public class RecipeCraftingContext {
 
     public CraftingCheckResult canStartCrafting(Predicate<RequirementComponents> filter) {
         currentRestrictions.clear();
-        List<RequirementComponents> requirements = new ArrayList<>();
-        for (RequirementComponents requirementComponent : this.requirementComponents) {
-            if (filter.test(requirementComponent)) {
-                requirements.add(requirementComponent);
-            }
-        }
         CraftingCheckResult result = new CraftingCheckResult();
         float successfulRequirements = 0;
+        int checkedRequirements = 0;
 
         ReqCompMap typeCopiedComp = new ReqCompMap();
         TaggedReqCompMap taggedTypeCopiedComp = new TaggedReqCompMap();
-        for (RequirementComponents reqEntry : requirements) {
+        for (RequirementComponents reqEntry : this.requirementComponents) {
+            if (!filter.test(reqEntry)) {
+                continue;
+            }
+            checkedRequirements++;
             if (canStartCrafting(result, reqEntry, typeCopiedComp, taggedTypeCopiedComp)) {
                 successfulRequirements++;
             }
         }
-        result.setValidity(successfulRequirements / requirements.size());
+        result.setValidity(successfulRequirements / checkedRequirements);
 
         currentRestrictions.clear();
         return result;
@@ -476,10 +574,13 @@ public class RecipeCraftingContext {
                     return true;
                 }
                 result.addError(check.getUnlocalizedMessage());
+                if (RecipeSearchCache.isContentDrivenInput(req)) {
+                    result.contentInputFailure = true;
+                }
                 return false;
             }
 
-            List<String> errorMessages = new ArrayList<>();
+            List<String> errorMessages = null;
             for (ProcessingComponent<?> component : compList) {
                 CraftCheck check = req.canStartCrafting(component, this, this.currentRestrictions);
 
@@ -489,15 +590,23 @@ public class RecipeCraftingContext {
                 }
 
                 if (!check.isInvalid() && !check.getUnlocalizedMessage().isEmpty()) {
+                    if (errorMessages == null) {
+                        errorMessages = new ArrayList<>(compList.size());
+                    }
                     errorMessages.add(check.getUnlocalizedMessage());
                 }
             }
-            errorMessages.forEach(result::addError);
+            if (errorMessages != null) {
+                errorMessages.forEach(result::addError);
+            }
         } else {
             // No component found that would apply for the given req
             result.addError(req.getMissingComponentErrorMessage(req.actionType));
         }
 
+        if (RecipeSearchCache.isContentDrivenInput(req)) {
+            result.contentInputFailure = true;
+        }
         req.endRequirementCheck();
         return false;
     }
@@ -538,39 +647,19 @@ public class RecipeCraftingContext {
 
     public void addModifier(RecipeModifier modifier) {
         if (modifier != null) {
-            RequirementType<?, ?> target = modifier.getTarget();
-            if (target == null) {
-                target = RequirementTypesMM.REQUIREMENT_DURATION;
-            }
-            this.modifiers.computeIfAbsent(target, t -> new CopyOnWriteArrayList<>()).add(modifier);
-            updateModifierApplier(target);
+            addModifier(Collections.singletonList(modifier));
         }
     }
 
     public void addModifier(Collection<RecipeModifier> modifiers) {
-        Set<RequirementType<?, ?>> changed = new HashSet<>();
-
-        for (RecipeModifier modifier : modifiers) {
-            RequirementType<?, ?> target = modifier.getTarget();
-            if (target == null) {
-                target = RequirementTypesMM.REQUIREMENT_DURATION;
-            }
-            this.modifiers.computeIfAbsent(target, t -> new CopyOnWriteArrayList<>()).add(modifier);
-            changed.add(target);
-        }
-
-        changed.forEach(this::updateModifierApplier);
-    }
-
-    public void addModifier(List<RecipeModifier> modifiers) {
         if (modifiers.isEmpty()) {
             return;
         }
-        if (modifiers.size() == 1) {
-            addModifier(modifiers.get(0));
-            return;
-        }
+        this.contextModifiers.addAll(modifiers);
+        this.modifierTable = this.modifierTable.with(modifiers);
+    }
 
+    public void addModifier(List<RecipeModifier> modifiers) {
         addModifier((Collection<RecipeModifier>) modifiers);
     }
 
@@ -581,30 +670,70 @@ public class RecipeCraftingContext {
         }
     }
 
+    /**
+     * <p>替换控制器共享的修改器表，上下文自身的修改器保持不变。</p>
+     *
+     * <p>Replaces the modifier table shared by the controller, the context's own modifiers are kept.</p>
+     */
+    public void setBaseModifierTable(RecipeModifierTable baseModifierTable) {
+        this.modifierTable = baseModifierTable.with(contextModifiers);
+    }
+
+    /**
+     * <p>使控制器的修改器表失效，并以控制器当前的修改器重建本上下文的修改器。</p>
+     *
+     * <p>Invalidates the controller's modifier table and rebuilds the modifiers of this context from the
+     * controller's current modifiers.</p>
+     *
+     * @deprecated 修改器表现在按需重建，修改控制器的修改器后调用 {@link TileMultiblockMachineController#invalidateModifierTable()}。
+     * <br>Modifier tables are rebuilt on demand, call {@link TileMultiblockMachineController#invalidateModifierTable()}
+     * after changing the controller's modifiers.
+     */
+    @Deprecated
     public void updateModifierApplier(RequirementType<?, ?> reqType) {
-        addModifierApplier(reqType, modifiers.computeIfAbsent(reqType, v -> new CopyOnWriteArrayList<>()));
+        if (controller == null) {
+            return;
+        }
+        controller.invalidateModifierTable();
+        setBaseModifierTable(controller.getModifierTable());
     }
 
+    /**
+     * <p>将给定修改器中本上下文尚未包含的部分加入该需求类型，并使控制器的修改器表失效。</p>
+     *
+     * <p>Adds the given modifiers this context does not hold yet to the requirement type, and invalidates the
+     * controller's modifier table.</p>
+     *
+     * @deprecated 使用 {@link #addModifier(Collection)}。<br>Use {@link #addModifier(Collection)}.
+     */
+    @Deprecated
     public void addModifierApplier(final RequirementType<?, ?> reqType, final List<RecipeModifier> recipeModifiers) {
-        RecipeModifier.ModifierApplier applier = new RecipeModifier.ModifierApplier();
-        RecipeModifier.ModifierApplier chancedApplier = new RecipeModifier.ModifierApplier();
-
-        recipeModifiers.forEach(mod -> RecipeModifier.applyValueToApplier(mod.affectsChance() ? chancedApplier : applier, mod));
-
-        if (!applier.isDefault()) {
-            modifierAppliers.put(reqType, applier);
-        }
-        if (!chancedApplier.isDefault()) {
-            chanceModifierAppliers.put(reqType, chancedApplier);
+        updateModifierApplier(reqType);
+        List<RecipeModifier> present = getModifiers(reqType);
+        List<RecipeModifier> added = new ArrayList<>();
+        for (final RecipeModifier modifier : recipeModifiers) {
+            if (modifier != null && !present.contains(modifier)) {
+                added.add(modifier);
+            }
         }
+        addModifier(added);
     }
 
     public void overrideModifier(Collection<RecipeModifier> modifiers) {
-        this.modifiers.clear();
-        this.modifierAppliers.clear();
-        this.chanceModifierAppliers.clear();
-        addModifier(modifiers);
-        addModifier(permanentModifierList);
+        overrideModifier(RecipeModifierTable.of(modifiers), Collections.emptyList());
+    }
+
+    /**
+     * <p>以控制器共享的修改器表与给定的上下文修改器重建修改器，之前添加的永久修改器会被保留。</p>
+     *
+     * <p>Rebuilds the modifiers from the controller's shared table and the given context modifiers,
+     * permanent modifiers added earlier are kept.</p>
+     */
+    public void overrideModifier(RecipeModifierTable baseModifierTable, Collection<RecipeModifier> modifiers) {
+        this.contextModifiers.clear();
+        this.contextModifiers.addAll(modifiers);
+        this.contextModifiers.addAll(permanentModifierList);
+        setBaseModifierTable(baseModifierTable);
     }
 
     public static class CraftingCheckResult {
@@ -630,11 +759,16 @@ public class RecipeCraftingContext {
             }
         };
 
-        private final Map<String, Integer> unlocErrorMessagesMap = new HashMap<>();
+        // Created on the first error, successful checks never allocate it.
+        private Map<String, Integer> unlocErrorMessagesMap = null;
         public float validity = 0F;
+        private boolean contentInputFailure = false;
 
         public void addError(String unlocError) {
             if (!unlocError.isEmpty()) {
+                if (this.unlocErrorMessagesMap == null) {
+                    this.unlocErrorMessagesMap = new HashMap<>();
+                }
                 int count = this.unlocErrorMessagesMap.getOrDefault(unlocError, 0);
                 count++;
                 this.unlocErrorMessagesMap.put(unlocError, count);
@@ -642,7 +776,9 @@ public class RecipeCraftingContext {
         }
 
         public void overrideError(String unlocError) {
-            this.unlocErrorMessagesMap.clear();
+            if (this.unlocErrorMessagesMap != null) {
+                this.unlocErrorMessagesMap.clear();
+            }
             addError(unlocError);
         }
 
@@ -655,6 +791,9 @@ public class RecipeCraftingContext {
         }
 
         public List<String> getUnlocalizedErrorMessages() {
+            if (this.unlocErrorMessagesMap == null) {
+                return Collections.emptyList();
+            }
             List<Map.Entry<String, Integer>> toSort = new ArrayList<>(this.unlocErrorMessagesMap.entrySet());
             toSort.sort(Map.Entry.comparingByValue());
             List<String> list = new ArrayList<>();
@@ -671,11 +810,37 @@ public class RecipeCraftingContext {
         }
 
         public boolean isFailure() {
-            return !this.unlocErrorMessagesMap.isEmpty();
+            return this.unlocErrorMessagesMap != null && !this.unlocErrorMessagesMap.isEmpty();
+        }
+
+        /**
+         * <p>失败是否由只取决于输入仓内容的需求（物品、流体、气体）导致，用于 {@link RecipeSearchCache}。</p>
+         * <p>Whether the failure was caused by a requirement depending only on input contents
+         * (item, fluid, gas), used by {@link RecipeSearchCache}.</p>
+         */
+        public boolean isContentInputFailure() {
+            return contentInputFailure;
         }
 
         public boolean isSuccess() {
-            return this.unlocErrorMessagesMap.isEmpty();
+            return this.unlocErrorMessagesMap == null || this.unlocErrorMessagesMap.isEmpty();
+        }
+
+        /**
+         * <p>复制该结果，副本与原结果的错误信息互不影响。</p>
+         * <p>Copies this result, changing the errors of the copy does not change this result and vice versa.</p>
+         */
+        public CraftingCheckResult copy() {
+            if (this == SUCCESS) {
+                return SUCCESS;
+            }
+            CraftingCheckResult copy = new CraftingCheckResult();
+            if (this.unlocErrorMessagesMap != null) {
+                copy.unlocErrorMessagesMap = new HashMap<>(this.unlocErrorMessagesMap);
+            }
+            copy.validity = this.validity;
+            copy.contentInputFailure = this.contentInputFailure;
+            return copy;
         }
 
     }
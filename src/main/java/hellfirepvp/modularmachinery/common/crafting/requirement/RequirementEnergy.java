@@ -9,6 +9,7 @@
 package hellfirepvp.modularmachinery.common.crafting.requirement;
 
 import com.google.common.collect.Lists;
+import github.kasuminova.mmce.common.util.EnergyPool;
 import hellfirepvp.modularmachinery.common.crafting.helper.ComponentRequirement;
 import hellfirepvp.modularmachinery.common.crafting.helper.CraftCheck;
 import hellfirepvp.modularmachinery.common.crafting.helper.ProcessingComponent;
@@ -27,6 +28,7 @@ import hellfirepvp.modularmachinery.common.util.IEnergyHandlerImpl;
 import net.minecraft.util.ResourceLocation;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -159,20 +161,34 @@ public class RequirementEnergy extends ComponentRequirement.PerTickParallelizabl
         long required = (long) RecipeModifier.applyModifiers(context, this, (double) this.requirementPerTick, false);
         long maxRequired = (long) (required * maxMultiplier);
 
+        // Untagged requirements use every hatch of their direction: the pooled ones through the controller's pool,
+        // the ones shared with other controllers or tagged requirements directly.
+        EnergyPool pool = context.getMachineController().getEnergyPool(actionType);
+        boolean usePool = pool != null && tag == null;
+
         List<IEnergyHandler> handlers;
-        if (components.size() == 1) {
+        if (usePool) {
+            handlers = new ArrayList<>(components.size() + 1);
+            handlers.add(pool);
+            for (final ProcessingComponent<?> component : components) {
+                IEnergyHandler handler = (IEnergyHandler) component.getProvidedComponent();
+                if (!pool.contains(handler)) {
+                    handlers.add(handler);
+                }
+            }
+        } else if (components.size() == 1) {
             handlers = Collections.singletonList((IEnergyHandler) components.get(0).getProvidedComponent());
         } else {
             handlers = Lists.transform(components, component -> component != null ? (IEnergyHandler) component.getProvidedComponent() : null);
         }
 
-        float consumed = consumeOrInsertEnergy(handlers, maxRequired, required, maxMultiplier, true);
+        float consumed = consumeOrInsertEnergy(handlers, maxRequired, required, maxMultiplier, true, null);
         if (simulate) {
             return consumed;
         }
 
         if (consumed >= maxMultiplier) {
-            return consumeOrInsertEnergy(handlers, maxRequired, required, maxMultiplier, false);
+            return consumeOrInsertEnergy(handlers, maxRequired, required, maxMultiplier, false, pool);
         } else {
             return 0;
         }
@@ -182,7 +198,8 @@ public class RequirementEnergy extends ComponentRequirement.PerTickParallelizabl
                                         final double total,
                                         final long required,
                                         final float multiplier,
-                                        final boolean simulate)
+                                        final boolean simulate,
+                                        @Nullable final EnergyPool pool)
     {
         double maxRequired = total;
         switch (actionType) {
@@ -192,13 +209,14 @@ public class RequirementEnergy extends ComponentRequirement.PerTickParallelizabl
                     long toConsume = (long) Math.min(current, maxRequired);
                     if (!simulate) {
                         if (handler instanceof IEnergyHandlerAsync handlerAsync) {
-                            if (handlerAsync.extractEnergy(toConsume)) {
-                                maxRequired -= toConsume;
+                            if (!handlerAsync.extractEnergy(toConsume)) {
+                                continue;
                             }
                         } else {
                             handler.setCurrentEnergy(current - toConsume);
-                            maxRequired -= toConsume;
                         }
+                        maxRequired -= toConsume;
+                        recordUntracked(pool, handler, toConsume);
                     } else {
                         maxRequired -= toConsume;
                     }
@@ -210,13 +228,14 @@ public class RequirementEnergy extends ComponentRequirement.PerTickParallelizabl
                     long toReceive = (long) Math.min(remaining, maxRequired);
                     if (!simulate) {
                         if (handler instanceof IEnergyHandlerAsync handlerAsync) {
-                            if (handlerAsync.receiveEnergy(toReceive)) {
-                                maxRequired -= toReceive;
+                            if (!handlerAsync.receiveEnergy(toReceive)) {
+                                continue;
                             }
                         } else {
                             handler.setCurrentEnergy(handler.getCurrentEnergy() + toReceive);
-                            maxRequired -= toReceive;
                         }
+                        maxRequired -= toReceive;
+                        recordUntracked(pool, handler, toReceive);
                     } else {
                         maxRequired -= toReceive;
                     }
@@ -229,4 +248,13 @@ public class RequirementEnergy extends ComponentRequirement.PerTickParallelizabl
         }
         return multiplier;
     }
+
+    /**
+     * 直接与能量仓交换的能量不经过能量池，需要单独计入能量池的每 Tick 统计。
+     */
+    private static void recordUntracked(@Nullable final EnergyPool pool, final IEnergyHandler handler, final long energy) {
+        if (pool != null && handler != pool) {
+            pool.recordUntracked(energy);
+        }
+    }
 }
@@ -21,6 +21,7 @@ import hellfirepvp.modularmachinery.common.machine.IOType;
 import hellfirepvp.modularmachinery.common.machine.MachineComponent;
 import hellfirepvp.modularmachinery.common.modifier.RecipeModifier;
 import hellfirepvp.modularmachinery.common.util.Asyncable;
+import hellfirepvp.modularmachinery.common.util.ComponentSyncable;
 import hellfirepvp.modularmachinery.common.util.HybridFluidUtils;
 import hellfirepvp.modularmachinery.common.util.ResultChance;
 import net.minecraft.nbt.NBTTagCompound;
@@ -35,7 +36,7 @@ import java.util.List;
 
 @SuppressWarnings({"rawtypes", "unchecked"})
 public class RequirementFluid extends ComponentRequirement.MultiCompParallelizable<Object, RequirementTypeFluid>
-        implements ComponentRequirement.ChancedRequirement, Asyncable {
+        implements ComponentRequirement.ChancedRequirement, Asyncable, ComponentSyncable {
 
     public final FluidStack required;
 
@@ -192,9 +193,11 @@ public class RequirementFluid extends ComponentRequirement.MultiCompParallelizab
             return 0;
         }
 
-        HybridFluidUtils.doDrainOrFill(stack, totalIO, fluidHandlers, actionType);
+        // Only move whole multiples, requirements sharing the simulated components must see the exact remainder.
+        int multiplier = (int) (totalIO / required);
+        HybridFluidUtils.doDrainOrFill(stack, required * multiplier, fluidHandlers, actionType);
 
-        return (int) (totalIO / required);
+        return multiplier;
     }
 
 }
@@ -12,6 +12,7 @@ import hellfirepvp.modularmachinery.common.lib.RequirementTypesMM;
 import hellfirepvp.modularmachinery.common.machine.IOType;
 import hellfirepvp.modularmachinery.common.machine.MachineComponent;
 import hellfirepvp.modularmachinery.common.modifier.RecipeModifier;
+import hellfirepvp.modularmachinery.common.util.ComponentSyncable;
 import hellfirepvp.modularmachinery.common.util.HybridFluidUtils;
 import net.minecraft.nbt.NBTTagCompound;
 import net.minecraft.util.ResourceLocation;
@@ -23,7 +24,7 @@ import java.util.Collections;
 import java.util.List;
 
 public class RequirementFluidPerTick extends ComponentRequirement.PerTickParallelizable<FluidStack, RequirementTypeFluidPerTick>
-        implements ComponentRequirement.Parallelizable {
+        implements ComponentRequirement.Parallelizable, ComponentSyncable {
 
     public final FluidStack required;
 
@@ -12,6 +12,7 @@ import hellfirepvp.modularmachinery.common.machine.IOType;
 import hellfirepvp.modularmachinery.common.machine.MachineComponent;
 import hellfirepvp.modularmachinery.common.modifier.RecipeModifier;
 import hellfirepvp.modularmachinery.common.util.Asyncable;
+import hellfirepvp.modularmachinery.common.util.ComponentSyncable;
 import hellfirepvp.modularmachinery.common.util.HybridFluidUtils;
 import hellfirepvp.modularmachinery.common.util.ResultChance;
 import mekanism.api.gas.GasStack;
@@ -22,7 +23,7 @@ import java.util.Collections;
 import java.util.List;
 
 public class RequirementGas extends ComponentRequirement.MultiCompParallelizable<Object, RequirementTypeGas>
-        implements ComponentRequirement.ChancedRequirement, Asyncable {
+        implements ComponentRequirement.ChancedRequirement, Asyncable, ComponentSyncable {
 
     public final GasStack required;
 
@@ -146,9 +147,11 @@ public class RequirementGas extends ComponentRequirement.MultiCompParallelizable
             return 0;
         }
 
-        HybridFluidUtils.doDrainOrFill(stack, totalIO, gasHandlers, actionType);
+        // Only move whole multiples, requirements sharing the simulated components must see the exact remainder.
+        int multiplier = (int) (totalIO / required);
+        HybridFluidUtils.doDrainOrFill(stack, required * multiplier, gasHandlers, actionType);
 
-        return (int) (totalIO / required);
+        return multiplier;
     }
 
 }
\ No newline at end of file
@@ -11,6 +11,7 @@ import hellfirepvp.modularmachinery.common.lib.RequirementTypesMM;
 import hellfirepvp.modularmachinery.common.machine.IOType;
 import hellfirepvp.modularmachinery.common.machine.MachineComponent;
 import hellfirepvp.modularmachinery.common.modifier.RecipeModifier;
+import hellfirepvp.modularmachinery.common.util.ComponentSyncable;
 import hellfirepvp.modularmachinery.common.util.HybridFluidUtils;
 import mekanism.api.gas.GasStack;
 import net.minecraft.util.ResourceLocation;
@@ -20,7 +21,7 @@ import java.util.Collections;
 import java.util.List;
 
 public class RequirementGasPerTick extends ComponentRequirement.PerTickParallelizable<GasStack, RequirementTypeGasPerTick>
-        implements ComponentRequirement.Parallelizable {
+        implements ComponentRequirement.Parallelizable, ComponentSyncable {
 
     public final GasStack required;
 
@@ -26,6 +26,7 @@ import hellfirepvp.modularmachinery.common.machine.IOType;
 import hellfirepvp.modularmachinery.common.machine.MachineComponent;
 import hellfirepvp.modularmachinery.common.modifier.RecipeModifier;
 import hellfirepvp.modularmachinery.common.util.Asyncable;
+import hellfirepvp.modularmachinery.common.util.ComponentSyncable;
 import hellfirepvp.modularmachinery.common.util.FuelItemHelper;
 import hellfirepvp.modularmachinery.common.util.ItemUtils;
 import hellfirepvp.modularmachinery.common.util.ResultChance;
@@ -51,7 +52,7 @@ import java.util.concurrent.atomic.AtomicInteger;
  * Date: 24.02.2018 / 12:35
  */
 public class RequirementItem extends ComponentRequirement.MultiCompParallelizable<ItemStack, RequirementTypeItem>
-        implements ComponentRequirement.ChancedRequirement, ComponentRequirement.Parallelizable, Asyncable {
+        implements ComponentRequirement.ChancedRequirement, ComponentRequirement.Parallelizable, Asyncable, ComponentSyncable {
     public static final Random RD = new Random();
 
     public final ItemRequirementType requirementType;
@@ -266,7 +267,116 @@ public class RequirementItem extends ComponentRequirement.MultiCompParallelizabl
             }
             return 0;
         }
-        return doItemIOInternal(components, context, maxParallelism, Collections.emptyList(), ResultChance.GUARANTEED);
+        return getMaxMultiplier(components, context, maxParallelism);
+    }
+
+    /**
+     * <p>通过容量查询计算最大并行数：先统计所有组件中可消耗的物品总数（或可插入的空间），直接取整数商，
+     * 然后只按该并行数在模拟组件上消耗/插入一次，使共享组件的后续需求看到正确的剩余量。</p>
+     *
+     * <p>Computes the max parallelism from a capacity query: counts the consumable items (or insertable space)
+     * across all components, takes the integer quotient, then consumes/inserts exactly that many once on the
+     * simulated components, so later requirements sharing them see the correct remainder.</p>
+     */
+    private int getMaxMultiplier(final List<ProcessingComponent<?>> components,
+                                 final RecipeCraftingContext context,
+                                 final int maxMultiplier) {
+        if (requirementType == ItemRequirementType.FUEL) {
+            return doItemIOInternal(components, context, maxMultiplier, Collections.emptyList(), ResultChance.GUARANTEED);
+        }
+
+        int amount = applyModifierAmount(context, minAmount != maxAmount);
+        if (amount <= 0) {
+            return maxMultiplier;
+        }
+
+        List<IItemHandlerModifiable> handlers = new ArrayList<>(components.size());
+        for (ProcessingComponent<?> component : components) {
+            handlers.add((IItemHandlerModifiable) component.getProvidedComponent());
+        }
+
+        return switch (actionType) {
+            case INPUT -> {
+                ItemStack stack = ItemStack.EMPTY;
+                if (requirementType == ItemRequirementType.ITEMSTACKS) {
+                    stack = required.copy();
+                    if (tag != null) {
+                        stack.setTagCompound(tag);
+                    }
+                }
+
+                long available = 0;
+                for (final IItemHandlerModifiable handler : handlers) {
+                    available += countItems(handler, context, stack);
+                }
+                int multiplier = (int) Math.min(maxMultiplier, available / amount);
+                if (multiplier > 0) {
+                    consumeItems(handlers, context, stack, (int) Math.min(Integer.MAX_VALUE, (long) amount * multiplier));
+                }
+                yield multiplier;
+            }
+            case OUTPUT -> {
+                ItemStack stack = requirementType == ItemRequirementType.ITEMSTACKS
+                        ? ItemUtils.copyStackWithSize(required, 1)
+                        : ItemUtils.getOredictItem(context, oreDictName, tag);
+                if (tag != null) {
+                    stack.setTagCompound(tag);
+                }
+
+                long insertable = 0;
+                for (final IItemHandlerModifiable handler : handlers) {
+                    insertable += ItemUtils.countInsertable(stack, handler);
+                }
+                int multiplier = (int) Math.min(maxMultiplier, insertable / amount);
+                if (multiplier > 0) {
+                    int maxInsert = (int) Math.min(Integer.MAX_VALUE, (long) amount * multiplier);
+                    final AtomicInteger inserted = new AtomicInteger();
+                    for (final IItemHandlerModifiable handler : handlers) {
+                        Sync.executeSyncIfPresent(handler, () -> inserted.addAndGet(ItemUtils.insertAll(stack, handler, maxInsert - inserted.get())));
+                        if (inserted.get() >= maxInsert) {
+                            break;
+                        }
+                    }
+                }
+                yield multiplier;
+            }
+        };
+    }
+
+    private long countItems(final IItemHandlerModifiable handler, final RecipeCraftingContext context, final ItemStack stack) {
+        if (requirementType == ItemRequirementType.ITEMSTACKS) {
+            return itemChecker != null
+                    ? ItemUtils.countAll(handler, stack, itemChecker, context.getMachineController())
+                    : ItemUtils.countAll(handler, stack, tag);
+        }
+        return itemChecker != null
+                ? ItemUtils.countAll(handler, oreDictName, itemChecker, context.getMachineController())
+                : ItemUtils.countAll(handler, oreDictName, tag);
+    }
+
+    private void consumeItems(final List<IItemHandlerModifiable> handlers,
+                              final RecipeCraftingContext context,
+                              final ItemStack stack,
+                              final int maxConsume) {
+        final AtomicInteger consumed = new AtomicInteger();
+        for (final IItemHandlerModifiable handler : handlers) {
+            Sync.executeSyncIfPresent(handler, () -> {
+                int toConsume = maxConsume - consumed.get();
+                if (requirementType == ItemRequirementType.ITEMSTACKS) {
+                    stack.setCount(toConsume);
+                    consumed.addAndGet(itemChecker != null
+                            ? ItemUtils.consumeAll(handler, stack, itemChecker, context.getMachineController())
+                            : ItemUtils.consumeAll(handler, stack, tag));
+                } else {
+                    consumed.addAndGet(itemChecker != null
+                            ? ItemUtils.consumeAll(handler, oreDictName, toConsume, itemChecker, context.getMachineController())
+                            : ItemUtils.consumeAll(handler, oreDictName, toConsume, tag));
+                }
+            });
+            if (consumed.get() >= maxConsume) {
+                break;
+            }
+        }
     }
 
     private CraftCheck doItemIO(List<ProcessingComponent<?>> components, RecipeCraftingContext context, List<AdvancedItemModifier> itemModifiers, ResultChance chance) {
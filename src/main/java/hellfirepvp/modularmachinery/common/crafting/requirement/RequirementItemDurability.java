@@ -11,6 +11,7 @@ import hellfirepvp.modularmachinery.common.machine.IOType;
 import hellfirepvp.modularmachinery.common.machine.MachineComponent;
 import hellfirepvp.modularmachinery.common.modifier.RecipeModifier;
 import hellfirepvp.modularmachinery.common.util.Asyncable;
+import hellfirepvp.modularmachinery.common.util.ComponentSyncable;
 import hellfirepvp.modularmachinery.common.util.ResultChance;
 import net.minecraft.item.ItemStack;
 
@@ -19,7 +20,7 @@ import java.util.Collections;
 import java.util.List;
 
 public class RequirementItemDurability extends ComponentRequirement.MultiCompParallelizable<ItemStack, RequirementTypeItemDurability>
-        implements ComponentRequirement.ChancedRequirement, ComponentRequirement.Parallelizable, Asyncable {
+        implements ComponentRequirement.ChancedRequirement, ComponentRequirement.Parallelizable, Asyncable, ComponentSyncable {
 
     public RequirementItemDurability(final RequirementTypeItemDurability requirementType, final IOType actionType) {
         super(requirementType, actionType);
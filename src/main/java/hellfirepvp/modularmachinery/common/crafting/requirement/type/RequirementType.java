@@ -14,6 +14,7 @@ import hellfirepvp.modularmachinery.common.machine.IOType;
 import net.minecraftforge.registries.IForgeRegistryEntry;
 
 import javax.annotation.Nullable;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * This class is part of the Modular Machinery Mod
@@ -23,6 +24,27 @@ import javax.annotation.Nullable;
  * Date: 13.07.2019 / 10:38
  */
 public abstract class RequirementType<T, V extends ComponentRequirement<T, ? extends RequirementType<T, V>>> extends IForgeRegistryEntry.Impl<RequirementType<?, ?>> {
+    private static final AtomicInteger NEXT_NUMERIC_ID = new AtomicInteger();
+
+    /**
+     * <p>连续的数字 ID，按创建顺序分配，用于以数组代替哈希表按类型索引数据。</p>
+     *
+     * <p>Dense numeric id assigned in creation order, used to index per-type data with arrays instead of hash maps.</p>
+     */
+    private final int numericId = NEXT_NUMERIC_ID.getAndIncrement();
+
+    public final int getNumericId() {
+        return numericId;
+    }
+
+    /**
+     * <p>目前已分配的数字 ID 数量，所有 {@link #getNumericId()} 都小于此值。</p>
+     *
+     * <p>Amount of numeric ids assigned so far, every {@link #getNumericId()} is below this value.</p>
+     */
+    public static int getNumericIdCount() {
+        return NEXT_NUMERIC_ID.get();
+    }
 
     public abstract ComponentRequirement<T, ? extends RequirementType<T, V>> createRequirement(IOType type, JsonObject jsonObject);
 
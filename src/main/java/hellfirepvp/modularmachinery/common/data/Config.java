@@ -8,6 +8,7 @@
 
 package hellfirepvp.modularmachinery.common.data;
 
+import github.kasuminova.mmce.common.handler.OutputPushScheduler;
 import hellfirepvp.modularmachinery.ModularMachinery;
 import hellfirepvp.modularmachinery.client.util.EnergyDisplayUtil;
 import hellfirepvp.modularmachinery.common.base.Mods;
@@ -42,6 +43,9 @@ public class Config {
     public static boolean controllerOutputComparatorSignal = true;
     public static boolean asyncControllerModelRender = true;
     public static boolean enableDurationMultiplier = true;
+    public static boolean enableRecipeInputIndex = true;
+    public static boolean enableSharedRecipeSearchCache = true;
+    public static int parallelRecipeSearchThreshold = 0;
     public static int machineColor;
     public static int maxMachineParallelism = 2048;
     public static int defaultFactoryMaxThread = 20;
@@ -68,6 +72,7 @@ public class Config {
         EnergyDisplayUtil.loadFromConfig(lastReadConfig);
         RecipeFailureActions.loadFromConfig(lastReadConfig);
         TileMultiblockMachineController.loadFromConfig(lastReadConfig);
+        OutputPushScheduler.loadFromConfig(lastReadConfig);
         AssemblyConfig.loadFormConfig(lastReadConfig);
         if (Mods.TOP.isPresent()) {
             ModIntegrationTOP.loadFromConfig(lastReadConfig);
@@ -91,6 +96,12 @@ public class Config {
                 "When enabled, Modules no longer register a separate controller for each machine, and the modular-controller-compatible-mode option is turned off.");
         enableDurationMultiplier = lastReadConfig.getBoolean("enable-duration-multiplier", "general", false,
                 "If enabled, and the RecipeModifier modifies the recipe duration, certain requirements (e.g., energy) will change over time.");
+        enableRecipeInputIndex = lastReadConfig.getBoolean("enable-recipe-input-index", "general", true,
+                "If enabled, recipe searches skip recipes whose item, fluid or gas inputs are not present in the machine's input hatches, instead of checking every recipe of the machine.");
+        enableSharedRecipeSearchCache = lastReadConfig.getBoolean("enable-shared-recipe-search-cache", "general", true,
+                "If enabled, machines of the same type whose input hatches hold identical contents in the same tick reuse each other's failed recipe checks (failures caused by missing item, fluid or gas inputs only).");
+        parallelRecipeSearchThreshold = lastReadConfig.getInt("parallel-recipe-search-threshold", "general", 0, 0, Integer.MAX_VALUE,
+                "(Experimental) When a single recipe search has at least this many candidate recipes, the candidates are checked concurrently in priority-ordered chunks. 0 disables it. Machines with RecipeCheckEvent handlers are always searched sequentially.");
 
         // Client
         asyncControllerModelRender = lastReadConfig.getBoolean("async-controller-model-render", "client", false,
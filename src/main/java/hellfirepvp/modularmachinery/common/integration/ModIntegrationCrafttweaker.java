@@ -13,6 +13,7 @@ import github.kasuminova.mmce.client.model.DynamicMachineModelRegistry;
 import github.kasuminova.mmce.client.resource.GeoModelExternalLoader;
 import github.kasuminova.mmce.common.concurrent.RecipeCraftingContextPool;
 import github.kasuminova.mmce.common.upgrade.registry.RegistryUpgrade;
+import github.kasuminova.mmce.common.util.OredictCache;
 import github.kasuminova.mmce.common.util.Sides;
 import github.kasuminova.mmce.common.util.concurrent.Action;
 import hellfirepvp.modularmachinery.client.ClientProxy;
@@ -117,6 +118,7 @@ public class ModIntegrationCrafttweaker {
         MMEvents.registryAll();
 
         RecipeCraftingContextPool.onReload();
+        OredictCache.invalidate();
         RecipeRegistry.getRegistry().loadRecipeRegistry(null, true);
         for (Action action : FactoryRecipeThread.WAIT_FOR_ADD) {
             action.doAction();
@@ -139,10 +139,10 @@ public class MMInfoProvider implements IProbeInfoProvider {
         if (energyConsumeTotal.get() > 0 || energyGenerateTotal.get() > 0) {
             IProbeInfo energyBox = newVertical(probeInfo);
             if (energyConsumeTotal.get() > 0) {
-                addEnergyUsageText(energyBox, player, IOType.INPUT, energyConsumeTotal.get());
+                addEnergyUsageText(energyBox, player, IOType.INPUT, getEnergyUsage(factory, IOType.INPUT, energyConsumeTotal.get()));
             }
             if (energyGenerateTotal.get() > 0) {
-                addEnergyUsageText(energyBox, player, IOType.OUTPUT, energyGenerateTotal.get());
+                addEnergyUsageText(energyBox, player, IOType.OUTPUT, getEnergyUsage(factory, IOType.OUTPUT, energyGenerateTotal.get()));
             }
         }
 
@@ -279,11 +279,11 @@ public class MMInfoProvider implements IProbeInfoProvider {
 
             if (reqEnergyIn != null) {
                 long energyUsage = getEnergyRequired(thread, reqEnergyIn);
-                addEnergyUsageText(energyBox, player, IOType.INPUT, energyUsage);
+                addEnergyUsageText(energyBox, player, IOType.INPUT, getEnergyUsage(machine, IOType.INPUT, energyUsage));
             }
             if (reqEnergyOut != null) {
                 long energyGenerate = getEnergyRequired(thread, reqEnergyOut);
-                addEnergyUsageText(energyBox, player, IOType.OUTPUT, energyGenerate);
+                addEnergyUsageText(energyBox, player, IOType.OUTPUT, getEnergyUsage(machine, IOType.OUTPUT, energyGenerate));
             }
         }
 
@@ -338,6 +338,14 @@ public class MMInfoProvider implements IProbeInfoProvider {
         );
     }
 
+    /**
+     * 优先使用能量池统计的实际每 Tick 能量，没有统计数据时使用配方需求估算的值。
+     */
+    private static long getEnergyUsage(TileMultiblockMachineController machine, IOType ioType, long estimated) {
+        long measured = machine.getEnergyPerTick(ioType);
+        return measured > 0 ? measured : estimated;
+    }
+
     private static RequirementEnergy getRequirementEnergy(RecipeThread thread, IOType ioType) {
         RecipeCraftingContext context = thread.getContext();
         if (context == null) {
@@ -9,13 +9,14 @@ import hellfirepvp.modularmachinery.common.crafting.helper.CraftingStatus;
 import hellfirepvp.modularmachinery.common.crafting.helper.RecipeCraftingContext;
 import hellfirepvp.modularmachinery.common.modifier.RecipeModifier;
 import hellfirepvp.modularmachinery.common.tiles.base.TileMultiblockMachineController;
-import hellfirepvp.modularmachinery.common.util.MiscUtils;
 import io.netty.util.internal.ThrowableUtil;
 import net.minecraft.nbt.NBTTagCompound;
 import stanhebben.zenscript.annotations.ZenClass;
 import stanhebben.zenscript.annotations.ZenGetter;
 import stanhebben.zenscript.annotations.ZenMethod;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
@@ -36,6 +37,21 @@ public abstract class RecipeThread {
 
     protected RecipeSearchTask searchTask = null;
 
+    protected int lastSearchChangeCounter = 0;
+    protected int lastSearchTick = 0;
+
+    /**
+     * 上一次同步到客户端时的进度快照，两次同步之间由客户端自行推算进度。
+     */
+    private ActiveMachineRecipe syncedRecipe = null;
+    private TileMultiblockMachineController.Type syncedStatusType = null;
+    private String syncedStatusMessage = null;
+    private int syncedTick = 0;
+    private int syncedTotalTick = 0;
+    private int syncedParallelism = 0;
+    private long syncedWorldTime = 0;
+    private volatile boolean progressSyncRequired = true;
+
     protected RecipeThread(TileMultiblockMachineController ctrl) {
         this.ctrl = ctrl;
     }
@@ -99,8 +115,11 @@ public abstract class RecipeThread {
 
     public RecipeCraftingContext createContext(ActiveMachineRecipe activeRecipe) {
         RecipeCraftingContext context = ctrl.createContext(activeRecipe);
-        context.addModifier(semiPermanentModifiers.values());
-        context.addModifier(permanentModifiers.values());
+        if (!semiPermanentModifiers.isEmpty() || !permanentModifiers.isEmpty()) {
+            List<RecipeModifier> threadModifiers = new ArrayList<>(semiPermanentModifiers.values());
+            threadModifiers.addAll(permanentModifiers.values());
+            context.addModifier(threadModifiers);
+        }
         return context;
     }
 
@@ -135,12 +154,18 @@ public abstract class RecipeThread {
                 RecipeCraftingContextPool.returnCtx(context);
             }
         } else if (shouldSearchRecipe()) {
+            lastSearchChangeCounter = ctrl.getRecipeInputChangeCounter();
+            lastSearchTick = ctrl.getTicksExisted();
             createRecipeSearchTask();
         }
     }
 
     protected boolean shouldSearchRecipe() {
-        return ctrl.isSearchRecipeImmediately() || (ctrl.getTicksExisted() % ctrl.currentRecipeSearchDelay() == 0);
+        if (ctrl.isSearchRecipeImmediately()) {
+            return true;
+        }
+        return ctrl.getTicksExisted() % ctrl.currentRecipeSearchDelay() == 0
+               && ctrl.isRecipeSearchRequired(lastSearchChangeCounter, lastSearchTick);
     }
 
     public void invalidate() {
@@ -169,13 +194,13 @@ public abstract class RecipeThread {
     protected abstract void createRecipeSearchTask();
 
     public void flushContextModifier() {
+        progressSyncRequired = true;
         if (context == null) {
             return;
         }
-        context.overrideModifier(MiscUtils.flatten(ctrl.getFoundModifiers().values()));
-        context.addModifier(ctrl.getCustomModifiers().values());
-        context.addModifier(semiPermanentModifiers.values());
-        context.addModifier(permanentModifiers.values());
+        List<RecipeModifier> threadModifiers = new ArrayList<>(semiPermanentModifiers.values());
+        threadModifiers.addAll(permanentModifiers.values());
+        context.overrideModifier(ctrl.getModifierTable(), threadModifiers);
     }
 
     public RecipeThread setActiveRecipe(ActiveMachineRecipe activeRecipe) {
@@ -199,6 +224,67 @@ public abstract class RecipeThread {
         return status;
     }
 
+    /**
+     * <p>检查客户端能否根据上一次同步的快照推算出当前进度。配方、状态、总时间、并行数或修改器发生变化，
+     * 或进度偏离了推算值（例如失败动作或脚本修改）时返回 true，并以当前状态作为新的快照。仅限服务端调用。</p>
+     *
+     * <p>Checks whether the client can extrapolate the current progress from the last synced snapshot. Returns true
+     * and takes the current state as the new snapshot if the recipe, status, total ticks, parallelism or modifiers
+     * changed, or if the progress left the extrapolated value (e.g. a failure action or a script). Server side only.</p>
+     *
+     * @param worldTime 当前世界时间
+     * @return 需要同步时返回 true
+     */
+    public boolean checkProgressSync(final long worldTime) {
+        ActiveMachineRecipe activeRecipe = this.activeRecipe;
+        CraftingStatus status = this.status;
+        if (!progressSyncRequired && activeRecipe == syncedRecipe
+            && status.getStatus() == syncedStatusType && status.getUnlocMessage().equals(syncedStatusMessage)) {
+            if (activeRecipe == null) {
+                return false;
+            }
+            if (activeRecipe.getTotalTick() == syncedTotalTick && activeRecipe.getParallelism() == syncedParallelism
+                && activeRecipe.getTick() == extrapolateTick(syncedTick, syncedTotalTick, status, worldTime - syncedWorldTime)) {
+                return false;
+            }
+        }
+
+        progressSyncRequired = false;
+        syncedRecipe = activeRecipe;
+        syncedStatusType = status.getStatus();
+        syncedStatusMessage = status.getUnlocMessage();
+        syncedTick = activeRecipe == null ? 0 : activeRecipe.getTick();
+        syncedTotalTick = activeRecipe == null ? 0 : activeRecipe.getTotalTick();
+        syncedParallelism = activeRecipe == null ? 0 : activeRecipe.getParallelism();
+        syncedWorldTime = worldTime;
+        return true;
+    }
+
+    /**
+     * <p>在客户端将正在运行的配方推进一个 Tick，与服务端配方成功运行一个 Tick 的行为一致。</p>
+     *
+     * <p>Advances a running recipe by one tick on the client, the same way a successful recipe tick does on the
+     * server.</p>
+     */
+    public void extrapolateProgress() {
+        ActiveMachineRecipe activeRecipe = this.activeRecipe;
+        if (activeRecipe == null) {
+            return;
+        }
+        int tick = activeRecipe.getTick();
+        int extrapolated = extrapolateTick(tick, activeRecipe.getTotalTick(), status, 1);
+        if (extrapolated != tick) {
+            activeRecipe.setTick(extrapolated);
+        }
+    }
+
+    private static int extrapolateTick(final int tick, final int totalTick, final CraftingStatus status, final long elapsed) {
+        if (!status.isCrafting() || tick >= totalTick || elapsed <= 0) {
+            return tick;
+        }
+        return (int) Math.min(tick + elapsed, totalTick);
+    }
+
     public RecipeThread setStatus(CraftingStatus status) {
         this.status = status;
         return this;
@@ -231,6 +317,7 @@ public abstract class RecipeThread {
     public void addModifier(String name, RecipeModifier modifier) {
         semiPermanentModifiers.put(name, modifier);
         flushContextModifier();
+        ctrl.markRecipeInputsChanged();
     }
 
     /**
@@ -243,6 +330,7 @@ public abstract class RecipeThread {
         RecipeModifier removed = semiPermanentModifiers.remove(name);
         if (removed != null) {
             flushContextModifier();
+            ctrl.markRecipeInputsChanged();
         }
     }
 
@@ -265,6 +353,7 @@ public abstract class RecipeThread {
     public void addPermanentModifier(String name, RecipeModifier modifier) {
         permanentModifiers.put(name, modifier);
         flushContextModifier();
+        ctrl.markRecipeInputsChanged();
     }
 
     /**
@@ -287,6 +376,7 @@ public abstract class RecipeThread {
         RecipeModifier removed = permanentModifiers.remove(name);
         if ( removed!= null) {
             flushContextModifier();
+            ctrl.markRecipeInputsChanged();
         }
     }
 
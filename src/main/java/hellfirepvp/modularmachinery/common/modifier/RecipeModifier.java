@@ -213,6 +213,15 @@ public class RecipeModifier {
         public boolean isDefault() {
             return inputAdd == 0 && inputMul == 1 && outputAdd == 0 && outputMul == 1;
         }
+
+        public ModifierApplier copy() {
+            ModifierApplier copy = new ModifierApplier();
+            copy.inputAdd = inputAdd;
+            copy.inputMul = inputMul;
+            copy.outputAdd = outputAdd;
+            copy.outputMul = outputMul;
+            return copy;
+        }
     }
 
     public static class Deserializer implements JsonDeserializer<RecipeModifier> {
@@ -0,0 +1,123 @@
+package hellfirepvp.modularmachinery.common.modifier;
+
+import hellfirepvp.modularmachinery.common.crafting.requirement.type.RequirementType;
+import hellfirepvp.modularmachinery.common.lib.RequirementTypesMM;
+
+import javax.annotation.Nonnull;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * <p>不可变的配方修改器表，按 {@link RequirementType#getNumericId()} 以数组索引修改器与合并后的 {@link RecipeModifier.ModifierApplier}。</p>
+ * <p>控制器在结构更新后构建一次，并由所有配方上下文共享；需要追加修改器时通过 {@link #with(Collection)} 创建新的表，原表不会被修改。</p>
+ *
+ * <p>Immutable recipe modifier table, indexing modifiers and their merged {@link RecipeModifier.ModifierApplier}s
+ * by {@link RequirementType#getNumericId()} in plain arrays.</p>
+ * <p>The controller builds it once per structure update and every recipe context shares it. Adding modifiers goes
+ * through {@link #with(Collection)}, which creates a new table and leaves this one untouched.</p>
+ */
+public final class RecipeModifierTable {
+    public static final RecipeModifierTable EMPTY = new RecipeModifierTable(new RecipeModifier[0][], new RecipeModifier.ModifierApplier[0]);
+
+    /**
+     * 按需求类型 ID 索引，为 null 时表示该类型没有修改器。
+     */
+    private final RecipeModifier[][] modifiers;
+    /**
+     * 按 {@code id * 2 + (chance ? 1 : 0)} 索引，为 null 时表示默认值。
+     */
+    private final RecipeModifier.ModifierApplier[] appliers;
+
+    private RecipeModifierTable(final RecipeModifier[][] modifiers, final RecipeModifier.ModifierApplier[] appliers) {
+        this.modifiers = modifiers;
+        this.appliers = appliers;
+    }
+
+    public static RecipeModifierTable of(final Collection<RecipeModifier> modifiers) {
+        return EMPTY.with(modifiers);
+    }
+
+    /**
+     * <p>返回包含本表与给定修改器的新表，给定修改器为空时直接返回本表。</p>
+     *
+     * <p>Returns a new table holding this table's modifiers plus the given ones, or this table if there is
+     * nothing to add.</p>
+     */
+    public RecipeModifierTable with(final Collection<RecipeModifier> added) {
+        if (added.isEmpty()) {
+            return this;
+        }
+
+        int size = Math.max(modifiers.length, RequirementType.getNumericIdCount());
+        RecipeModifier[][] newModifiers = Arrays.copyOf(modifiers, size);
+        RecipeModifier.ModifierApplier[] newAppliers = Arrays.copyOf(appliers, size * 2);
+        boolean[] copied = new boolean[newAppliers.length];
+
+        for (final RecipeModifier modifier : added) {
+            if (modifier == null) {
+                continue;
+            }
+            int id = getTarget(modifier).getNumericId();
+            if (id >= newModifiers.length) {
+                newModifiers = Arrays.copyOf(newModifiers, id + 1);
+                newAppliers = Arrays.copyOf(newAppliers, (id + 1) * 2);
+                copied = Arrays.copyOf(copied, newAppliers.length);
+            }
+
+            RecipeModifier[] typeModifiers = newModifiers[id];
+            if (typeModifiers == null) {
+                newModifiers[id] = new RecipeModifier[]{modifier};
+            } else {
+                typeModifiers = Arrays.copyOf(typeModifiers, typeModifiers.length + 1);
+                typeModifiers[typeModifiers.length - 1] = modifier;
+                newModifiers[id] = typeModifiers;
+            }
+
+            int applierIdx = id * 2 + (modifier.affectsChance() ? 1 : 0);
+            RecipeModifier.ModifierApplier applier = newAppliers[applierIdx];
+            if (!copied[applierIdx]) {
+                applier = applier == null ? new RecipeModifier.ModifierApplier() : applier.copy();
+                newAppliers[applierIdx] = applier;
+                copied[applierIdx] = true;
+            }
+            RecipeModifier.applyValueToApplier(applier, modifier);
+        }
+
+        for (int i = 0; i < newAppliers.length; i++) {
+            if (copied[i] && newAppliers[i].isDefault()) {
+                newAppliers[i] = null;
+            }
+        }
+        return new RecipeModifierTable(newModifiers, newAppliers);
+    }
+
+    @Nonnull
+    public RecipeModifier.ModifierApplier getApplier(final RequirementType<?, ?> target, final boolean isChance) {
+        int idx = target.getNumericId() * 2 + (isChance ? 1 : 0);
+        if (idx >= appliers.length) {
+            return RecipeModifier.ModifierApplier.DEFAULT_APPLIER;
+        }
+        RecipeModifier.ModifierApplier applier = appliers[idx];
+        return applier == null ? RecipeModifier.ModifierApplier.DEFAULT_APPLIER : applier;
+    }
+
+    @Nonnull
+    public List<RecipeModifier> getModifiers(final RequirementType<?, ?> target) {
+        int id = target.getNumericId();
+        if (id >= modifiers.length || modifiers[id] == null) {
+            return Collections.emptyList();
+        }
+        return Collections.unmodifiableList(Arrays.asList(modifiers[id]));
+    }
+
+    public boolean isEmpty() {
+        return this == EMPTY;
+    }
+
+    private static RequirementType<?, ?> getTarget(final RecipeModifier modifier) {
+        RequirementType<?, ?> target = modifier.getTarget();
+        return target == null ? RequirementTypesMM.REQUIREMENT_DURATION : target;
+    }
+}
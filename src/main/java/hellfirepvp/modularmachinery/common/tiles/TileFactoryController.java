@@ -8,6 +8,8 @@ import github.kasuminova.mmce.common.event.recipe.FactoryRecipeFailureEvent;
 import github.kasuminova.mmce.common.event.recipe.FactoryRecipeFinishEvent;
 import github.kasuminova.mmce.common.event.recipe.FactoryRecipeStartEvent;
 import github.kasuminova.mmce.common.event.recipe.FactoryRecipeTickEvent;
+import github.kasuminova.mmce.common.network.PktFactoryThreadSync;
+import github.kasuminova.mmce.common.util.TimeRecorder;
 import github.kasuminova.mmce.common.util.concurrent.SequentialTaskExecutor;
 import hellfirepvp.modularmachinery.ModularMachinery;
 import hellfirepvp.modularmachinery.common.block.BlockController;
@@ -41,11 +43,14 @@ public class TileFactoryController extends TileMultiblockMachineController {
     private final List<FactoryRecipeThread> recipeThreadList = new LinkedList<>();
     private final List<ForkJoinTask<?>> waitToExecute = new ArrayList<>();
     private CraftingStatus controllerStatus = CraftingStatus.MISSING_STRUCTURE;
+    private int syncedThreadCount = -1;
     private int totalParallelism = 1;
     private int extraThreadCount = 0;
     private BlockFactoryController parentController = null;
     private FactoryRecipeSearchTask searchTask = null;
     private SequentialTaskExecutor threadTask = null;
+    private int lastSearchChangeCounter = 0;
+    private int lastSearchTick = 0;
 
     private boolean redstoneEffected = false;
 
@@ -118,7 +123,10 @@ public class TileFactoryController extends TileMultiblockMachineController {
     }
 
     protected boolean doAsyncStep() {
-        return !doStructureCheck() || !isStructureFormed();
+        long start = System.nanoTime();
+        boolean formed = doStructureCheck() && isStructureFormed();
+        timeRecorder.addPhaseTime(TimeRecorder.Phase.STRUCTURE_CHECK, System.nanoTime() - start);
+        return !formed;
     }
 
     protected void doSyncStep(boolean recordTime) {
@@ -138,7 +146,10 @@ public class TileFactoryController extends TileMultiblockMachineController {
 
         if (!coreRecipeThreads.isEmpty() || !recipeThreadList.isEmpty()) {
             doRecipeTick();
-            markNoUpdateSync();
+            // Progress is extrapolated by the client, only sync when it can not be.
+            if (checkProgressSync()) {
+                markNoUpdateSync();
+            }
         }
         searchRecipeImmediately = false;
 
@@ -206,7 +217,7 @@ public class TileFactoryController extends TileMultiblockMachineController {
             // To prevent performance drain due to long output blocking,
             // try to complete the recipe every 10 Tick instead of every Tick.
             if (ticksExisted % 10 == 0) {
-                thread.onFinished();
+                finishThread(thread);
             }
             return;
         }
@@ -217,14 +228,22 @@ public class TileFactoryController extends TileMultiblockMachineController {
 
         CraftingStatus status = thread.getStatus();
 
+        // Nothing listens to the tick events most of the time, skip them without allocating anything.
+        boolean postTickEvents = hasEventListeners(FactoryRecipeTickEvent.class, activeRecipe.getRecipe());
+
         // PreTickEvent
-        FactoryRecipeTickEvent event = new FactoryRecipeTickEvent(thread, this, Phase.START);
-        event.postEvent();
-        if (event.isFailure()) {
-            return;
+        if (postTickEvents) {
+            long eventStart = System.nanoTime();
+            FactoryRecipeTickEvent event = new FactoryRecipeTickEvent(thread, this, Phase.START);
+            event.postEvent();
+            timeRecorder.addPhaseTime(TimeRecorder.Phase.EVENTS, System.nanoTime() - eventStart);
+            if (event.isFailure()) {
+                return;
+            }
         }
 
         // RecipeTick
+        long tickStart = System.nanoTime();
         if (status != thread.getStatus()) {
             status = thread.getStatus();
             thread.onTick();
@@ -232,6 +251,7 @@ public class TileFactoryController extends TileMultiblockMachineController {
         } else {
             status = thread.onTick();
         }
+        timeRecorder.addPhaseTime(TimeRecorder.Phase.RECIPE_TICK, System.nanoTime() - tickStart);
 
         if (isNotWorking(thread, status)) {
             if (enableFullDataSync) {
@@ -243,13 +263,54 @@ public class TileFactoryController extends TileMultiblockMachineController {
         }
 
         // PostTickEvent
-        new FactoryRecipeTickEvent(thread, this, Phase.END).postEvent();
+        if (postTickEvents) {
+            long eventStart = System.nanoTime();
+            new FactoryRecipeTickEvent(thread, this, Phase.END).postEvent();
+            timeRecorder.addPhaseTime(TimeRecorder.Phase.EVENTS, System.nanoTime() - eventStart);
+        }
 
         if (thread.isCompleted()) {
-            thread.onFinished();
+            finishThread(thread);
         }
     }
 
+    /**
+     * <p>检查线程数量或任一线程的进度是否需要同步到客户端，每个线程都会被检查以更新其快照。</p>
+     *
+     * <p>Checks whether the thread count or the progress of any thread has to be synced to the client. Every thread
+     * is checked so each of their snapshots stays up to date.</p>
+     */
+    protected boolean checkProgressSync() {
+        long worldTime = getWorld().getTotalWorldTime();
+        int threadCount = coreRecipeThreads.size() + recipeThreadList.size();
+        boolean syncRequired = threadCount != syncedThreadCount;
+        syncedThreadCount = threadCount;
+
+        for (final FactoryRecipeThread thread : coreRecipeThreads.values()) {
+            syncRequired |= thread.checkProgressSync(worldTime);
+        }
+        for (final FactoryRecipeThread thread : recipeThreadList) {
+            syncRequired |= thread.checkProgressSync(worldTime);
+        }
+        return syncRequired;
+    }
+
+    @Override
+    protected void extrapolateProgress() {
+        for (final FactoryRecipeThread thread : coreRecipeThreads.values()) {
+            thread.extrapolateProgress();
+        }
+        for (final FactoryRecipeThread thread : recipeThreadList) {
+            thread.extrapolateProgress();
+        }
+    }
+
+    protected void finishThread(final FactoryRecipeThread thread) {
+        long start = System.nanoTime();
+        thread.onFinished();
+        timeRecorder.addPhaseTime(TimeRecorder.Phase.RECIPE_FINISH, System.nanoTime() - start);
+    }
+
     protected boolean isNotWorking(final FactoryRecipeThread thread, final CraftingStatus status) {
         if (status.isCrafting()) {
             return false;
@@ -266,8 +327,10 @@ public class TileFactoryController extends TileMultiblockMachineController {
      * <p>工厂线程开始执行一个配方。</p>
      */
     public void onThreadRecipeStart(FactoryRecipeThread thread) {
-        new FactoryRecipeStartEvent(thread, this).postEvent();
         ActiveMachineRecipe activeRecipe = thread.getActiveRecipe();
+        if (hasEventListeners(FactoryRecipeStartEvent.class, activeRecipe.getRecipe())) {
+            new FactoryRecipeStartEvent(thread, this).postEvent();
+        }
         activeRecipe.start(thread.getContext());
         resetRecipeSearchRetryCount();
         if (enableFullDataSync) {
@@ -284,6 +347,9 @@ public class TileFactoryController extends TileMultiblockMachineController {
         }
 
         MachineRecipe recipe = activeRecipe.getRecipe();
+        if (!hasEventListeners(FactoryRecipeFailureEvent.class, recipe)) {
+            return recipe.doesCancelRecipeOnPerTickFailure();
+        }
         FactoryRecipeFailureEvent event = new FactoryRecipeFailureEvent(
                 thread, this, thread.getStatus().getUnlocMessage(),
                 recipe.doesCancelRecipeOnPerTickFailure());
@@ -296,7 +362,10 @@ public class TileFactoryController extends TileMultiblockMachineController {
      * <p>工厂线程完成一个配方。</p>
      */
     public void onThreadRecipeFinished(FactoryRecipeThread thread) {
-        new FactoryRecipeFinishEvent(thread, this).postEvent();
+        ActiveMachineRecipe activeRecipe = thread.getActiveRecipe();
+        if (activeRecipe == null || hasEventListeners(FactoryRecipeFinishEvent.class, activeRecipe.getRecipe())) {
+            new FactoryRecipeFinishEvent(thread, this).postEvent();
+        }
         if (enableFullDataSync) {
             markForUpdateSync();
         } else {
@@ -347,7 +416,10 @@ public class TileFactoryController extends TileMultiblockMachineController {
                 }
             }
             searchTask = null;
-        } else if (searchRecipeImmediately || (this.ticksExisted % currentRecipeSearchDelay() == 0)) {
+        } else if (searchRecipeImmediately || (this.ticksExisted % currentRecipeSearchDelay() == 0
+                                               && isRecipeSearchRequired(lastSearchChangeCounter, lastSearchTick))) {
+            lastSearchChangeCounter = recipeInputChangeCounter;
+            lastSearchTick = ticksExisted;
             createRecipeSearchTask();
         }
     }
@@ -387,6 +459,74 @@ public class TileFactoryController extends TileMultiblockMachineController {
         return coreRecipeThreads;
     }
 
+    /**
+     * <p>按增量同步使用的顺序返回所有线程：先是核心线程，然后是普通线程。</p>
+     *
+     * <p>Returns every thread in the order used by the delta sync: core threads first, then the normal threads.</p>
+     */
+    public List<FactoryRecipeThread> getThreadsInSyncOrder() {
+        List<FactoryRecipeThread> threads = new ArrayList<>(coreRecipeThreads.size() + recipeThreadList.size());
+        threads.addAll(coreRecipeThreads.values());
+        threads.addAll(recipeThreadList);
+        return threads;
+    }
+
+    /**
+     * <p>在客户端应用 {@link PktFactoryThreadSync} 携带的线程增量。线程数量与服务端不一致时忽略本次增量，
+     * 等待下一次完整同步。</p>
+     *
+     * <p>Applies the thread deltas carried by a {@link PktFactoryThreadSync} on the client. The deltas are dropped if
+     * the thread count does not match the server's, the next full sync fixes it up.</p>
+     */
+    public void readThreadSync(final CraftingStatus controllerStatus,
+                               final int threadCount,
+                               final List<PktFactoryThreadSync.ThreadDelta> deltas)
+    {
+        this.controllerStatus = controllerStatus;
+
+        int coreThreadCount = coreRecipeThreads.size();
+        if (coreThreadCount + recipeThreadList.size() != threadCount) {
+            return;
+        }
+
+        List<FactoryRecipeThread> threads = getThreadsInSyncOrder();
+        for (final PktFactoryThreadSync.ThreadDelta delta : deltas) {
+            int index = delta.index();
+            if (index < 0 || index >= threads.size()) {
+                continue;
+            }
+
+            NBTTagCompound threadData = delta.threadData();
+            if (threadData == null) {
+                FactoryRecipeThread thread = threads.get(index);
+                thread.setStatus(delta.status());
+                ActiveMachineRecipe activeRecipe = thread.getActiveRecipe();
+                if (activeRecipe != null) {
+                    activeRecipe.setTick(delta.tick());
+                    activeRecipe.setTotalTick(delta.totalTick());
+                    activeRecipe.setParallelism(delta.parallelism());
+                }
+                continue;
+            }
+
+            FactoryRecipeThread thread = FactoryRecipeThread.deserialize(threadData, this);
+            if (thread == null) {
+                continue;
+            }
+            if (index >= coreThreadCount) {
+                recipeThreadList.set(index - coreThreadCount, thread);
+                continue;
+            }
+            int i = 0;
+            for (final Map.Entry<String, FactoryRecipeThread> entry : coreRecipeThreads.entrySet()) {
+                if (i++ == index) {
+                    entry.setValue(thread);
+                    break;
+                }
+            }
+        }
+    }
+
     /**
      * 获取工厂最大并行数。
      * 服务端调用。
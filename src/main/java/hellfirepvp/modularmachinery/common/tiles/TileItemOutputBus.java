@@ -8,6 +8,7 @@
 
 package hellfirepvp.modularmachinery.common.tiles;
 
+import github.kasuminova.mmce.common.handler.OutputPushScheduler;
 import github.kasuminova.mmce.common.tile.MEPatternProvider;
 import github.kasuminova.mmce.common.tile.base.MEItemBus;
 import hellfirepvp.modularmachinery.ModularMachinery;
@@ -20,10 +21,14 @@ import hellfirepvp.modularmachinery.common.tiles.base.TileInventory;
 import hellfirepvp.modularmachinery.common.tiles.base.TileItemBus;
 import hellfirepvp.modularmachinery.common.util.IOInventory;
 import hellfirepvp.modularmachinery.common.util.ItemUtils;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntList;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectMap;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectOpenHashMap;
+import net.minecraft.item.Item;
 import net.minecraft.item.ItemStack;
 import net.minecraft.tileentity.TileEntity;
 import net.minecraft.util.EnumFacing;
-import net.minecraft.util.math.BlockPos;
 import net.minecraftforge.items.CapabilityItemHandler;
 import net.minecraftforge.items.IItemHandler;
 
@@ -40,6 +45,13 @@ public class TileItemOutputBus extends TileItemBus implements MachineComponentTi
     public static int minWorkDelay = 5;
     public static int maxWorkDelay = 60;
 
+    /**
+     * 缓存的相邻方块实体与物品处理器，按 {@link EnumFacing#getIndex()} 索引，在相邻方块变化时刷新。
+     */
+    private final TileEntity[] neighborTiles = new TileEntity[EnumFacing.VALUES.length];
+    private final IItemHandler[] neighborHandlers = new IItemHandler[EnumFacing.VALUES.length];
+    private boolean neighborsChanged = true;
+
     public TileItemOutputBus() {
     }
 
@@ -53,83 +65,153 @@ public class TileItemOutputBus extends TileItemBus implements MachineComponentTi
             return;
         }
 
-        for (EnumFacing facing : EnumFacing.VALUES) {
-            BlockPos offset = getPos().offset(facing);
-            TileEntity te = getWorld().getTileEntity(offset);
-            if (te == null || te instanceof TileItemBus) {
-                continue;
-            }
+        if (OutputPushScheduler.isEnabled()) {
+            OutputPushScheduler.INSTANCE.schedule(this);
+        } else {
+            pushOutputs();
+        }
+    }
 
-            if (Mods.AE2.isPresent() && ((te instanceof MEItemBus) || (te instanceof MEPatternProvider))) {
-                continue;
-            }
+    public void onNeighborChange() {
+        neighborsChanged = true;
+    }
 
-            EnumFacing accessingSide = facing.getOpposite();
+    /**
+     * <p>将内部物品推送到所有相邻的容器中。</p>
+     *
+     * <p>Pushes the internal items into every adjacent inventory.</p>
+     */
+    public void pushOutputs() {
+        if (isInventoryEmpty()) {
+            decrementSuccessCounter();
+            return;
+        }
+
+        refreshNeighbors();
 
-            IItemHandler itemHandler = te.getCapability(CapabilityItemHandler.ITEM_HANDLER_CAPABILITY, accessingSide);
+        boolean successAtLeastOnce = false;
+        for (final IItemHandler itemHandler : neighborHandlers) {
             if (itemHandler == null) {
                 continue;
             }
-
             try {
-                outputToExternal(itemHandler);
+                successAtLeastOnce |= outputToExternal(itemHandler);
             } catch (Exception e) {
                 ModularMachinery.log.error("Exception when insert item: ", e);
             }
         }
+
+        if (successAtLeastOnce) {
+            incrementSuccessCounter(maxWorkDelay, minWorkDelay);
+            super.markNoUpdate();
+        } else {
+            decrementSuccessCounter();
+        }
     }
 
-    private synchronized void outputToExternal(IItemHandler external) {
-        boolean successAtLeastOnce = false;
+    private boolean isInventoryEmpty() {
+        for (int slot = 0; slot < inventory.getSlots(); slot++) {
+            if (!inventory.getStackInSlot(slot).isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void refreshNeighbors() {
+        if (!neighborsChanged) {
+            for (final TileEntity te : neighborTiles) {
+                if (te != null && te.isInvalid()) {
+                    neighborsChanged = true;
+                    break;
+                }
+            }
+            if (!neighborsChanged) {
+                return;
+            }
+        }
+        neighborsChanged = false;
 
+        for (EnumFacing facing : EnumFacing.VALUES) {
+            int index = facing.getIndex();
+            neighborTiles[index] = null;
+            neighborHandlers[index] = null;
+
+            TileEntity te = getWorld().getTileEntity(getPos().offset(facing));
+            if (te == null || te instanceof TileItemBus) {
+                continue;
+            }
+
+            if (Mods.AE2.isPresent() && ((te instanceof MEItemBus) || (te instanceof MEPatternProvider))) {
+                continue;
+            }
+
+            neighborTiles[index] = te;
+            neighborHandlers[index] = te.getCapability(CapabilityItemHandler.ITEM_HANDLER_CAPABILITY, facing.getOpposite());
+        }
+    }
+
+    /**
+     * <p>一次扫描外部容器，按物品分组记录未满的槽位与空槽位，然后每个内部物品只需尝试同种物品的槽位与空槽位。</p>
+     *
+     * <p>Scans the external inventory once, grouping its non-full slots by item and collecting its empty slots, so each
+     * internal stack only tries the slots holding the same item and the empty ones.</p>
+     */
+    private synchronized boolean outputToExternal(IItemHandler external) {
+        Reference2ObjectMap<Item, IntList> partialSlots = new Reference2ObjectOpenHashMap<>();
+        IntList emptySlots = new IntArrayList();
         for (int externalSlotId = 0; externalSlotId < external.getSlots(); externalSlotId++) {
             ItemStack externalStack = external.getStackInSlot(externalSlotId);
-            int slotLimit = external.getSlotLimit(externalSlotId);
-            if (!externalStack.isEmpty() && externalStack.getCount() >= slotLimit) {
-                continue;
+            if (externalStack.isEmpty()) {
+                emptySlots.add(externalSlotId);
+            } else if (externalStack.getCount() < external.getSlotLimit(externalSlotId)) {
+                partialSlots.computeIfAbsent(externalStack.getItem(), k -> new IntArrayList()).add(externalSlotId);
             }
+        }
+        if (partialSlots.isEmpty() && emptySlots.isEmpty()) {
+            return false;
+        }
 
-            for (int internalSlotId = 0; internalSlotId < inventory.getSlots(); internalSlotId++) {
-                ItemStack internalStack = inventory.getStackInSlot(internalSlotId);
-                if (internalStack.isEmpty()) {
-                    continue;
-                }
+        boolean successAtLeastOnce = false;
+        for (int internalSlotId = 0; internalSlotId < inventory.getSlots(); internalSlotId++) {
+            ItemStack internalStack = inventory.getStackInSlot(internalSlotId);
+            if (internalStack.isEmpty()) {
+                continue;
+            }
 
-                if (externalStack.isEmpty()) {
-                    ItemStack notInserted = external.insertItem(externalSlotId, internalStack, false);
-                    // Safeguard against Storage Drawers virtual slot
-                    if (notInserted.getCount() == internalStack.getCount()) {
-                        break;
-                    }
-                    inventory.setStackInSlot(internalSlotId, notInserted);
-                    successAtLeastOnce = true;
-                    if (notInserted.isEmpty()) {
-                        break;
+            ItemStack remaining = internalStack;
+            IntList sameItemSlots = partialSlots.get(internalStack.getItem());
+            if (sameItemSlots != null) {
+                for (int i = 0; i < sameItemSlots.size() && !remaining.isEmpty(); i++) {
+                    int externalSlotId = sameItemSlots.getInt(i);
+                    if (ItemUtils.matchStacks(remaining, external.getStackInSlot(externalSlotId))) {
+                        remaining = external.insertItem(externalSlotId, remaining, false);
                     }
-                    continue;
                 }
+            }
 
-                if (!ItemUtils.matchStacks(internalStack, externalStack)) {
+            int emptySlotIndex = 0;
+            while (!remaining.isEmpty() && emptySlotIndex < emptySlots.size()) {
+                int externalSlotId = emptySlots.getInt(emptySlotIndex);
+                ItemStack notInserted = external.insertItem(externalSlotId, remaining, false);
+                // Safeguard against Storage Drawers virtual slot, and slots rejecting this item may still accept others.
+                if (notInserted.getCount() == remaining.getCount()) {
+                    emptySlotIndex++;
                     continue;
                 }
+                // The slot now holds this item, so later stacks of the same item can top it up.
+                emptySlots.removeInt(emptySlotIndex);
+                partialSlots.computeIfAbsent(remaining.getItem(), k -> new IntArrayList()).add(externalSlotId);
+                remaining = notInserted;
+            }
 
-                // Extract internal item to external.
-                ItemStack notInserted = external.insertItem(externalSlotId, internalStack, false);
-                inventory.setStackInSlot(internalSlotId, notInserted);
-
+            if (remaining.getCount() != internalStack.getCount()) {
+                inventory.setStackInSlot(internalSlotId, remaining);
                 successAtLeastOnce = true;
-                if (notInserted.isEmpty()) {
-                    break;
-                }
             }
         }
 
-        if (successAtLeastOnce) {
-            incrementSuccessCounter(maxWorkDelay, minWorkDelay);
-            super.markNoUpdate();
-        } else {
-            decrementSuccessCounter();
-        }
+        return successAtLeastOnce;
     }
 
     @Override
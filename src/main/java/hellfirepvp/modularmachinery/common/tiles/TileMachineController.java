@@ -13,6 +13,7 @@ import github.kasuminova.mmce.common.event.recipe.RecipeFailureEvent;
 import github.kasuminova.mmce.common.event.recipe.RecipeFinishEvent;
 import github.kasuminova.mmce.common.event.recipe.RecipeStartEvent;
 import github.kasuminova.mmce.common.event.recipe.RecipeTickEvent;
+import github.kasuminova.mmce.common.util.TimeRecorder;
 import hellfirepvp.modularmachinery.ModularMachinery;
 import hellfirepvp.modularmachinery.common.block.BlockController;
 import hellfirepvp.modularmachinery.common.crafting.ActiveMachineRecipe;
@@ -110,7 +111,10 @@ public class TileMachineController extends TileMultiblockMachineController {
     }
 
     protected boolean doAsyncStep() {
-        return !doStructureCheck() || !isStructureFormed();
+        long start = System.nanoTime();
+        boolean formed = doStructureCheck() && isStructureFormed();
+        timeRecorder.addPhaseTime(TimeRecorder.Phase.STRUCTURE_CHECK, System.nanoTime() - start);
+        return !formed;
     }
 
     protected void doSyncStep(boolean recordTime) {
@@ -120,7 +124,9 @@ public class TileMachineController extends TileMultiblockMachineController {
 
         final boolean prevWorkingStatus = isWorking();
 
-        if (doRecipeTick()) {
+        doRecipeTick();
+        // Progress is extrapolated by the client, only sync when it can not be.
+        if (recipeThread.checkProgressSync(getWorld().getTotalWorldTime())) {
             markNoUpdateSync();
         }
 
@@ -157,7 +163,7 @@ public class TileMachineController extends TileMultiblockMachineController {
             // To prevent performance drain due to long output blocking,
             // try to complete the recipe every 10 Tick instead of every Tick.
             if (ticksExisted % 10 == 0) {
-                thread.onFinished();
+                finishThread(thread);
             }
             return true;
         }
@@ -166,14 +172,22 @@ public class TileMachineController extends TileMultiblockMachineController {
             thread.setContext(thread.createContext(activeRecipe));
         }
 
+        // Nothing listens to the tick events most of the time, skip them without allocating anything.
+        boolean postTickEvents = hasEventListeners(RecipeTickEvent.class, activeRecipe.getRecipe());
+
         // PreTickEvent
-        RecipeTickEvent event = new RecipeTickEvent(this, thread, Phase.START);
-        event.postEvent();
-        if (event.isFailure()) {
-            return true;
+        if (postTickEvents) {
+            long eventStart = System.nanoTime();
+            RecipeTickEvent event = new RecipeTickEvent(this, thread, Phase.START);
+            event.postEvent();
+            timeRecorder.addPhaseTime(TimeRecorder.Phase.EVENTS, System.nanoTime() - eventStart);
+            if (event.isFailure()) {
+                return true;
+            }
         }
 
         // RecipeTick
+        long tickStart = System.nanoTime();
         if (status != thread.getStatus()) {
             status = thread.getStatus();
             thread.onTick();
@@ -181,6 +195,7 @@ public class TileMachineController extends TileMultiblockMachineController {
         } else {
             status = thread.onTick();
         }
+        timeRecorder.addPhaseTime(TimeRecorder.Phase.RECIPE_TICK, System.nanoTime() - tickStart);
 
         if (isNotWorking(thread, status)) {
             if (enableFullDataSync) {
@@ -192,14 +207,29 @@ public class TileMachineController extends TileMultiblockMachineController {
         }
 
         // PostTickEvent
-        new RecipeTickEvent(this, thread, Phase.END).postEvent();
+        if (postTickEvents) {
+            long eventStart = System.nanoTime();
+            new RecipeTickEvent(this, thread, Phase.END).postEvent();
+            timeRecorder.addPhaseTime(TimeRecorder.Phase.EVENTS, System.nanoTime() - eventStart);
+        }
 
         if (thread.isCompleted()) {
-            thread.onFinished();
+            finishThread(thread);
         }
         return true;
     }
 
+    @Override
+    protected void extrapolateProgress() {
+        recipeThread.extrapolateProgress();
+    }
+
+    protected void finishThread(final MachineRecipeThread thread) {
+        long start = System.nanoTime();
+        thread.onFinished();
+        timeRecorder.addPhaseTime(TimeRecorder.Phase.RECIPE_FINISH, System.nanoTime() - start);
+    }
+
     protected boolean isNotWorking(final MachineRecipeThread thread, final CraftingStatus status) {
         if (status.isCrafting()) {
             return false;
@@ -259,8 +289,10 @@ public class TileMachineController extends TileMultiblockMachineController {
      * <p>机器开始执行一个配方。</p>
      */
     public void onStart() {
-        new RecipeStartEvent(this, recipeThread).postEvent();
         ActiveMachineRecipe activeRecipe = recipeThread.getActiveRecipe();
+        if (hasEventListeners(RecipeStartEvent.class, activeRecipe.getRecipe())) {
+            new RecipeStartEvent(this, recipeThread).postEvent();
+        }
         activeRecipe.start(recipeThread.getContext());
         resetRecipeSearchRetryCount();
         if (enableFullDataSync) {
@@ -282,6 +314,9 @@ public class TileMachineController extends TileMultiblockMachineController {
         }
 
         MachineRecipe recipe = activeRecipe.getRecipe();
+        if (!hasEventListeners(RecipeFailureEvent.class, recipe)) {
+            return recipe.doesCancelRecipeOnPerTickFailure();
+        }
         RecipeFailureEvent event = new RecipeFailureEvent(
                 this, recipeThread, recipeThread.getStatus().getUnlocMessage(), recipe.doesCancelRecipeOnPerTickFailure());
         event.postEvent();
@@ -293,7 +328,10 @@ public class TileMachineController extends TileMultiblockMachineController {
      * <p>机械完成一个配方。</p>
      */
     public void onFinished() {
-        new RecipeFinishEvent(this, recipeThread).postEvent();
+        ActiveMachineRecipe activeRecipe = recipeThread.getActiveRecipe();
+        if (activeRecipe == null || hasEventListeners(RecipeFinishEvent.class, activeRecipe.getRecipe())) {
+            new RecipeFinishEvent(this, recipeThread).postEvent();
+        }
         if (enableFullDataSync) {
             markForUpdateSync();
         } else {
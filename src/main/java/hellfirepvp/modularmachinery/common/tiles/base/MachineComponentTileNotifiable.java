@@ -6,4 +6,14 @@ public interface MachineComponentTileNotifiable extends MachineComponentTile {
 
     void onMachineEvent(final MachineEvent event);
 
+    /**
+     * <p>该组件是否需要接收此类型的事件，控制器会在没有任何监听者时跳过事件的创建与发布。</p>
+     *
+     * <p>Whether this component wants to receive events of the given class. The controller skips creating and posting
+     * an event entirely when nothing listens to it.</p>
+     */
+    default boolean isListening(final Class<? extends MachineEvent> eventClass) {
+        return true;
+    }
+
 }
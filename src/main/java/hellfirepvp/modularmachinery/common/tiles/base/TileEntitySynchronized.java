@@ -8,6 +8,7 @@
 
 package hellfirepvp.modularmachinery.common.tiles.base;
 
+import github.kasuminova.mmce.common.world.MachineComponentManager;
 import hellfirepvp.modularmachinery.ModularMachinery;
 import net.minecraft.block.state.IBlockState;
 import net.minecraft.nbt.NBTTagCompound;
@@ -94,6 +95,9 @@ public class TileEntitySynchronized extends TileEntity {
             world.updateComparatorOutputLevel(this.pos, this.getBlockType());
         }
         markChunkDirty();
+        if (this instanceof MachineComponentTile) {
+            MachineComponentManager.INSTANCE.notifyComponentChanged(this);
+        }
 
         inMarkTask = false;
         lastUpdateTick = world.getTotalWorldTime();
@@ -16,6 +16,7 @@ import github.kasuminova.mmce.client.world.BlockModelHider;
 import github.kasuminova.mmce.common.event.Phase;
 import github.kasuminova.mmce.common.event.client.ControllerModelAnimationEvent;
 import github.kasuminova.mmce.common.event.client.ControllerModelGetEvent;
+import github.kasuminova.mmce.common.event.machine.MachineEvent;
 import github.kasuminova.mmce.common.event.machine.MachineStructureFormedEvent;
 import github.kasuminova.mmce.common.event.machine.MachineStructureUpdateEvent;
 import github.kasuminova.mmce.common.event.machine.MachineTickEvent;
@@ -27,9 +28,9 @@ import github.kasuminova.mmce.common.machine.component.MachineComponentProxyRegi
 import github.kasuminova.mmce.common.upgrade.MachineUpgrade;
 import github.kasuminova.mmce.common.upgrade.UpgradeType;
 import github.kasuminova.mmce.common.util.DynamicPattern;
+import github.kasuminova.mmce.common.util.EnergyPool;
 import github.kasuminova.mmce.common.util.TimeRecorder;
 import github.kasuminova.mmce.common.util.concurrent.ActionExecutor;
-import github.kasuminova.mmce.common.world.MMWorldEventListener;
 import github.kasuminova.mmce.common.world.MachineComponentManager;
 import hellfirepvp.modularmachinery.ModularMachinery;
 import hellfirepvp.modularmachinery.client.ClientProxy;
@@ -37,22 +38,33 @@ import hellfirepvp.modularmachinery.common.block.BlockController;
 import hellfirepvp.modularmachinery.common.block.BlockStatedMachineComponent;
 import hellfirepvp.modularmachinery.common.block.prop.WorkingState;
 import hellfirepvp.modularmachinery.common.crafting.ActiveMachineRecipe;
+import hellfirepvp.modularmachinery.common.crafting.MachineRecipe;
+import hellfirepvp.modularmachinery.common.crafting.RecipeInputIndex;
+import hellfirepvp.modularmachinery.common.crafting.RecipeRegistry;
 import hellfirepvp.modularmachinery.common.crafting.helper.ComponentSelectorTag;
 import hellfirepvp.modularmachinery.common.crafting.helper.CraftingStatus;
 import hellfirepvp.modularmachinery.common.crafting.helper.ProcessingComponent;
 import hellfirepvp.modularmachinery.common.crafting.helper.RecipeCraftingContext;
 import hellfirepvp.modularmachinery.common.item.ItemBlueprint;
 import hellfirepvp.modularmachinery.common.machine.DynamicMachine;
+import hellfirepvp.modularmachinery.common.machine.IOType;
 import hellfirepvp.modularmachinery.common.machine.MachineComponent;
 import hellfirepvp.modularmachinery.common.machine.MachineRegistry;
+import hellfirepvp.modularmachinery.common.machine.RecipeThread;
 import hellfirepvp.modularmachinery.common.machine.TaggedPositionBlockArray;
 import hellfirepvp.modularmachinery.common.modifier.MultiBlockModifierReplacement;
 import hellfirepvp.modularmachinery.common.modifier.RecipeModifier;
+import hellfirepvp.modularmachinery.common.modifier.RecipeModifierTable;
 import hellfirepvp.modularmachinery.common.modifier.SingleBlockModifierReplacement;
 import hellfirepvp.modularmachinery.common.tiles.TileParallelController;
 import hellfirepvp.modularmachinery.common.tiles.TileSmartInterface;
 import hellfirepvp.modularmachinery.common.tiles.TileUpgradeBus;
 import hellfirepvp.modularmachinery.common.util.*;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongList;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet;
 import net.minecraft.block.Block;
 import net.minecraft.block.state.IBlockState;
 import net.minecraft.entity.player.EntityPlayerMP;
@@ -66,7 +78,6 @@ import net.minecraft.util.EnumFacing;
 import net.minecraft.util.ResourceLocation;
 import net.minecraft.util.math.AxisAlignedBB;
 import net.minecraft.util.math.BlockPos;
-import net.minecraft.util.math.Vec3i;
 import net.minecraft.util.text.TextFormatting;
 import net.minecraft.world.World;
 import net.minecraftforge.common.capabilities.Capability;
@@ -89,6 +100,7 @@ import javax.annotation.Nullable;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Predicate;
 import java.util.stream.IntStream;
@@ -97,11 +109,19 @@ import java.util.stream.IntStream;
 @net.minecraftforge.fml.common.Optional.Interface(iface = "software.bernie.geckolib3.core.IAnimatable", modid = "geckolib3")
 public abstract class TileMultiblockMachineController extends TileEntityRestrictedTick implements SelectiveUpdateTileEntity, IMachineController, IAnimatable {
     public static final int BLUEPRINT_SLOT = 0, ACCELERATOR_SLOT = 1;
+    public static final int MAX_PENDING_STRUCTURE_CHANGES = 256;
+    private static final AtomicIntegerFieldUpdater<TileMultiblockMachineController> RECIPE_INPUT_CHANGE_COUNTER_UPDATER =
+            AtomicIntegerFieldUpdater.newUpdater(TileMultiblockMachineController.class, "recipeInputChangeCounter");
     public static int structureCheckDelay = 30, maxStructureCheckDelay = 200;
     public static boolean delayedStructureCheck = true;
+    public static boolean incrementalStructureCheck = true;
     public static boolean cleanCustomDataOnStructureCheckFailed = false;
     public static boolean enableSecuritySystem = false;
     public static boolean enableFullDataSync = false;
+    public static int factoryFullSyncInterval = 100;
+    public static boolean eventDrivenRecipeSearch = true;
+    public static int maxIdleRecipeSearchInterval = 400;
+    public static boolean enableEnergyPool = false;
 
     public static int usedTimeCache = 0;
     public static int searchUsedTimeCache = 0;
@@ -109,6 +129,13 @@ public abstract class TileMultiblockMachineController extends TileEntityRestrict
 
     protected final Map<String, List<RecipeModifier>> foundModifiers = new ConcurrentHashMap<>();
     protected final Map<String, RecipeModifier> customModifiers = new ConcurrentHashMap<>();
+    /**
+     * <p>由 {@link #foundModifiers} 与 {@link #customModifiers} 合并而成的修改器表，为 null 时在下次使用时重建。</p>
+     *
+     * <p>Modifier table merged from {@link #foundModifiers} and {@link #customModifiers},
+     * rebuilt on next use when null.</p>
+     */
+    protected volatile RecipeModifierTable modifierTable = null;
 
     protected final Map<TileSmartInterface.SmartInterfaceProvider, String> foundSmartInterfaces = new ConcurrentHashMap<>();
     protected final Map<String, List<MachineUpgrade>> foundUpgrades = new ConcurrentHashMap<>();
@@ -118,7 +145,34 @@ public abstract class TileMultiblockMachineController extends TileEntityRestrict
 
     protected final TimeRecorder timeRecorder = new TimeRecorder();
 
+    /**
+     * <p>聚合所有能量输入仓 / 输出仓的虚拟能量池，在结构更新时重建，未启用或无能量仓时为 null。</p>
+     *
+     * <p>Virtual energy pools aggregating every energy input / output hatch, rebuilt on structure update.
+     * Null when disabled or when there is no such hatch.</p>
+     */
+    protected volatile EnergyPool energyInputPool = null;
+    protected volatile EnergyPool energyOutputPool = null;
+    /**
+     * 没有对应能量池时保留的未结算能量，能量池重新建立时转移过去。
+     */
+    protected long energyInputDebt = 0;
+    protected long energyOutputDebt = 0;
+    protected volatile boolean energyPoolsDirty = false;
+    private final Object energyPoolLock = new Object();
+
+    /**
+     * <p>结构内会接收机械事件的组件，以及结构内升级所监听的事件类型，在结构更新时重建。</p>
+     *
+     * <p>Components of the structure that receive machine events, and the event classes listened to by the
+     * structure's upgrades. Rebuilt on structure update.</p>
+     */
+    protected volatile MachineComponentTileNotifiable[] notifiableComponents = new MachineComponentTileNotifiable[0];
+    protected volatile Set<Class<?>> upgradeEventClasses = Collections.emptySet();
+
     protected boolean searchRecipeImmediately = false;
+    protected volatile int recipeInputChangeCounter = 0;
+    protected boolean hasUnnotifiableComponents = false;
 
     protected EnumFacing controllerRotation = null;
     protected DynamicMachine.ModifierReplacementMap foundReplacements = null;
@@ -143,8 +197,21 @@ public abstract class TileMultiblockMachineController extends TileEntityRestrict
     protected int recipeResearchRetryCounter = 0;
 
     protected int lastStrongPower = -1;
+    /**
+     * 控制器是否因红石信号暂停，由服务端同步。客户端的红石信号缓存不可靠，因此不能自行判断。
+     */
+    protected boolean redstonePowered = false;
 
     protected int lastStructureCheckTick = -1;
+    protected int lastStructureChangesDrainTick = -1;
+
+    /**
+     * <p>由 {@link MachineComponentManager} 路由过来的、尚未检查的结构内方块变化。</p>
+     * <p>Block changes inside the structure routed by {@link MachineComponentManager} that have not been checked yet.
+     * Guarded by itself.</p>
+     */
+    protected final LongSet pendingStructureChanges = new LongOpenHashSet();
+    protected boolean pendingFullStructureCheck = false;
 
     protected long executeGroupId = -1;
 
@@ -165,6 +232,9 @@ public abstract class TileMultiblockMachineController extends TileEntityRestrict
         //延迟结构检查
         delayedStructureCheck = config.getBoolean("delayed-structure-check", "general",
                 true, "When enabled, the structure check interval in the idle state is incrementally increased to ease the performance footprint.");
+        //增量结构检查
+        incrementalStructureCheck = config.getBoolean("incremental-structure-check", "general",
+                true, "When enabled, a formed structure only revalidates the blocks changed since the last tick between two full checks, instead of the whole pattern.");
         //最长结构检查间隔
         maxStructureCheckDelay = config.getInt("max-structure-check-delay", "general",
                 100, 2, 1200,
@@ -185,6 +255,20 @@ public abstract class TileMultiblockMachineController extends TileEntityRestrict
                 "When enabled, players using the controller will have their owner checked and non-owners will be denied access.");
         enableFullDataSync = config.getBoolean("enable-full-data-sync", "general", false,
                 "When enabled, the controller sends the full NBT to the client at the start and completion of the recipe, which can be helpful for machinery where the client needs to perform special operations.");
+        //工厂完整同步间隔
+        factoryFullSyncInterval = config.getInt("factory-full-sync-interval", "general",
+                100, 1, 1200,
+                "While a player has the factory GUI open, only the changed threads are synced every tick, and the full controller data is sent at this interval. (TimeUnit: Tick)");
+        //事件驱动的配方搜索
+        eventDrivenRecipeSearch = config.getBoolean("event-driven-recipe-search", "general",
+                true, "When enabled, idle machines only search for recipes after the contents of their components have changed, instead of polling at a fixed interval.");
+        //事件驱动配方搜索的最长间隔
+        maxIdleRecipeSearchInterval = config.getInt("max-idle-recipe-search-interval", "general",
+                400, 20, 12000,
+                "When event-driven-recipe-search is enabled, the maximum interval between two recipe searches of an idle machine whose components have not changed. (TimeUnit: Tick)");
+        //控制器能量池
+        enableEnergyPool = config.getBoolean("controller-energy-pool", "general",
+                false, "When enabled, per-tick energy requirements draw from a controller-level pool that aggregates the controller's own untagged energy hatches, and the hatches are settled once per tick. Hatches shared with other controllers or selected by tagged requirements are never pooled.");
     }
 
     public <T> void addComponent(MachineComponent<T> component, @Nullable ComponentSelectorTag tag, TileEntity te, Map<TileEntity, ProcessingComponent<?>> components) {
@@ -195,12 +279,29 @@ public abstract class TileMultiblockMachineController extends TileEntityRestrict
     @Override
     public final void doRestrictedTick() {
         if (getWorld().isRemote) {
+            // The server does not tick recipes while the controller is powered, so neither does the client.
+            if (!redstonePowered) {
+                extrapolateProgress();
+            }
             return;
         }
         timeRecorder.updateUsedTime(tickExecutor);
+        timeRecorder.finishPhaseTick();
+
+        boolean powered = getStrongPower() > 0;
+        if (powered != redstonePowered) {
+            redstonePowered = powered;
+            markForUpdateSync();
+        }
 
         final long tickStart = System.nanoTime();
 
+        if (energyPoolsDirty) {
+            updateEnergyPools();
+        } else {
+            settleEnergyPools();
+        }
+
         // Controller Tick
         doControllerTick();
 
@@ -209,6 +310,111 @@ public abstract class TileMultiblockMachineController extends TileEntityRestrict
 
     public abstract void doControllerTick();
 
+    /**
+     * <p>客户端每 Tick 调用，推算正在运行的配方进度。服务端只在进度无法推算时才同步，见 {@link RecipeThread#checkProgressSync(long)}。</p>
+     *
+     * <p>Called every client tick to extrapolate the progress of running recipes. The server only syncs when the
+     * progress can not be extrapolated, see {@link RecipeThread#checkProgressSync(long)}.</p>
+     */
+    protected void extrapolateProgress() {
+    }
+
+    protected void settleEnergyPools() {
+        long tick = getWorld().getTotalWorldTime();
+        EnergyPool inputPool = this.energyInputPool;
+        if (inputPool != null) {
+            inputPool.settle(tick);
+        }
+        EnergyPool outputPool = this.energyOutputPool;
+        if (outputPool != null) {
+            outputPool.settle(tick);
+        }
+    }
+
+    /**
+     * <p>结算旧的能量池并按当前组件重建，组件变化或能量仓被其他控制器共享后调用。旧能量池未能结算的能量会转移到新的能量池。</p>
+     *
+     * <p>Settles the old energy pools and rebuilds them from the current components, called after the components
+     * have changed or a hatch got shared with another controller. Energy the old pools could not settle is handed
+     * over to the new ones.</p>
+     */
+    protected void updateEnergyPools() {
+        synchronized (energyPoolLock) {
+            energyPoolsDirty = false;
+            settleEnergyPools();
+            EnergyPool oldInput = this.energyInputPool;
+            EnergyPool oldOutput = this.energyOutputPool;
+            long inputDebt = oldInput == null ? energyInputDebt : oldInput.getCarried();
+            long outputDebt = oldOutput == null ? energyOutputDebt : oldOutput.getCarried();
+            this.energyInputPool = null;
+            this.energyOutputPool = null;
+
+            List<IEnergyHandlerAsync> inputs = new ArrayList<>();
+            List<IEnergyHandlerAsync> outputs = new ArrayList<>();
+            if (enableEnergyPool) {
+                foundComponents.forEach((te, component) -> {
+                    MachineComponent<?> machineComponent = component.component();
+                    if (!(machineComponent instanceof MachineComponent.EnergyHatch) ||
+                            !(component.getProvidedComponent() instanceof IEnergyHandlerAsync handler)) {
+                        return;
+                    }
+                    // Tagged requirements and other controllers drain these hatches directly, pooling them would spend
+                    // the same energy twice.
+                    if (component.getTag() != null || MachineComponentManager.INSTANCE.isComponentShared(te)) {
+                        return;
+                    }
+                    switch (machineComponent.ioType) {
+                        case INPUT -> inputs.add(handler);
+                        case OUTPUT -> outputs.add(handler);
+                    }
+                });
+            }
+
+            if (!inputs.isEmpty()) {
+                this.energyInputPool = new EnergyPool(IOType.INPUT, inputs, inputDebt);
+                inputDebt = 0;
+            }
+            if (!outputs.isEmpty()) {
+                this.energyOutputPool = new EnergyPool(IOType.OUTPUT, outputs, outputDebt);
+                outputDebt = 0;
+            }
+            this.energyInputDebt = inputDebt;
+            this.energyOutputDebt = outputDebt;
+        }
+    }
+
+    /**
+     * <p>标记能量池需要在下一 Tick 开始时重建，例如该控制器的某个能量仓开始被其他控制器共享。</p>
+     *
+     * <p>Marks the energy pools to be rebuilt at the start of the next tick, e.g. because one of the controller's
+     * hatches is now shared with another controller.</p>
+     */
+    public void invalidateEnergyPools() {
+        if (energyInputPool != null || energyOutputPool != null) {
+            energyPoolsDirty = true;
+        }
+    }
+
+    /**
+     * <p>获取该方向的能量池，未启用或没有对应能量仓时返回 null。</p>
+     *
+     * <p>Returns the energy pool of the given direction, or null if pools are disabled or there is no such hatch.</p>
+     */
+    @Nullable
+    public EnergyPool getEnergyPool(final IOType ioType) {
+        return ioType == IOType.INPUT ? energyInputPool : energyOutputPool;
+    }
+
+    /**
+     * <p>获取该方向上一 Tick 实际交换的能量，没有能量池时返回 0。</p>
+     *
+     * <p>Returns the energy actually exchanged in the given direction during the last tick, or 0 without a pool.</p>
+     */
+    public long getEnergyPerTick(final IOType ioType) {
+        EnergyPool pool = getEnergyPool(ioType);
+        return pool == null ? 0 : pool.getEnergyPerTick();
+    }
+
     protected IOInventory buildInventory() {
         return (IOInventory) new IOInventory(this, new int[0], new int[0]).setMiscSlots(BLUEPRINT_SLOT);
     }
@@ -256,6 +462,36 @@ public abstract class TileMultiblockMachineController extends TileEntityRestrict
         this.searchRecipeImmediately = searchRecipeImmediately;
     }
 
+    /**
+     * <p>标记配方输入已变更（组件内容、组件列表或修改器），使闲置的配方线程重新搜索配方。</p>
+     * <p>Marks the recipe inputs (component contents, component list or modifiers) as changed,
+     * so idle recipe threads search for recipes again.</p>
+     */
+    public void markRecipeInputsChanged() {
+        RECIPE_INPUT_CHANGE_COUNTER_UPDATER.incrementAndGet(this);
+    }
+
+    public int getRecipeInputChangeCounter() {
+        return recipeInputChangeCounter;
+    }
+
+    /**
+     * <p>判断自上次搜索以来是否需要再次搜索配方。</p>
+     * <p>Whether a recipe search is required since the last search,
+     * which started at {@code lastSearchTick} with the change counter {@code lastChangeCounter}.</p>
+     */
+    public boolean isRecipeSearchRequired(final int lastChangeCounter, final int lastSearchTick) {
+        DynamicMachine foundMachine = this.foundMachine;
+        if (!eventDrivenRecipeSearch || foundMachine == null || hasUnnotifiableComponents) {
+            return true;
+        }
+        if (recipeInputChangeCounter != lastChangeCounter || ticksExisted - lastSearchTick >= maxIdleRecipeSearchInterval) {
+            return true;
+        }
+        RecipeInputIndex index = RecipeRegistry.getInputIndex(foundMachine);
+        return index == null || index.requiresPolling() || RecipeInputIndex.hasRecipeCheckEventHandlers(this, foundMachine);
+    }
+
     public int getMaxParallelism() {
         int parallelism = foundMachine.getInternalParallelism();
         int maxParallelism = foundMachine.getMaxParallelism();
@@ -322,19 +558,99 @@ public abstract class TileMultiblockMachineController extends TileEntityRestrict
             return ticksExisted % structureCheckDelay == 0;
         }
         if (isStructureFormed()) {
-            if (ticksExisted % Math.min(structureCheckDelay + currentRecipeSearchDelay(), maxStructureCheckDelay) == 0) {
-                return true;
-            } else {
-                BlockPos pos = getPos();
-                Vec3i min = foundPattern.getMin();
-                Vec3i max = foundPattern.getMax();
-                return MMWorldEventListener.INSTANCE.isAreaChanged(getWorld(), pos.add(min), pos.add(max));
-            }
+            return isPeriodicStructureCheck() || lastStructureChangesDrainTick == ticksExisted || hasPendingStructureChanges();
         } else {
             return ticksExisted % Math.min(structureCheckDelay + this.structureCheckCounter * 5, maxStructureCheckDelay) == 0;
         }
     }
 
+    protected boolean isPeriodicStructureCheck() {
+        return ticksExisted % Math.min(structureCheckDelay + currentRecipeSearchDelay(), maxStructureCheckDelay) == 0;
+    }
+
+    /**
+     * <p>判断本次对已成型结构的检查是否可以只检查本 Tick 内发生变化的方块。</p>
+     * <p>Whether this check of a formed structure may only revalidate the blocks changed during this tick.</p>
+     */
+    protected boolean canCheckStructureIncrementally() {
+        return incrementalStructureCheck && delayedStructureCheck
+                && lastStructureCheckTick != -1
+                && !foundComponents.isEmpty()
+                && foundDynamicPatterns.isEmpty()
+                && !isPeriodicStructureCheck();
+    }
+
+    /**
+     * <p>检查已成型的结构是否仍然完整，如果可以则只检查发生变化的方块，否则检查整个结构。</p>
+     * <p>Checks whether the formed structure is still intact. Only the changed blocks are checked when possible,
+     * otherwise the whole pattern is.</p>
+     */
+    protected boolean matchesFormedStructure(final BlockPos ctrlPos, final boolean incremental) {
+        if (incremental) {
+            LongList changed = drainPendingStructureChanges();
+            if (changed != null) {
+                return foundPattern.matchesPositions(getWorld(), ctrlPos, changed, true, this.foundReplacements);
+            }
+        } else {
+            drainPendingStructureChanges();
+        }
+        return foundPattern.matches(getWorld(), ctrlPos, true, this.foundReplacements) && matchesDynamicPattern(foundMachine);
+    }
+
+    /**
+     * <p>结构包围盒内的方块发生了变化，由 {@link MachineComponentManager#notifyStructureBlockChanged} 调用。</p>
+     * <p>A block inside the structure bounding box changed, called by {@link MachineComponentManager#notifyStructureBlockChanged}.</p>
+     */
+    public void onStructureBlockChanged(final BlockPos pos) {
+        synchronized (pendingStructureChanges) {
+            if (pendingFullStructureCheck) {
+                return;
+            }
+            pendingStructureChanges.add(pos.toLong());
+            if (pendingStructureChanges.size() > MAX_PENDING_STRUCTURE_CHANGES) {
+                pendingStructureChanges.clear();
+                pendingFullStructureCheck = true;
+            }
+        }
+    }
+
+    /**
+     * <p>结构所在的区域整体发生了变化（例如区块卸载），下次检查需要检查整个结构。</p>
+     * <p>The area of the structure changed as a whole (e.g. chunk unloaded), the next check has to be a full one.</p>
+     */
+    public void onStructureAreaChanged() {
+        synchronized (pendingStructureChanges) {
+            pendingStructureChanges.clear();
+            pendingFullStructureCheck = true;
+        }
+    }
+
+    protected boolean hasPendingStructureChanges() {
+        synchronized (pendingStructureChanges) {
+            return pendingFullStructureCheck || !pendingStructureChanges.isEmpty();
+        }
+    }
+
+    /**
+     * @return 待检查的变化坐标，如果需要完整检查则返回 null。
+     * <br>The pending changed positions, or null if a full check is required.
+     */
+    @Nullable
+    protected LongList drainPendingStructureChanges() {
+        synchronized (pendingStructureChanges) {
+            lastStructureChangesDrainTick = ticksExisted;
+            boolean full = pendingFullStructureCheck;
+            pendingFullStructureCheck = false;
+            if (full) {
+                pendingStructureChanges.clear();
+                return null;
+            }
+            LongList changed = new LongArrayList(pendingStructureChanges);
+            pendingStructureChanges.clear();
+            return changed;
+        }
+    }
+
     public int currentRecipeSearchDelay() {
         return Math.min(20 + this.recipeResearchRetryCounter * 5, 100);
     }
@@ -352,6 +668,7 @@ public abstract class TileMultiblockMachineController extends TileEntityRestrict
             if (cleanCustomDataOnStructureCheckFailed) {
                 customData = new NBTTagCompound();
                 customModifiers.clear();
+                invalidateModifierTable();
             }
 
             if (workMode == WorkMode.SYNC) {
@@ -361,6 +678,7 @@ public abstract class TileMultiblockMachineController extends TileEntityRestrict
             }
         }
         updateStatedMachineComponentSync(false);
+        MachineComponentManager.INSTANCE.removeStructure(this);
 
         prevMachine = foundMachine;
         foundMachine = null;
@@ -548,11 +866,39 @@ public abstract class TileMultiblockMachineController extends TileEntityRestrict
 
     public RecipeCraftingContext createContext(ActiveMachineRecipe activeRecipe) {
         RecipeCraftingContext context = foundMachine.createContext(activeRecipe, this);
-        context.addModifier(MiscUtils.flatten(this.foundModifiers.values()));
-        context.addModifier(customModifiers.values());
+        context.setBaseModifierTable(getModifierTable());
         return context;
     }
 
+    /**
+     * <p>获取本控制器所有结构修改器与自定义修改器合并后的不可变修改器表，由所有配方上下文共享。</p>
+     *
+     * <p>Returns the immutable table of this controller's structure and custom modifiers,
+     * shared by every recipe context.</p>
+     */
+    public RecipeModifierTable getModifierTable() {
+        RecipeModifierTable table = this.modifierTable;
+        if (table != null) {
+            return table;
+        }
+        synchronized (foundModifiers) {
+            table = this.modifierTable;
+            if (table == null) {
+                List<RecipeModifier> modifiers = MiscUtils.flatten(this.foundModifiers.values());
+                modifiers.addAll(customModifiers.values());
+                this.modifierTable = table = RecipeModifierTable.of(modifiers);
+            }
+        }
+        return table;
+    }
+
+    public void invalidateModifierTable() {
+        // Waits for an in-flight rebuild, so a table built from stale modifiers never outlives the invalidation.
+        synchronized (foundModifiers) {
+            this.modifierTable = null;
+        }
+    }
+
     protected void onStructureFormed() {
         new MachineStructureFormedEvent(this).postEvent();
         new MachineStructureUpdateEvent(this).postEvent();
@@ -560,6 +906,7 @@ public abstract class TileMultiblockMachineController extends TileEntityRestrict
         if (!foundDynamicPatterns.isEmpty()) {
             addDynamicPatternToBlockArray();
         }
+        MachineComponentManager.INSTANCE.addStructure(this);
 
         if (workMode == WorkMode.SYNC) {
             notifyStructureFormedState(true);
@@ -623,6 +970,7 @@ public abstract class TileMultiblockMachineController extends TileEntityRestrict
             return true;
         }
 
+        boolean incremental = isStructureFormed() && canCheckStructureIncrementally();
         lastStructureCheckTick = ticksExisted;
 
         if (isStructureFormed()) {
@@ -633,10 +981,11 @@ public abstract class TileMultiblockMachineController extends TileEntityRestrict
             }
             if (this.foundMachine.isRequiresBlueprint() && !this.foundMachine.equals(getBlueprintMachine())) {
                 resetMachine(true);
-            } else if (
-                    !foundPattern.matches(getWorld(), ctrlPos, true, this.foundReplacements) ||
-                    !matchesDynamicPattern(foundMachine)) {
+            } else if (!matchesFormedStructure(ctrlPos, incremental)) {
                 resetMachine(true);
+            } else if (!incremental) {
+                // Structures restored from NBT never went through onStructureFormed.
+                MachineComponentManager.INSTANCE.addStructure(this);
             }
         }
 
@@ -706,6 +1055,9 @@ public abstract class TileMultiblockMachineController extends TileEntityRestrict
             this.foundComponents.clear();
             this.foundModifiers.clear();
             this.foundSmartInterfaces.clear();
+            invalidateModifierTable();
+            updateEnergyPools();
+            updateEventListeners();
 
             resetMachine(false);
             return;
@@ -722,11 +1074,16 @@ public abstract class TileMultiblockMachineController extends TileEntityRestrict
         this.foundParallelControllers.clear();
         Map<TileEntity, ProcessingComponent<?>> found = new HashMap<>();
 
+        this.hasUnnotifiableComponents = false;
         this.foundPattern.getTileBlocksArray().forEach((pos, info) -> checkAndAddComponents(pos, getPos(), found));
         this.foundComponents.putAll(found);
+        updateEnergyPools();
+        updateEventListeners();
         this.foundModifiers.clear();
         updateModifiers();
         updateMultiBlockModifiers();
+        invalidateModifierTable();
+        markRecipeInputsChanged();
         if (workMode == WorkMode.SYNC) {
             distributeCasingColor();
         } else {
@@ -762,6 +1119,10 @@ public abstract class TileMultiblockMachineController extends TileEntityRestrict
         if (!component.isAsyncSupported()) {
             workMode = WorkMode.SEMI_SYNC;
         }
+        if (!(te instanceof TileEntitySynchronized)) {
+            // Only TileEntitySynchronized notifies its owners about content changes.
+            hasUnnotifiableComponents = true;
+        }
 
         addComponent(component, tag, te, found);
         if (component instanceof TileParallelController.ParallelControllerProvider) {
@@ -772,6 +1133,57 @@ public abstract class TileMultiblockMachineController extends TileEntityRestrict
         checkAndAddSmartInterface(component, realPos);
     }
 
+    protected void updateEventListeners() {
+        List<MachineComponentTileNotifiable> notifiable = new ArrayList<>();
+        for (final TileEntity te : foundComponents.keySet()) {
+            if (te instanceof MachineComponentTileNotifiable componentTile) {
+                notifiable.add(componentTile);
+            }
+        }
+
+        Set<Class<?>> eventClasses = new ReferenceOpenHashSet<>();
+        for (final List<MachineUpgrade> upgrades : foundUpgrades.values()) {
+            for (final MachineUpgrade upgrade : upgrades) {
+                eventClasses.addAll(upgrade.getEventClasses());
+            }
+        }
+
+        this.notifiableComponents = notifiable.toArray(new MachineComponentTileNotifiable[0]);
+        this.upgradeEventClasses = eventClasses.isEmpty() ? Collections.emptySet() : eventClasses;
+    }
+
+    /**
+     * <p>判断该事件类型是否有任何监听者（组件、升级、机械脚本或配方脚本），没有监听者的事件无需创建与发布。</p>
+     *
+     * <p>Checks whether anything listens to the given event class: a component, an upgrade, a machine script handler
+     * or a recipe script handler. Events without any listener do not need to be created and posted at all.</p>
+     *
+     * @param recipe 事件所属的配方，非配方事件为 null
+     */
+    public boolean hasEventListeners(final Class<? extends MachineEvent> eventClass, @Nullable final MachineRecipe recipe) {
+        for (final MachineComponentTileNotifiable component : notifiableComponents) {
+            if (component.isListening(eventClass)) {
+                return true;
+            }
+        }
+        if (upgradeEventClasses.contains(eventClass)) {
+            return true;
+        }
+        DynamicMachine machine = this.foundMachine;
+        if (machine != null && machine.getMachineEventHandlers(eventClass) != null) {
+            return true;
+        }
+        return recipe != null && recipe.getRecipeEventHandlers(eventClass) != null;
+    }
+
+    public boolean hasUpgradeEventListeners(final Class<?> eventClass) {
+        return upgradeEventClasses.contains(eventClass);
+    }
+
+    public MachineComponentTileNotifiable[] getNotifiableComponents() {
+        return notifiableComponents;
+    }
+
     public void checkAndAddUpgradeBus(final MachineComponent<?> component) {
         if (!(component instanceof final TileUpgradeBus.UpgradeBusProvider upgradeBus)) {
             return;
@@ -943,6 +1355,9 @@ public abstract class TileMultiblockMachineController extends TileEntityRestrict
 
     @Nullable
     public RecipeCraftingContext.CraftingCheckResult checkPreStartResult(final RecipeCraftingContext context) {
+        if (!hasEventListeners(RecipeCheckEvent.class, context.getParentRecipe())) {
+            return null;
+        }
         RecipeCheckEvent event = new RecipeCheckEvent(this, context, Phase.START);
         event.postEvent();
 
@@ -959,6 +1374,9 @@ public abstract class TileMultiblockMachineController extends TileEntityRestrict
         if (result.isFailure()) {
             return result;
         }
+        if (!hasEventListeners(RecipeCheckEvent.class, context.getParentRecipe())) {
+            return result;
+        }
 
         RecipeCheckEvent event = new RecipeCheckEvent(this, context, Phase.END);
         event.postEvent();
@@ -976,14 +1394,20 @@ public abstract class TileMultiblockMachineController extends TileEntityRestrict
      * <p>机器开始执行逻辑。</p>
      */
     public void onMachineTick(Phase phase) {
-        new MachineTickEvent(this, phase).postEvent();
+        if (hasEventListeners(MachineTickEvent.class, null)) {
+            long start = System.nanoTime();
+            new MachineTickEvent(this, phase).postEvent();
+            timeRecorder.addPhaseTime(TimeRecorder.Phase.EVENTS, System.nanoTime() - start);
+        }
     }
 
     @Override
     public void addPermanentModifier(String key, RecipeModifier newModifier) {
         if (newModifier != null) {
             customModifiers.put(key, newModifier);
+            invalidateModifierTable();
             flushContextModifier();
+            markRecipeInputsChanged();
         }
     }
 
@@ -991,7 +1415,9 @@ public abstract class TileMultiblockMachineController extends TileEntityRestrict
     public void removePermanentModifier(String key) {
         if (hasModifier(key)) {
             customModifiers.remove(key);
+            invalidateModifierTable();
             flushContextModifier();
+            markRecipeInputsChanged();
         }
     }
 
@@ -1226,6 +1652,7 @@ public abstract class TileMultiblockMachineController extends TileEntityRestrict
         super.invalidate();
         loaded = false;
         foundComponents.forEach((te, component) -> MachineComponentManager.INSTANCE.removeOwner(te, this));
+        MachineComponentManager.INSTANCE.removeStructure(this);
 
         if (getWorld().isRemote) {
             BlockModelHider.hideOrShowBlocks(this);
@@ -1240,6 +1667,10 @@ public abstract class TileMultiblockMachineController extends TileEntityRestrict
     @Override
     public void onChunkUnload() {
         super.onChunkUnload();
+        MachineComponentManager.INSTANCE.removeStructure(this);
+        if (!getWorld().isRemote) {
+            settleEnergyPools();
+        }
     }
 
     @Override
@@ -1258,6 +1689,7 @@ public abstract class TileMultiblockMachineController extends TileEntityRestrict
         }
 
         readMachineNBT(compound);
+        this.redstonePowered = compound.getBoolean("redstonePowered");
 
         if (loaded && world.isRemote) {
             ClientProxy.clientScheduler.addRunnable(() -> {
@@ -1289,6 +1721,9 @@ public abstract class TileMultiblockMachineController extends TileEntityRestrict
         if (this.controllerRotation != null) {
             compound.setByte("rotation", (byte) this.controllerRotation.getHorizontalIndex());
         }
+        if (this.redstonePowered) {
+            compound.setBoolean("redstonePowered", true);
+        }
         if (this.foundMachine != null) {
             compound.setString("machine", this.foundMachine.getRegistryName().toString());
 
@@ -1378,6 +1813,7 @@ public abstract class TileMultiblockMachineController extends TileEntityRestrict
                 this.customModifiers.put(modifierTag.getString("key"), RecipeModifier.deserialize(modifierTag.getCompoundTag("modifier")));
             }
         }
+        invalidateModifierTable();
     }
 
     @Nullable
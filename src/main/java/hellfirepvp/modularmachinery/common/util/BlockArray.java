@@ -15,13 +15,18 @@ import github.kasuminova.mmce.common.helper.AdvancedBlockChecker;
 import github.kasuminova.mmce.common.machine.pattern.SpecialItemBlockProxy;
 import github.kasuminova.mmce.common.machine.pattern.SpecialItemBlockProxyRegistry;
 import github.kasuminova.mmce.common.util.BlockPos2ValueMap;
+import github.kasuminova.mmce.common.world.StructureNBTCache;
 import hellfirepvp.modularmachinery.client.ClientScheduler;
 import hellfirepvp.modularmachinery.common.util.nbt.NBTJsonSerializer;
 import hellfirepvp.modularmachinery.common.util.nbt.NBTMatchingHelper;
 import ink.ikx.mmce.common.utils.StackUtils;
 import ink.ikx.mmce.common.utils.StructureIngredient;
+import it.unimi.dsi.fastutil.longs.LongCollection;
+import it.unimi.dsi.fastutil.longs.LongIterator;
 import it.unimi.dsi.fastutil.objects.ObjectArrayList;
 import it.unimi.dsi.fastutil.objects.ObjectOpenHashSet;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectMap;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectOpenHashMap;
 import net.minecraft.block.Block;
 import net.minecraft.block.state.IBlockState;
 import net.minecraft.item.ItemStack;
@@ -61,6 +66,8 @@ public class BlockArray {
     protected Map<BlockPos, BlockInformation> tileBlocksArray = new BlockPos2ValueMap<>();
     private BlockPos min = new BlockPos(0, 0, 0), max = new BlockPos(0, 0, 0), size = new BlockPos(0, 0, 0);
 
+    private volatile CompiledPattern compiledPattern = null;
+
     public BlockArray() {
         this.uid = BlockArrayCache.nextUID();
     }
@@ -105,6 +112,7 @@ public class BlockArray {
     }
 
     public void overwrite(BlockArray other) {
+        this.compiledPattern = null;
         this.pattern = new BlockPos2ValueMap<>(other.pattern);
         this.min = new BlockPos(other.min.getX(), other.min.getY(), other.min.getZ());
         this.max = new BlockPos(other.max.getX(), other.max.getY(), other.max.getZ());
@@ -116,6 +124,7 @@ public class BlockArray {
     }
 
     public void addBlock(BlockPos offset, @Nonnull BlockInformation info) {
+        compiledPattern = null;
         pattern.put(offset, info.canonicalize());
         updateSize(offset);
     }
@@ -301,32 +310,59 @@ public class BlockArray {
 //            return matchesParallel(world, center, oldState, modifierReplacementPattern);
 //        }
 
-        patternCheck:
-        for (Map.Entry<BlockPos, BlockInformation> entry : pattern.entrySet()) {
-            BlockPos at = center.add(entry.getKey());
+        CompiledPattern compiled = compile();
+        BlockPos[] offsets = compiled.offsets;
+        BlockInformation[] infos = compiled.infos;
+        for (int i = 0; i < offsets.length; i++) {
+            BlockPos at = center.add(offsets[i]);
             // Block is matched, continue.
-            if (entry.getValue().matches(world, at, oldState)) {
+            if (infos[i].matches(world, at, oldState)) {
                 continue;
             }
 
-            // Block is not match, and there are no replaceable blocks in the configuration, end check.
-            if (modifierReplacementPattern == null || !modifierReplacementPattern.containsKey(entry.getKey())) {
+            // Check if the replacement block match, otherwise the check fails.
+            if (!matchesReplacement(world, offsets[i], at, oldState, modifierReplacementPattern)) {
                 return false;
             }
-
-            // Check if the replacement block match.
-            for (BlockInformation info : modifierReplacementPattern.get(entry.getKey())) {
-                if (info.matches(world, at, oldState)) {
-                    continue patternCheck;
-                }
-            }
-
-            // All the above conditions are not valid, and the check fails.
-            return false;
         }
         return true;
     }
 
+    /**
+     * <p>获取（必要时构建）编译后的结构，按区块分段顺序排列坐标，且无 NBT 检查的坐标排在前面。</p>
+     *
+     * <p>Returns (building it if needed) the compiled form of this pattern: a flat array of offsets ordered so chunk
+     * sections are read sequentially, with positions that need no NBT check first so mismatches are found cheaply.</p>
+     */
+    public CompiledPattern compile() {
+        CompiledPattern compiled = compiledPattern;
+        if (compiled != null && compiled.source == pattern && compiled.offsets.length == pattern.size()) {
+            return compiled;
+        }
+
+        List<Map.Entry<BlockPos, BlockInformation>> entries = new ObjectArrayList<>(pattern.entrySet());
+        entries.sort(Comparator
+                .comparing((Map.Entry<BlockPos, BlockInformation> entry) -> entry.getValue().requiresNBTCheck())
+                .thenComparingInt(entry -> entry.getKey().getX() >> 4)
+                .thenComparingInt(entry -> entry.getKey().getZ() >> 4)
+                .thenComparingInt(entry -> entry.getKey().getY())
+                .thenComparingInt(entry -> entry.getKey().getZ())
+                .thenComparingInt(entry -> entry.getKey().getX()));
+
+        BlockPos[] offsets = new BlockPos[entries.size()];
+        BlockInformation[] infos = new BlockInformation[entries.size()];
+        for (int i = 0; i < entries.size(); i++) {
+            Map.Entry<BlockPos, BlockInformation> entry = entries.get(i);
+            offsets[i] = entry.getKey();
+            infos[i] = entry.getValue();
+            infos[i].getCompiledStates();
+        }
+
+        compiled = new CompiledPattern(pattern, offsets, infos);
+        compiledPattern = compiled;
+        return compiled;
+    }
+
     public boolean matchesParallel(World world, BlockPos center, boolean oldState, @Nullable Map<BlockPos, List<BlockInformation>> modifierReplacementPattern) {
         return pattern.entrySet().parallelStream().allMatch(entry -> {
             BlockPos at = center.add(entry.getKey());
@@ -352,6 +388,49 @@ public class BlockArray {
         });
     }
 
+    /**
+     * <p>仅检查指定的（已发生变化的）坐标是否仍然与结构匹配，不在结构内的坐标会被忽略。</p>
+     *
+     * <p>Only checks whether the given (changed) positions still match the pattern, positions outside the pattern
+     * are ignored. This makes revalidating a formed structure O(changes) instead of O(pattern).</p>
+     *
+     * @param changedPositions 世界坐标，{@link BlockPos#toLong()} 格式 / world positions, as {@link BlockPos#toLong()}
+     */
+    public boolean matchesPositions(World world, BlockPos center, LongCollection changedPositions, boolean oldState, @Nullable Map<BlockPos, List<BlockInformation>> modifierReplacementPattern) {
+        LongIterator it = changedPositions.iterator();
+        while (it.hasNext()) {
+            BlockPos at = BlockPos.fromLong(it.nextLong());
+            BlockPos relative = at.subtract(center);
+            BlockInformation info = pattern.get(relative);
+            if (info == null) {
+                continue;
+            }
+            if (info.matches(world, at, oldState)) {
+                continue;
+            }
+            if (!matchesReplacement(world, relative, at, oldState, modifierReplacementPattern)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean matchesReplacement(World world, BlockPos relative, BlockPos at, boolean oldState, @Nullable Map<BlockPos, List<BlockInformation>> modifierReplacementPattern) {
+        if (modifierReplacementPattern == null) {
+            return false;
+        }
+        List<BlockInformation> replacements = modifierReplacementPattern.get(relative);
+        if (replacements == null) {
+            return false;
+        }
+        for (BlockInformation info : replacements) {
+            if (info.matches(world, at, oldState)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     public BlockPos getRelativeMismatchPosition(World world, BlockPos center, @Nullable Map<BlockPos, List<BlockInformation>> modifierReplacementPattern) {
         pattern:
         for (Map.Entry<BlockPos, BlockInformation> entry : pattern.entrySet()) {
@@ -436,6 +515,26 @@ public class BlockArray {
         return sb.toString();
     }
 
+    /**
+     * <p>编译后的结构，数组一经创建不再修改。</p>
+     * <p>Compiled form of a pattern, the arrays are never modified after creation.</p>
+     */
+    public static final class CompiledPattern {
+        private final Map<BlockPos, BlockInformation> source;
+        private final BlockPos[] offsets;
+        private final BlockInformation[] infos;
+
+        private CompiledPattern(final Map<BlockPos, BlockInformation> source, final BlockPos[] offsets, final BlockInformation[] infos) {
+            this.source = source;
+            this.offsets = offsets;
+            this.infos = infos;
+        }
+
+        public int size() {
+            return offsets.length;
+        }
+    }
+
     public static class BlockInformation {
 
         public static final int CYCLE_TICK_SPEED = 30;
@@ -453,6 +552,8 @@ public class BlockArray {
 
         private AdvancedBlockChecker nbtChecker = null;
 
+        private volatile Reference2ObjectMap<IBlockState, IBlockState> compiledStates = null;
+
         public BlockInformation(List<IBlockStateDescriptor> matching) {
             this.matchingStates.addAll(matching);
             for (IBlockStateDescriptor desc : matchingStates) {
@@ -477,6 +578,7 @@ public class BlockArray {
         }
 
         public void addMatchingStates(List<IBlockStateDescriptor> matching) {
+            compiledStates = null;
             for (IBlockStateDescriptor desc : matching) {
                 if (!matchingStates.contains(desc)) {
                     matchingStates.add(desc);
@@ -625,32 +727,57 @@ public class BlockArray {
             return bi;
         }
 
-        public boolean matchesState(World world, BlockPos at, IBlockState state) {
-            Block atBlock = state.getBlock();
-            int atMeta = atBlock.getMetaFromState(state);
+        /**
+         * <p>将所有可匹配的方块状态展开为一个以引用为键的表，值为对应的（第一个匹配的）描述状态。
+         * 与描述状态拥有相同方块和 meta 的所有合法状态都会被加入，匹配时只需一次引用查找。</p>
+         *
+         * <p>Expands every matching state into an identity-keyed table, mapping to the (first) descriptor state it
+         * matches. All valid states sharing block and meta with a descriptor state are included, so matching is a
+         * single reference lookup without recomputing metadata.</p>
+         */
+        public Reference2ObjectMap<IBlockState, IBlockState> getCompiledStates() {
+            Reference2ObjectMap<IBlockState, IBlockState> compiled = compiledStates;
+            if (compiled != null) {
+                return compiled;
+            }
 
+            compiled = new Reference2ObjectOpenHashMap<>();
             for (IBlockStateDescriptor descriptor : matchingStates) {
                 for (IBlockState applicable : descriptor.getApplicable()) {
                     Block type = applicable.getBlock();
                     int meta = type.getMetaFromState(applicable);
-                    if (!type.equals(atBlock) || meta != atMeta) {
-                        continue;
+                    for (IBlockState valid : type.getBlockState().getValidStates()) {
+                        if (type.getMetaFromState(valid) == meta) {
+                            compiled.putIfAbsent(valid, applicable);
+                        }
                     }
+                    compiled.putIfAbsent(applicable, applicable);
+                }
+            }
+            compiledStates = compiled;
+            return compiled;
+        }
 
-                    if (!isNBTCheckerMatch(world, at, applicable)) return false;
+        public boolean requiresNBTCheck() {
+            return nbtChecker != null || (matchingTag != null && matchingTag.getSize() > 0);
+        }
 
-                    if (matchingTag != null) {
-                        TileEntity te = world.getTileEntity(at);
-                        if (te != null && matchingTag.getSize() > 0) {
-                            NBTTagCompound cmp = new NBTTagCompound();
-                            te.writeToNBT(cmp);
-                            return NBTMatchingHelper.matchNBTCompound(matchingTag, cmp); //No match at this position.
-                        }
-                    }
-                    return true;
+        public boolean matchesState(World world, BlockPos at, IBlockState state) {
+            IBlockState applicable = getCompiledStates().get(state);
+            if (applicable == null) {
+                return false;
+            }
+
+            if (!isNBTCheckerMatch(world, at, applicable)) return false;
+
+            if (matchingTag != null) {
+                TileEntity te = world.getTileEntity(at);
+                if (te != null && matchingTag.getSize() > 0) {
+                    NBTTagCompound cmp = StructureNBTCache.INSTANCE.getTileNBT(world, at, te);
+                    return NBTMatchingHelper.matchNBTCompound(matchingTag, cmp); //No match at this position.
                 }
             }
-            return false;
+            return true;
         }
 
         public boolean matches(World world, BlockPos at, boolean default_) {
@@ -672,9 +799,9 @@ public class BlockArray {
                 return false;
             }
 
-            NBTTagCompound cmp = new NBTTagCompound();
-            te.writeToNBT(cmp);
-            return nbtChecker.isMatch(world, at, applicable, cmp);
+            NBTTagCompound cmp = StructureNBTCache.INSTANCE.getTileNBT(world, at, te);
+            // The cached compound is shared by every check, scripts get their own copy so they can not alter it.
+            return nbtChecker.isMatch(world, at, applicable, cmp.copy());
         }
 
         @Override
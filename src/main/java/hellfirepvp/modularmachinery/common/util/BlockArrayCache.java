@@ -77,11 +77,13 @@ public class BlockArrayCache {
     private static void buildBlockArrayCache(BlockArray blockArray) {
         EnumFacing facing = EnumFacing.NORTH;
         blockArray.flushTileBlocksCache();
+        blockArray.compile();
         addBlockArrayCache(blockArray, facing);
         do {
             facing = facing.rotateYCCW();
             blockArray = blockArray.rotateYCCW();
             blockArray.flushTileBlocksCache();
+            blockArray.compile();
             addBlockArrayCache(blockArray, facing);
         } while (facing != EnumFacing.NORTH);
     }
@@ -103,6 +105,7 @@ public class BlockArrayCache {
                 rotated.flushTileBlocksCache();
             }
 
+            rotated.compile();
             addBlockArrayCache(rotated, rotatedFacing);
         }
     }
@@ -0,0 +1,12 @@
+package hellfirepvp.modularmachinery.common.util;
+
+/**
+ * <p>ComponentSyncable（组件内同步）</p>
+ * <p>实现此接口的需求只会访问传入的组件，因此只需与使用同一组件的其他线程互斥，
+ * 多组件需求会按固定顺序同时锁定所有传入的组件。未实现此接口的需求仍然使用全局同步。</p>
+ * <p>Requirements implementing this only touch the components handed to them, so they only need to exclude threads
+ * using the same components. Multi-component requirements lock all of their components at once, in a fixed order.
+ * Anything else keeps the global synchronization.</p>
+ */
+public interface ComponentSyncable {
+}
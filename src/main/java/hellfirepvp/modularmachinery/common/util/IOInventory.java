@@ -12,6 +12,9 @@ import github.kasuminova.mmce.client.util.ItemStackUtils;
 import github.kasuminova.mmce.common.util.concurrent.ReadWriteLockProvider;
 import hellfirepvp.modularmachinery.common.tiles.base.SelectiveUpdateTileEntity;
 import hellfirepvp.modularmachinery.common.tiles.base.TileEntitySynchronized;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectMap;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectOpenHashMap;
+import net.minecraft.item.Item;
 import net.minecraft.item.ItemStack;
 import net.minecraft.nbt.NBTTagCompound;
 import net.minecraft.nbt.NBTTagList;
@@ -20,6 +23,7 @@ import net.minecraft.util.math.MathHelper;
 import net.minecraftforge.common.util.Constants;
 
 import javax.annotation.Nonnull;
+import java.util.Arrays;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.function.Consumer;
@@ -33,12 +37,31 @@ import java.util.function.Consumer;
  */
 public class IOInventory extends IItemHandlerImpl implements ReadWriteLockProvider {
 
+    private static final int[] EMPTY_SLOTS = new int[0];
+    private static final int MAX_MERGED_CACHE_SIZE = 64;
+
     private final ReadWriteLock rwLock = new ReentrantReadWriteLock();
 
     private final TileEntitySynchronized owner;
     // TODO IntConsumer.
     private Consumer<Integer> listener = null;
 
+    /**
+     * <p>物品到槽位的内容索引，在 {@link #setStackInSlot(int, ItemStack)}、{@link #insertItem(int, ItemStack, boolean)}
+     * 和 {@link #extractItem(int, int, boolean)} 中增量维护，使需求匹配只需检查可能含有该物品的槽位。</p>
+     * <p>索引只按物品记录，数量、元数据和 NBT 仍需在查询到的槽位上重新检查，因此被直接修改的物品堆不会导致错误匹配。</p>
+     *
+     * <p>Item to slot content index, updated incrementally from {@link #setStackInSlot(int, ItemStack)},
+     * {@link #insertItem(int, ItemStack, boolean)} and {@link #extractItem(int, int, boolean)}, so requirement
+     * matching only has to look at the slots that may hold the item.</p>
+     * <p>The index only records the item, count, meta and NBT are still checked on the returned slots, so stacks
+     * mutated in place can never cause a wrong match.</p>
+     * <p>Slot arrays are kept sorted and replaced on change (copy-on-write), so lookups never allocate.</p>
+     */
+    private final Reference2ObjectMap<Item, int[]> slotIndex = new Reference2ObjectOpenHashMap<>();
+    private final Reference2ObjectMap<Item[], int[]> mergedSlots = new Reference2ObjectOpenHashMap<>();
+    private Item[] indexedItems = new Item[0];
+
     private IOInventory(TileEntitySynchronized owner) {
         this.owner = owner;
     }
@@ -72,6 +95,7 @@ public class IOInventory extends IItemHandlerImpl implements ReadWriteLockProvid
         try {
             rwLock.writeLock().lock();
             super.setStackInSlot(slot, stack);
+            updateIndex(slot);
             notifyOwner();
             if (listener != null) {
                 listener.accept(slot);
@@ -91,6 +115,7 @@ public class IOInventory extends IItemHandlerImpl implements ReadWriteLockProvid
             (simulate ? rwLock.writeLock() : rwLock.readLock()).lock();
             ItemStack inserted = insertItemInternal(slot, stack, simulate);
             if (!simulate) {
+                updateIndex(slot);
                 if (listener != null) {
                     listener.accept(slot);
                 }
@@ -109,6 +134,7 @@ public class IOInventory extends IItemHandlerImpl implements ReadWriteLockProvid
             (simulate ? rwLock.writeLock() : rwLock.readLock()).lock();
             ItemStack extracted = super.extractItem(slot, amount, simulate);
             if (!simulate) {
+                updateIndex(slot);
                 if (listener != null) {
                     listener.accept(slot);
                 }
@@ -120,6 +146,126 @@ public class IOInventory extends IItemHandlerImpl implements ReadWriteLockProvid
         }
     }
 
+    @Override
+    public void clear() {
+        super.clear();
+        rebuildIndex();
+    }
+
+    /**
+     * <p>返回可能含有指定物品的槽位（升序）。返回的数组与索引共享，不可修改。</p>
+     * <p>Returns the slots that may hold the given item, in ascending order.
+     * The returned array is shared with the index and must not be modified.</p>
+     */
+    @Nonnull
+    public int[] getSlotsContaining(@Nonnull final Item item) {
+        synchronized (slotIndex) {
+            int[] slots = slotIndex.get(item);
+            return slots == null ? EMPTY_SLOTS : slots;
+        }
+    }
+
+    /**
+     * <p>返回可能含有任意一种指定物品的槽位（升序、无重复）。结果按物品数组缓存到索引下一次变化为止，返回的数组不可修改。</p>
+     * <p>Returns the slots that may hold any of the given items, in ascending order without duplicates.
+     * The result is cached per item array until the index changes next, the returned array must not be modified.</p>
+     */
+    @Nonnull
+    public int[] getSlotsContaining(@Nonnull final Item[] items) {
+        synchronized (slotIndex) {
+            int[] cached = mergedSlots.get(items);
+            if (cached != null) {
+                return cached;
+            }
+            int[] merged = EMPTY_SLOTS;
+            for (final Item item : items) {
+                int[] slots = slotIndex.get(item);
+                if (slots != null) {
+                    merged = merged.length == 0 ? slots : mergeSorted(merged, slots);
+                }
+            }
+            if (mergedSlots.size() >= MAX_MERGED_CACHE_SIZE) {
+                mergedSlots.clear();
+            }
+            mergedSlots.put(items, merged);
+            return merged;
+        }
+    }
+
+    private void updateIndex(final int slot) {
+        if (slot < 0 || slot >= inventory.length) {
+            return;
+        }
+
+        synchronized (slotIndex) {
+            ItemStack stack = getStackInSlot(slot);
+            Item item = stack.isEmpty() ? null : stack.getItem();
+            if (slot >= indexedItems.length) {
+                indexedItems = Arrays.copyOf(indexedItems, inventory.length);
+            }
+            Item prev = indexedItems[slot];
+            if (prev == item) {
+                return;
+            }
+            if (prev != null) {
+                int[] slots = slotIndex.get(prev);
+                if (slots != null) {
+                    int[] removed = removeSorted(slots, slot);
+                    if (removed.length == 0) {
+                        slotIndex.remove(prev);
+                    } else {
+                        slotIndex.put(prev, removed);
+                    }
+                }
+            }
+            if (item != null) {
+                int[] slots = slotIndex.get(item);
+                slotIndex.put(item, slots == null ? new int[]{slot} : mergeSorted(slots, new int[]{slot}));
+            }
+            indexedItems[slot] = item;
+            mergedSlots.clear();
+        }
+    }
+
+    private void rebuildIndex() {
+        synchronized (slotIndex) {
+            slotIndex.clear();
+            mergedSlots.clear();
+            indexedItems = new Item[inventory.length];
+            for (int slot = 0; slot < inventory.length; slot++) {
+                updateIndex(slot);
+            }
+        }
+    }
+
+    private static int[] mergeSorted(final int[] a, final int[] b) {
+        int[] merged = new int[a.length + b.length];
+        int i = 0, j = 0, size = 0;
+        while (i < a.length || j < b.length) {
+            int next;
+            if (j >= b.length || (i < a.length && a[i] <= b[j])) {
+                next = a[i++];
+            } else {
+                next = b[j++];
+            }
+            if (size == 0 || merged[size - 1] != next) {
+                merged[size++] = next;
+            }
+        }
+        return size == merged.length ? merged : Arrays.copyOf(merged, size);
+    }
+
+    private static int[] removeSorted(final int[] slots, final int slot) {
+        int idx = Arrays.binarySearch(slots, slot);
+        if (idx < 0) {
+            return slots;
+        }
+        int[] removed = new int[slots.length - 1];
+        System.arraycopy(slots, 0, removed, 0, idx);
+        System.arraycopy(slots, idx + 1, removed, idx, slots.length - idx - 1);
+        return removed;
+    }
+
     private void notifyOwner() {
         if (owner instanceof SelectiveUpdateTileEntity) {
             owner.markNoUpdateSync();
@@ -190,6 +336,8 @@ public class IOInventory extends IItemHandlerImpl implements ReadWriteLockProvid
             final int facingIndex = sides[index];
             this.accessibleSides[index] = EnumFacing.values()[facingIndex];
         }
+
+        rebuildIndex();
     }
 
     public int calcRedstoneFromInventory() {
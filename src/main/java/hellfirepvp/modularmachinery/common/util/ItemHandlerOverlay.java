@@ -0,0 +1,142 @@
+package hellfirepvp.modularmachinery.common.util;
+
+import net.minecraft.item.ItemStack;
+import net.minecraftforge.items.IItemHandlerModifiable;
+
+import javax.annotation.Nonnull;
+import java.util.Arrays;
+
+/**
+ * <p>覆盖在真实物品处理器之上的写时复制视图，用于配方模拟。</p>
+ * <p>读取时直接返回原处理器中的物品，写入只记录在本视图的槽位差异中，原处理器永远不会被修改。
+ * 模拟结束后直接丢弃即可，无需像完整复制一样预先拷贝所有槽位的物品。</p>
+ *
+ * <p>A copy-on-write view on top of a real item handler, used for recipe simulation.</p>
+ * <p>Reads fall through to the stacks of the backing handler, writes are only recorded as per-slot deltas in this
+ * view and never reach the backing handler. The overlay is simply dropped after the simulation, so unlike a full
+ * copy no stack has to be copied up front.</p>
+ * <p>Stacks returned by {@link #getStackInSlot(int)} may belong to the backing handler and must not be mutated,
+ * replace them through {@link #setStackInSlot(int, ItemStack)} instead.</p>
+ */
+public class ItemHandlerOverlay implements IItemHandlerModifiable {
+    private final IItemHandlerModifiable backing;
+    private final ItemStack[] overlay;
+    private int written = 0;
+
+    public ItemHandlerOverlay(final IItemHandlerModifiable backing) {
+        this.backing = backing;
+        this.overlay = new ItemStack[backing.getSlots()];
+    }
+
+    @Override
+    public void setStackInSlot(final int slot, @Nonnull final ItemStack stack) {
+        if (slot < 0 || slot >= overlay.length) {
+            return;
+        }
+        write(slot, stack);
+    }
+
+    public IItemHandlerModifiable getBacking() {
+        return backing;
+    }
+
+    /**
+     * <p>将本视图中写入过物品的槽位合并到原处理器的候选槽位中（升序、无重复），没有写入时直接返回原数组。</p>
+     * <p>Merges the slots this view has written a stack to into the candidate slots of the backing handler,
+     * in ascending order without duplicates. Returns the given array as is if nothing has been written.</p>
+     */
+    @Nonnull
+    public int[] withWrittenSlots(@Nonnull final int[] backingSlots) {
+        if (written == 0) {
+            return backingSlots;
+        }
+        int[] merged = new int[backingSlots.length + written];
+        int size = 0;
+        int next = 0;
+        for (int slot = 0; slot < overlay.length; slot++) {
+            boolean candidate = next < backingSlots.length && backingSlots[next] == slot;
+            if (candidate) {
+                next++;
+            }
+            ItemStack stack = overlay[slot];
+            if (candidate || (stack != null && !stack.isEmpty())) {
+                merged[size++] = slot;
+            }
+        }
+        return size == merged.length ? merged : Arrays.copyOf(merged, size);
+    }
+
+    @Override
+    public int getSlots() {
+        return overlay.length;
+    }
+
+    @Nonnull
+    @Override
+    public ItemStack getStackInSlot(final int slot) {
+        if (slot < 0 || slot >= overlay.length) {
+            return ItemStack.EMPTY;
+        }
+        ItemStack stack = overlay[slot];
+        return stack != null ? stack : backing.getStackInSlot(slot);
+    }
+
+    @Nonnull
+    @Override
+    public ItemStack insertItem(final int slot, @Nonnull final ItemStack stack, final boolean simulate) {
+        if (stack.isEmpty() || slot < 0 || slot >= overlay.length) {
+            return stack;
+        }
+
+        ItemStack existing = getStackInSlot(slot);
+        int max = Math.min(getSlotLimit(slot), stack.getMaxStackSize());
+        if (existing.isEmpty()) {
+            int toInsert = Math.min(max, stack.getCount());
+            if (!simulate) {
+                write(slot, ItemUtils.copyStackWithSize(stack, toInsert));
+            }
+            return toInsert >= stack.getCount() ? ItemStack.EMPTY : ItemUtils.copyStackWithSize(stack, stack.getCount() - toInsert);
+        }
+
+        if (!ItemUtils.stackEqualsNonNBT(existing, stack) || !ItemUtils.matchTags(existing, stack)) {
+            return stack;
+        }
+        int toInsert = Math.min(max - existing.getCount(), stack.getCount());
+        if (toInsert <= 0) {
+            return stack;
+        }
+        if (!simulate) {
+            write(slot, ItemUtils.copyStackWithSize(existing, existing.getCount() + toInsert));
+        }
+        return toInsert >= stack.getCount() ? ItemStack.EMPTY : ItemUtils.copyStackWithSize(stack, stack.getCount() - toInsert);
+    }
+
+    @Nonnull
+    @Override
+    public ItemStack extractItem(final int slot, final int amount, final boolean simulate) {
+        ItemStack existing = getStackInSlot(slot);
+        if (existing.isEmpty() || amount <= 0) {
+            return ItemStack.EMPTY;
+        }
+
+        int toExtract = Math.min(amount, existing.getCount());
+        if (!simulate) {
+            write(slot, toExtract >= existing.getCount()
+                    ? ItemStack.EMPTY
+                    : ItemUtils.copyStackWithSize(existing, existing.getCount() - toExtract));
+        }
+        return ItemUtils.copyStackWithSize(existing, toExtract);
+    }
+
+    @Override
+    public int getSlotLimit(final int slot) {
+        return backing.getSlotLimit(slot);
+    }
+
+    private void write(final int slot, final ItemStack stack) {
+        if (overlay[slot] == null) {
+            written++;
+        }
+        overlay[slot] = stack;
+    }
+}
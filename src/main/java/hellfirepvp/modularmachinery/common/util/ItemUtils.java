@@ -188,6 +188,143 @@ public class ItemUtils {
         return consumeAllInternal(handler, contents, amount);
     }
 
+    /**
+     * <p>统计处理器中能被 {@link #consumeAll(IItemHandlerModifiable, ItemStack, NBTTagCompound)} 消耗的物品总数，不修改处理器。</p>
+     * <p>Counts how many items {@link #consumeAll(IItemHandlerModifiable, ItemStack, NBTTagCompound)} could consume
+     * from the handler, without modifying it.</p>
+     */
+    public static long countAll(IItemHandler handler, ItemStack toCount, @Nullable NBTTagCompound matchNBTTag) {
+        long count = 0;
+        int[] candidates = getCandidateSlots(handler, toCount);
+        int slots = candidates != null ? candidates.length : handler.getSlots();
+        for (int n = 0; n < slots; n++) {
+            int i = candidates != null ? candidates[n] : n;
+            ItemStack s = handler.getStackInSlot(i);
+            if (matchStackLoosely(s, toCount) && NBTMatchingHelper.matchNBTCompound(matchNBTTag, s.getTagCompound())) {
+                count += getConsumableCount(s);
+            }
+        }
+        return count;
+    }
+
+    public static long countAll(IItemHandler handler, ItemStack toCount, AdvancedItemChecker itemChecker, TileMultiblockMachineController controller) {
+        long count = 0;
+        int[] candidates = getCandidateSlots(handler, toCount);
+        int slots = candidates != null ? candidates.length : handler.getSlots();
+        for (int n = 0; n < slots; n++) {
+            int i = candidates != null ? candidates[n] : n;
+            ItemStack s = handler.getStackInSlot(i);
+            if (matchStackLoosely(s, toCount) && itemChecker.isMatch(controller, s)) {
+                count += getConsumableCount(s);
+            }
+        }
+        return count;
+    }
+
+    public static long countAll(IItemHandler handler, String oreName, @Nullable NBTTagCompound matchNBTTag) {
+        long count = 0;
+        int[] candidates = getCandidateSlots(handler, oreName);
+        int slots = candidates != null ? candidates.length : handler.getSlots();
+        for (int n = 0; n < slots; n++) {
+            int i = candidates != null ? candidates[n] : n;
+            ItemStack s = handler.getStackInSlot(i);
+            if (!s.isEmpty() && hasOreName(s, oreName) && NBTMatchingHelper.matchNBTCompound(matchNBTTag, s.getTagCompound())) {
+                count += getConsumableCount(s);
+            }
+        }
+        return count;
+    }
+
+    public static long countAll(IItemHandler handler, String oreName, AdvancedItemChecker itemChecker, TileMultiblockMachineController controller) {
+        long count = 0;
+        int[] candidates = getCandidateSlots(handler, oreName);
+        int slots = candidates != null ? candidates.length : handler.getSlots();
+        for (int n = 0; n < slots; n++) {
+            int i = candidates != null ? candidates[n] : n;
+            ItemStack s = handler.getStackInSlot(i);
+            if (!s.isEmpty() && hasOreName(s, oreName) && itemChecker.isMatch(controller, s)) {
+                count += getConsumableCount(s);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * <p>统计 {@link #insertAll(ItemStack, IItemHandlerModifiable, int)} 最多能向处理器插入多少个物品，不修改处理器。</p>
+     * <p>Counts how many items {@link #insertAll(ItemStack, IItemHandlerModifiable, int)} could insert into the
+     * handler at most, without modifying it.</p>
+     */
+    public static long countInsertable(@Nonnull ItemStack stack, IItemHandler handler) {
+        long count = 0;
+        for (int i = 0; i < handler.getSlots(); i++) {
+            int maxStackSize = handler.getSlotLimit(i);
+            ItemStack in = handler.getStackInSlot(i);
+            if (in.getCount() >= maxStackSize) {
+                continue;
+            }
+            if (in.isEmpty()) {
+                count += maxStackSize;
+            } else if (stackEqualsNonNBT(stack, in) && matchTags(stack, in)) {
+                count += maxStackSize - in.getCount();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * <p>处理器维护了内容索引（{@link IOInventory}，或覆盖在其上的 {@link ItemHandlerOverlay}）时返回可能含有该物品的槽位，
+     * 否则返回 {@code null}，表示需要扫描所有槽位。返回的数组可能被共享，不可修改。</p>
+     * <p>Returns the slots that may hold the item if the handler keeps a content index ({@link IOInventory}, or an
+     * {@link ItemHandlerOverlay} on top of one), otherwise {@code null}, meaning every slot has to be scanned.
+     * The returned array may be shared and must not be modified.</p>
+     */
+    @Nullable
+    private static int[] getCandidateSlots(IItemHandler handler, ItemStack match) {
+        if (match.isEmpty()) {
+            return null;
+        }
+        if (handler instanceof ItemHandlerOverlay overlay) {
+            int[] slots = getCandidateSlots(overlay.getBacking(), match);
+            return slots == null ? null : overlay.withWrittenSlots(slots);
+        }
+        if (handler instanceof IOInventory inventory) {
+            return inventory.getSlotsContaining(match.getItem());
+        }
+        return null;
+    }
+
+    @Nullable
+    private static int[] getCandidateSlots(IItemHandler handler, String oreName) {
+        if (handler instanceof ItemHandlerOverlay overlay) {
+            int[] slots = getCandidateSlots(overlay.getBacking(), oreName);
+            return slots == null ? null : overlay.withWrittenSlots(slots);
+        }
+        if (handler instanceof IOInventory inventory) {
+            return inventory.getSlotsContaining(OredictCache.getOreItems(oreName));
+        }
+        return null;
+    }
+
+    private static boolean hasOreName(ItemStack stack, String oreName) {
+        int oreId = OredictCache.getOreID(oreName);
+        return oreId >= 0 && hasOreID(stack, oreId);
+    }
+
+    private static boolean hasOreID(ItemStack stack, int oreId) {
+        for (int id : OredictCache.getOreIDsFast(stack)) {
+            if (id == oreId) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int getConsumableCount(ItemStack stack) {
+        int count = stack.getCount();
+        // Mirrors consumeAllInternal, which never consumes stacked container items.
+        return count > 1 && stack.getItem().hasContainerItem(stack) ? 0 : count;
+    }
+
     public static int insertAll(@Nonnull ItemStack stack, IItemHandlerModifiable handler, int maxInsert) {
         if (stack.getCount() <= 0) {
             return 0;
@@ -322,40 +459,49 @@ public class ItemUtils {
     }
 
     public static Int2ObjectMap<ItemStack> findItemsIndexedInInventoryOreDict(IItemHandlerModifiable handler, String oreDict, @Nullable NBTTagCompound matchNBTTag) {
-        Int2ObjectMap<ItemStack> stacksOut = new Int2ObjectOpenHashMap<>(handler.getSlots() * 2);
-        for (int j = 0; j < handler.getSlots(); j++) {
+        int oreId = OredictCache.getOreID(oreDict);
+        if (oreId < 0) {
+            return new Int2ObjectOpenHashMap<>();
+        }
+        int[] candidates = getCandidateSlots(handler, oreDict);
+        int slots = candidates != null ? candidates.length : handler.getSlots();
+        Int2ObjectMap<ItemStack> stacksOut = new Int2ObjectOpenHashMap<>(slots * 2);
+        for (int n = 0; n < slots; n++) {
+            int j = candidates != null ? candidates[n] : n;
             ItemStack s = handler.getStackInSlot(j);
             if (s.isEmpty()) continue;
-            int[] ids = OredictCache.getOreIDsFast(s);
-            for (int id : ids) {
-                if (OreDictionary.getOreName(id).equals(oreDict) && NBTMatchingHelper.matchNBTCompound(matchNBTTag, s.getTagCompound())) {
-                    stacksOut.put(j, s);
-                    break;
-                }
+            if (hasOreID(s, oreId) && NBTMatchingHelper.matchNBTCompound(matchNBTTag, s.getTagCompound())) {
+                stacksOut.put(j, s);
             }
         }
         return stacksOut;
     }
 
     public static Int2ObjectMap<ItemStack> findItemsIndexedInInventoryOreDict(IItemHandlerModifiable handler, String oreDict, AdvancedItemChecker itemChecker, TileMultiblockMachineController controller) {
-        Int2ObjectMap<ItemStack> stacksOut = new Int2ObjectOpenHashMap<>(handler.getSlots() * 2);
-        for (int j = 0; j < handler.getSlots(); j++) {
+        int oreId = OredictCache.getOreID(oreDict);
+        if (oreId < 0) {
+            return new Int2ObjectOpenHashMap<>();
+        }
+        int[] candidates = getCandidateSlots(handler, oreDict);
+        int slots = candidates != null ? candidates.length : handler.getSlots();
+        Int2ObjectMap<ItemStack> stacksOut = new Int2ObjectOpenHashMap<>(slots * 2);
+        for (int n = 0; n < slots; n++) {
+            int j = candidates != null ? candidates[n] : n;
             ItemStack s = handler.getStackInSlot(j);
             if (s.isEmpty()) continue;
-            int[] ids = OredictCache.getOreIDsFast(s);
-            for (int id : ids) {
-                if (OreDictionary.getOreName(id).equals(oreDict) && itemChecker.isMatch(controller, s)) {
-                    stacksOut.put(j, s);
-                    break;
-                }
+            if (hasOreID(s, oreId) && itemChecker.isMatch(controller, s)) {
+                stacksOut.put(j, s);
             }
         }
         return stacksOut;
     }
 
     public static Int2ObjectMap<ItemStack> findItemsIndexedInInventory(IItemHandlerModifiable handler, ItemStack match, boolean strict, @Nullable NBTTagCompound matchNBTTag) {
-        Int2ObjectMap<ItemStack> stacksOut = new Int2ObjectOpenHashMap<>(handler.getSlots() * 2);
-        for (int j = 0; j < handler.getSlots(); j++) {
+        int[] candidates = getCandidateSlots(handler, match);
+        int slots = candidates != null ? candidates.length : handler.getSlots();
+        Int2ObjectMap<ItemStack> stacksOut = new Int2ObjectOpenHashMap<>(slots * 2);
+        for (int n = 0; n < slots; n++) {
+            int j = candidates != null ? candidates[n] : n;
             ItemStack s = handler.getStackInSlot(j);
             if ((strict ? matchStacks(s, match) : matchStackLoosely(s, match)) && NBTMatchingHelper.matchNBTCompound(matchNBTTag, s.getTagCompound())) {
                 stacksOut.put(j, s);
@@ -365,8 +511,11 @@ public class ItemUtils {
     }
 
     public static Int2ObjectMap<ItemStack> findItemsIndexedInInventory(IItemHandlerModifiable handler, ItemStack match, boolean strict, AdvancedItemChecker itemChecker, TileMultiblockMachineController controller) {
-        Int2ObjectMap<ItemStack> stacksOut = new Int2ObjectOpenHashMap<>(handler.getSlots() * 2);
-        for (int j = 0; j < handler.getSlots(); j++) {
+        int[] candidates = getCandidateSlots(handler, match);
+        int slots = candidates != null ? candidates.length : handler.getSlots();
+        Int2ObjectMap<ItemStack> stacksOut = new Int2ObjectOpenHashMap<>(slots * 2);
+        for (int n = 0; n < slots; n++) {
+            int j = candidates != null ? candidates[n] : n;
             ItemStack s = handler.getStackInSlot(j);
             if ((strict ? matchStacks(s, match) : matchStackLoosely(s, match)) && itemChecker.isMatch(controller, s)) {
                 stacksOut.put(j, s);
@@ -395,17 +544,7 @@ public class ItemUtils {
     }
 
     public static ItemStack getOredictItem(final RecipeCraftingContext context, final String oreDictName, final NBTTagCompound tag) {
-        ItemStack stack = ItemStack.EMPTY;
-        for (ItemStack oreInstance : OreDictionary.getOres(oreDictName)) {
-            if (oreInstance.isEmpty()) {
-                continue;
-            }
-            stack = copyStackWithSize(oreInstance, 1);
-
-            if (!stack.isEmpty()) { //Try all options first..
-                break;
-            }
-        }
+        ItemStack stack = copyStackWithSize(OredictCache.getFirstOre(oreDictName), 1);
 
         if (stack.isEmpty()) {
             throw new IllegalArgumentException("Unknown ItemStack: Cannot find an item in oredict '" + oreDictName + "'!");
@@ -422,19 +561,11 @@ public class ItemUtils {
     public static List<ProcessingComponent<?>> copyItemHandlerComponents(final List<ProcessingComponent<?>> components) {
         List<ProcessingComponent<?>> list = new ArrayList<>();
         for (ProcessingComponent<?> component : components) {
-            Object provided = component.getProvidedComponent();
-            IItemHandlerImpl handler = null;
-
-            if (provided instanceof IItemHandlerImpl handlerMM) {
-                handler = handlerMM.copy();
-            } else if (provided instanceof IItemHandlerModifiable handlerDefault) {
-                handler = new IItemHandlerImpl(handlerDefault);
-            }
-
-            if (handler != null) {
+            // Simulate against a copy-on-write overlay, only the slots actually touched get new stacks.
+            if (component.getProvidedComponent() instanceof IItemHandlerModifiable handler) {
                 list.add(new ProcessingComponent<>(
                         (MachineComponent<Object>) component.component(),
-                        handler,
+                        new ItemHandlerOverlay(handler),
                         component.getTag())
                 );
             }
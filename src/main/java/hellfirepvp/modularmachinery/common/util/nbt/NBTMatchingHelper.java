@@ -58,14 +58,10 @@ public class NBTMatchingHelper {
     }
 
     private static boolean matchCompound(NBTTagCompound matchNBT, NBTTagCompound itemStackNBTToCheck) {
+        // Only the keys referenced by the matching tag are looked up, one lookup per key.
         for (String keyMatch : matchNBT.getKeySet()) {
-            if (itemStackNBTToCheck.hasKey(keyMatch)) {
-                NBTBase baseOriginal = matchNBT.getTag(keyMatch);
-                NBTBase baseStack = itemStackNBTToCheck.getTag(keyMatch);
-                if (!matchBase(baseOriginal, baseStack)) {
-                    return false;
-                }
-            } else {
+            NBTBase baseStack = itemStackNBTToCheck.getTag(keyMatch);
+            if (baseStack == null || !matchBase(matchNBT.getTag(keyMatch), baseStack)) {
                 return false;
             }
         }